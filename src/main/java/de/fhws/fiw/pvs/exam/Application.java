@@ -1,10 +1,28 @@
 package de.fhws.fiw.pvs.exam;
 
-import org.glassfish.jersey.linking.DeclarativeLinkingFeature;
 import org.glassfish.jersey.server.ResourceConfig;
+import de.fhws.fiw.pvs.exam.cache.ResponseCacheFilter;
+import de.fhws.fiw.pvs.exam.cache.ResponseCacheInterceptor;
+import de.fhws.fiw.pvs.exam.cbor.CborConverter;
+import de.fhws.fiw.pvs.exam.compression.CompressionInterceptor;
+import de.fhws.fiw.pvs.exam.database.DatabaseLifecycleListener;
+import de.fhws.fiw.pvs.exam.execution.ExecutionLifecycleListener;
+import de.fhws.fiw.pvs.exam.filter.CausalSessionFilter;
+import de.fhws.fiw.pvs.exam.filter.LinkInjectionFilter;
+import de.fhws.fiw.pvs.exam.filter.RateLimitFilter;
+import de.fhws.fiw.pvs.exam.json.ResourceJsonConverter;
+import de.fhws.fiw.pvs.exam.linkconverter.LinkInjector;
+import de.fhws.fiw.pvs.exam.resources.Course;
+import de.fhws.fiw.pvs.exam.resources.CourseWithEvents;
+import de.fhws.fiw.pvs.exam.resources.Event;
+import de.fhws.fiw.pvs.exam.resources.ScoredCourse;
+import de.fhws.fiw.pvs.exam.seats.SeatBroadcastLifecycleListener;
+import de.fhws.fiw.pvs.exam.service.ChangeService;
 import de.fhws.fiw.pvs.exam.service.CourseService;
 import de.fhws.fiw.pvs.exam.service.EventService;
+import de.fhws.fiw.pvs.exam.service.ExportService;
 import de.fhws.fiw.pvs.exam.service.StartService;
+import de.fhws.fiw.pvs.exam.xml.JaxbXmlWriter;
 
 import javax.ws.rs.ApplicationPath;
 import java.util.HashSet;
@@ -17,7 +35,19 @@ public class Application extends ResourceConfig {
         super();
         registerClasses(getServiceClasses());
         packages("org.glassfish.jersey.examples.linking");
-        register(DeclarativeLinkingFeature.class);
+        register(RateLimitFilter.class);
+        register(LinkInjectionFilter.class);
+        register(CausalSessionFilter.class);
+        register(ResponseCacheFilter.class);
+        register(ResponseCacheInterceptor.class);
+        register(CompressionInterceptor.class);
+        register(ResourceJsonConverter.class);
+        register(CborConverter.class);
+        register(JaxbXmlWriter.class);
+        register(DatabaseLifecycleListener.class);
+        register(ExecutionLifecycleListener.class);
+        register(SeatBroadcastLifecycleListener.class);
+        LinkInjector.precompile(Course.class, CourseWithEvents.class, ScoredCourse.class, Event.class);
     }
 
     public Set<Class<?>> getServiceClasses() {
@@ -25,6 +55,8 @@ public class Application extends ResourceConfig {
         serviceClasses.add(StartService.class);
         serviceClasses.add(CourseService.class);
         serviceClasses.add(EventService.class);
+        serviceClasses.add(ExportService.class);
+        serviceClasses.add(ChangeService.class);
         return serviceClasses;
     }
 }
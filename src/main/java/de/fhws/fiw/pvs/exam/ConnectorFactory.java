@@ -0,0 +1,66 @@
+package de.fhws.fiw.pvs.exam;
+
+import de.fhws.fiw.pvs.exam.configuration.Configuration;
+import de.fhws.fiw.pvs.exam.execution.VirtualThreads;
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.http2.Http2Protocol;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Builds the HTTP connector of the embedded Tomcat from the configuration (system properties, environment or the
+// softskills.properties file, see Configuration), so every deployment can be tuned without a rebuild
+public class ConnectorFactory {
+    private static final String NIO = "org.apache.coyote.http11.Http11NioProtocol";
+    private static final String NIO2 = "org.apache.coyote.http11.Http11Nio2Protocol";
+
+
+    public static Connector createConnector() {
+        String protocol = Configuration.getString("softskills.server.protocol", "nio");
+        Connector connector = new Connector(protocol.equalsIgnoreCase("nio2") ? NIO2 : NIO);
+        connector.setPort(getPort());
+
+        // Threads and connections. A browser opens several connections for the list and detail requests, they are
+        // kept alive instead of connecting again for every request
+        setProperty(connector, "maxThreads", "200");
+        setProperty(connector, "minSpareThreads", "10");
+        setProperty(connector, "maxConnections", "10000");
+        setProperty(connector, "acceptCount", "100");
+        setProperty(connector, "connectionTimeout", "20000");
+        setProperty(connector, "keepAliveTimeout", "20000");
+        setProperty(connector, "maxKeepAliveRequests", "100");
+
+        // Tomcat's compression is off by default, the CompressionInterceptor compresses the responses already
+        setProperty(connector, "compression", "off");
+        setProperty(connector, "compressionMinSize", "2048");
+        setProperty(connector, "compressibleMimeType", "application/json,application/xml,application/x-ndjson");
+
+        // HTTP/2 over a cleartext upgrade (h2c), all requests of a client share one connection
+        if (Configuration.getBoolean("softskills.server.http2.enabled", false)) {
+            connector.addUpgradeProtocol(new Http2Protocol());
+        }
+
+        // Optional: every request on a virtual thread of its own (Java 21+, softskills.virtualThreads.enabled)
+        VirtualThreads.useFor(connector);
+        return connector;
+    }
+
+
+    public static int getPort() {
+        return Configuration.getInt("softskills.server.port", 8080);
+    }
+
+
+
+    // Additional methods:
+
+    // softskills.server.<name> overrides the default of the connector attribute <name>
+    private static void setProperty(Connector connector, String name, String defaultValue) {
+        String value = Configuration.getString("softskills.server." + name, defaultValue);
+        if (!connector.setProperty(name, value)) {
+            System.err.println("Unknown connector setting softskills.server." + name);
+        }
+    }
+}
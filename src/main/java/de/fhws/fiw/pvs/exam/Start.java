@@ -1,6 +1,7 @@
 package de.fhws.fiw.pvs.exam;
 
 import org.apache.catalina.Context;
+import org.apache.catalina.connector.Connector;
 import org.apache.catalina.WebResourceRoot;
 import org.apache.catalina.startup.Tomcat;
 import org.apache.catalina.webresources.DirResourceSet;
@@ -18,7 +19,10 @@ public class Start {
     public static void main(String[] args) throws Exception {
         System.out.println("Server starting...");
         Tomcat tomcat = new Tomcat();
-        tomcat.setPort(8080);
+        // Protocol, threads, keep-alive and HTTP/2 come from the configuration, see ConnectorFactory
+        Connector connector = ConnectorFactory.createConnector();
+        tomcat.getService().addConnector(connector);
+        tomcat.setConnector(connector);
 
         Context context = tomcat.addWebapp(CONTEXT_PATH, new File(WEB_APP_LOCATION).getAbsolutePath());
         String pathToClasses = new File(WEB_APP_CLASSES).getAbsolutePath();
@@ -29,7 +33,7 @@ public class Start {
         context.setResources(resources);
 
         tomcat.start();
-        System.out.println("Server started at Port:8080");
+        System.out.println("Server started at Port:" + ConnectorFactory.getPort());
         tomcat.getServer().await();
     }
 }
\ No newline at end of file
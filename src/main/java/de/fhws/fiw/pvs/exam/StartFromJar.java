@@ -1,6 +1,7 @@
 package de.fhws.fiw.pvs.exam;
 
 import org.apache.catalina.Context;
+import org.apache.catalina.connector.Connector;
 import org.apache.catalina.WebResourceRoot;
 import org.apache.catalina.startup.Tomcat;
 import org.apache.catalina.webresources.JarResourceSet;
@@ -12,7 +13,10 @@ import java.io.File;
 public class StartFromJar {
     public static void main(final String[] args) throws Exception {
         final Tomcat tomcat = new Tomcat();
-        tomcat.setPort(8080);
+        // Protocol, threads, keep-alive and HTTP/2 come from the configuration, see ConnectorFactory
+        final Connector connector = ConnectorFactory.createConnector();
+        tomcat.getService().addConnector(connector);
+        tomcat.setConnector(connector);
 
         final Context context = tomcat.addWebapp("/api", new File("src/main/webapp/").getAbsolutePath());
         final String pathToJar = getJarFileOfThisProject().getAbsolutePath();
@@ -20,7 +24,9 @@ public class StartFromJar {
 
         resources.addJarResources(new JarResourceSet(resources, "/WEB-INF/lib/", pathToJar, "/"));
         context.setResources(resources);
-        Tomcat.addServlet(context, "jersey-container-servlet", new ServletContainer(new Application()));
+        // The resource methods run on the RequestExecutor, the servlet has to allow async requests for that
+        Tomcat.addServlet(context, "jersey-container-servlet", new ServletContainer(new Application()))
+                .setAsyncSupported(true);
 
         // In case you change "api" you also have to change the annotation at class Application
         context.addServletMappingDecoded("/softskills/*", "jersey-container-servlet");
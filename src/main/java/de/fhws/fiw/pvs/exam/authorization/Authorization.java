@@ -3,12 +3,15 @@ package de.fhws.fiw.pvs.exam.authorization;
 
 import com.owlike.genson.GenericType;
 import com.owlike.genson.Genson;
+import de.fhws.fiw.pvs.exam.configuration.Configuration;
 import okhttp3.*;
 
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /***
  * By Luca Lanzo
@@ -17,6 +20,16 @@ import java.util.Objects;
 
 public class Authorization {
     private final static String BASE_URL = "https://api.fiw.fhws.de/auth/api/users/me";
+    private final static int MAXIMUM_CALLS = Configuration.getInt("softskills.auth.maxConcurrentCalls", 64);
+    // One client for all requests, so the connections to the auth API are kept alive and reused instead of a new
+    // client (with a connection pool of its own) and a new TLS handshake for every request
+    private final static OkHttpClient CLIENT = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(MAXIMUM_CALLS, 5, TimeUnit.MINUTES))
+            .connectTimeout(Configuration.getLong("softskills.auth.connectTimeoutMillis", 5000), TimeUnit.MILLISECONDS)
+            .readTimeout(Configuration.getLong("softskills.auth.readTimeoutMillis", 10000), TimeUnit.MILLISECONDS)
+            .build();
+    // The auth API is called by at most MAXIMUM_CALLS requests at the same time, the others wait for their turn
+    private final static Semaphore CALLS = new Semaphore(MAXIMUM_CALLS);
 
     public static String[] authorizeUser(String authBody) throws IOException {
         // Returns 401 and false if no creds have been transmitted
@@ -24,16 +37,21 @@ public class Authorization {
             return new String[]{("401"), ("other"), ("")};
         }
 
-        OkHttpClient client = new OkHttpClient();
-
         Request request = new Request.Builder()
                 .url(BASE_URL)
                 .header("Authorization", authBody)
                 .build();
 
         // Make a request to fiw.fhws api
-        Response response = client.newCall(request).execute();
-        String body = Objects.requireNonNull(response.body()).string();
+        Response response;
+        String body;
+        CALLS.acquireUninterruptibly();
+        try {
+            response = CLIENT.newCall(request).execute();
+            body = Objects.requireNonNull(response.body()).string();
+        } finally {
+            CALLS.release();
+        }
 
         // If fiw.fhws api denies the connection return the 401 to the client
         if (response.code() == 401) {
@@ -0,0 +1,12 @@
+package de.fhws.fiw.pvs.exam.cache;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// The data a cached response has been built from. A write into a region invalidates every cached response of it
+public enum CacheRegion {
+    COURSES,
+    EVENTS
+}
@@ -0,0 +1,81 @@
+package de.fhws.fiw.pvs.exam.cache;
+
+import de.fhws.fiw.pvs.exam.compression.Compression;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class CachedResponse {
+    private final byte[] body;
+    private final MediaType mediaType;
+    // Link, ETag, Cache-Control, X-totalAmountOf... but never the Authorization header of the user
+    private final MultivaluedMap<String, Object> headers;
+    private final EntityTag entityTag;
+    private final long[] generations;
+    private final long createdAt = System.currentTimeMillis();
+    // The body compressed with gzip/deflate, only created once a client asks for it
+    private final Map<String, byte[]> compressedBodies = new ConcurrentHashMap<>(2);
+
+
+    CachedResponse(byte[] body, MediaType mediaType, MultivaluedMap<String, Object> headers, long[] generations) {
+        this.body = body;
+        this.mediaType = mediaType;
+        this.headers = headers;
+        Object entityTag = headers.getFirst("ETag");
+        this.entityTag = entityTag == null || entityTag instanceof EntityTag ? (EntityTag) entityTag
+                : EntityTag.valueOf(entityTag.toString());
+        this.generations = generations;
+    }
+
+
+    // Build the response from the cached bytes. The caller adds the Authorization header of its user
+    public Response.ResponseBuilder toResponse(Request request) {
+        if (entityTag != null) {
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+            if (notModified != null) {
+                return notModified.header("Cache-Control", headers.getFirst("Cache-Control"));
+            }
+        }
+
+        Response.ResponseBuilder responseBuilder = Response.ok(body, mediaType);
+        for (Map.Entry<String, List<Object>> header : headers.entrySet()) {
+            for (Object value : header.getValue()) {
+                responseBuilder.header(header.getKey(), value);
+            }
+        }
+        return responseBuilder;
+    }
+
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    // The body compressed with the encoding, so a cached response is compressed only once and not per request
+    public byte[] getCompressedBody(String encoding) {
+        return compressedBodies.computeIfAbsent(encoding, compressWith -> Compression.compress(body, compressWith));
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    long[] getGenerations() {
+        return generations;
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,253 @@
+package de.fhws.fiw.pvs.exam.cache;
+
+import de.fhws.fiw.pvs.exam.configuration.Configuration;
+import de.fhws.fiw.pvs.exam.streaming.ListStreamingOutput;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class ResponseCache {
+    private static final boolean ENABLED = Configuration.getBoolean("softskills.responseCache.enabled", true);
+    private static final boolean SINGLE_FLIGHT_ENABLED = Configuration.getBoolean("softskills.singleFlight.enabled",
+            true);
+    // A request doesn't wait longer than this for an identical request that is running already
+    private static final long SINGLE_FLIGHT_MAXIMUM_WAIT_MILLIS = Configuration.getLong(
+            "softskills.singleFlight.maximumWaitMillis", 5000);
+    private static final long MAXIMUM_BYTES = Configuration.getLong("softskills.responseCache.maximumBytes",
+            16 * 1024 * 1024);
+    // Other server instances don't invalidate this cache, so an entry is never older than this
+    private static final long TIME_TO_LIVE_MILLIS = TimeUnit.SECONDS.toMillis(
+            Configuration.getLong("softskills.responseCache.timeToLiveSeconds", 60));
+    // Request property that tells the ResponseCacheInterceptor to keep the bytes of the response
+    static final String PENDING_ENTRY = "softskills.responseCache.pendingEntry";
+    // Request property with the CachedResponse a request is answered with, see CompressionInterceptor
+    public static final String CACHED_RESPONSE = "softskills.responseCache.cachedResponse";
+
+    // Every write into a region increases its generation, a cached response is only valid for the generations it
+    // has been built with
+    private static final AtomicLongArray GENERATIONS = new AtomicLongArray(CacheRegion.values().length);
+    // Least recently used entries come first
+    private static final LinkedHashMap<String, CachedResponse> ENTRIES = new LinkedHashMap<>(64, 0.75f, true);
+    private static long currentBytes = 0;
+    // Requests that are building their response right now, by the same key as the cache
+    private static final Map<String, Flight> FLIGHTS = new ConcurrentHashMap<>();
+
+
+    // Get the cached response of this request. If there is none, the request is marked so its response gets cached
+    // once it has been written. The key is the path, the query sorted by name, the role of the user and the media
+    // type the response is going to have.
+    // If an identical request is building its response right now, this request waits for it and gets the same
+    // response (single flight). That doesn't need the cache, so it also works with the cache switched off
+    public static CachedResponse lookup(ContainerRequestContext requestContext, String role,
+                                        CacheRegion... regions) {
+        if (!ENABLED && !SINGLE_FLIGHT_ENABLED) {
+            return null;
+        }
+
+        // The generations are read before the database is, so a write in between makes the new entry invalid
+        // right away instead of caching outdated data
+        long[] generations = currentGenerations(regions);
+        String key = keyOf(requestContext, role);
+
+        if (ENABLED) {
+            synchronized (ENTRIES) {
+                CachedResponse cachedResponse = ENTRIES.get(key);
+                if (cachedResponse != null && Arrays.equals(cachedResponse.getGenerations(), generations)
+                        && System.currentTimeMillis() - cachedResponse.getCreatedAt() < TIME_TO_LIVE_MILLIS) {
+                    requestContext.setProperty(CACHED_RESPONSE, cachedResponse);
+                    return cachedResponse;
+                }
+                if (cachedResponse != null) {
+                    remove(key);
+                }
+            }
+        }
+
+        Flight flight = null;
+        if (SINGLE_FLIGHT_ENABLED) {
+            // Join the running request, or run this one and let the identical requests that come in meanwhile join
+            Flight ownFlight = new Flight(generations);
+            Flight runningFlight = FLIGHTS.compute(key,
+                    (flightKey, running) -> running != null && running.isJoinable(generations) ? running : ownFlight);
+            if (runningFlight == ownFlight) {
+                flight = ownFlight;
+            } else {
+                CachedResponse sharedResponse = runningFlight.await();
+                if (sharedResponse != null) {
+                    requestContext.setProperty(CACHED_RESPONSE, sharedResponse);
+                    return sharedResponse;
+                }
+                // The other request had no response to share (e.g. too big), this one builds its own
+            }
+        }
+
+        requestContext.setProperty(PENDING_ENTRY, new PendingEntry(key, regions, generations, flight));
+        return null;
+    }
+
+
+    // Something in these regions has been written, so every response that has been built from them is outdated
+    public static void invalidate(CacheRegion... regions) {
+        for (CacheRegion region : regions) {
+            GENERATIONS.incrementAndGet(region.ordinal());
+        }
+    }
+
+
+
+    // Additional methods:
+
+    // Bigger responses are not worth a place in the cache
+    static long getMaximumEntryBytes() {
+        return MAXIMUM_BYTES / 8;
+    }
+
+
+    // Called by the ResponseCacheInterceptor after the response has been written. The waiting identical requests get
+    // the response in any case, it has been built after they came in
+    static void put(PendingEntry pendingEntry, byte[] body, MediaType mediaType,
+                    MultivaluedMap<String, Object> headers) {
+        CachedResponse cachedResponse = new CachedResponse(body, mediaType, headers, pendingEntry.generations);
+        land(pendingEntry, cachedResponse);
+
+        // Too big to be worth it, or outdated already
+        if (!ENABLED || body.length > getMaximumEntryBytes()
+                || !Arrays.equals(pendingEntry.generations, currentGenerations(pendingEntry.regions))) {
+            return;
+        }
+
+        synchronized (ENTRIES) {
+            remove(pendingEntry.key);
+            ENTRIES.put(pendingEntry.key, cachedResponse);
+            currentBytes += body.length;
+
+            Iterator<Map.Entry<String, CachedResponse>> leastRecentlyUsed = ENTRIES.entrySet().iterator();
+            while (currentBytes > MAXIMUM_BYTES && leastRecentlyUsed.hasNext()) {
+                currentBytes -= leastRecentlyUsed.next().getValue().getBody().length;
+                leastRecentlyUsed.remove();
+            }
+        }
+    }
+
+
+    // The request is done without a response to share (error, 304, too big), the waiting requests build their own
+    static void abandon(PendingEntry pendingEntry) {
+        land(pendingEntry, null);
+    }
+
+
+    private static void land(PendingEntry pendingEntry, CachedResponse cachedResponse) {
+        if (pendingEntry.flight != null) {
+            FLIGHTS.remove(pendingEntry.key, pendingEntry.flight);
+            pendingEntry.flight.response.complete(cachedResponse);
+        }
+    }
+
+
+    // Must be called while holding the lock of ENTRIES
+    private static void remove(String key) {
+        CachedResponse removed = ENTRIES.remove(key);
+        if (removed != null) {
+            currentBytes -= removed.getBody().length;
+        }
+    }
+
+
+    private static long[] currentGenerations(CacheRegion... regions) {
+        long[] generations = new long[regions.length];
+        for (int i = 0; i < regions.length; i++) {
+            generations[i] = GENERATIONS.get(regions[i].ordinal());
+        }
+        return generations;
+    }
+
+
+    private static String keyOf(ContainerRequestContext requestContext, String role) {
+        // The links in the body are absolute, so the base URI the client has used is part of the key
+        StringBuilder key = new StringBuilder(requestContext.getUriInfo().getBaseUri().toString())
+                .append(requestContext.getUriInfo().getPath());
+
+        // Empty parameters are the same as leaving them out, and the order of the parameters doesn't matter
+        Map<String, List<String>> sortedQuery = new TreeMap<>(requestContext.getUriInfo().getQueryParameters());
+        char separator = '?';
+        for (Map.Entry<String, List<String>> parameter : sortedQuery.entrySet()) {
+            for (String value : parameter.getValue()) {
+                if (!value.trim().isEmpty()) {
+                    key.append(separator).append(parameter.getKey()).append('=').append(value.trim());
+                    separator = '&';
+                }
+            }
+        }
+
+        return key.append('|').append(role).append('|').append(
+                ListStreamingOutput.negotiateMediaType(requestContext.getAcceptableMediaTypes())).toString();
+    }
+
+
+    // A response that is going to be cached once its bytes are known
+    static class PendingEntry {
+        private final String key;
+        private final CacheRegion[] regions;
+        private final long[] generations;
+        // The identical requests waiting for this response, null if there is no single flight
+        private final Flight flight;
+
+        PendingEntry(String key, CacheRegion[] regions, long[] generations, Flight flight) {
+            this.key = key;
+            this.regions = regions;
+            this.generations = generations;
+            this.flight = flight;
+        }
+    }
+
+
+    // A request that is building its response, identical requests wait for the same response instead of asking
+    // the database themselves
+    static class Flight {
+        private final long[] generations;
+        private final long startedAt = System.currentTimeMillis();
+        private final CompletableFuture<CachedResponse> response = new CompletableFuture<>();
+
+        Flight(long[] generations) {
+            this.generations = generations;
+        }
+
+        // Only a request that has come in after the last write may get this response. A flight that takes too long
+        // (or whose request has been lost without landing) is not joined anymore
+        boolean isJoinable(long[] generations) {
+            return Arrays.equals(this.generations, generations) && !response.isDone()
+                    && System.currentTimeMillis() - startedAt < SINGLE_FLIGHT_MAXIMUM_WAIT_MILLIS;
+        }
+
+        // The shared response, null if there is none in time
+        CachedResponse await() {
+            long remainingMillis = SINGLE_FLIGHT_MAXIMUM_WAIT_MILLIS - (System.currentTimeMillis() - startedAt);
+            try {
+                return response.get(Math.max(remainingMillis, 0), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException | TimeoutException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package de.fhws.fiw.pvs.exam.cache;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// The ResponseCacheInterceptor only sees responses with a body. A request that has been marked by
+// ResponseCache.lookup but is answered otherwise (304, 404, an error) lets the identical requests that wait for it
+// go on here
+@Provider
+public class ResponseCacheFilter implements ContainerResponseFilter {
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object pendingEntry = requestContext.getProperty(ResponseCache.PENDING_ENTRY);
+        if (pendingEntry instanceof ResponseCache.PendingEntry
+                && (responseContext.getStatus() != Response.Status.OK.getStatusCode()
+                || !responseContext.hasEntity())) {
+            requestContext.removeProperty(ResponseCache.PENDING_ENTRY);
+            ResponseCache.abandon((ResponseCache.PendingEntry) pendingEntry);
+        }
+    }
+}
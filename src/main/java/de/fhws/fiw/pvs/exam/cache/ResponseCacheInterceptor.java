@@ -0,0 +1,126 @@
+package de.fhws.fiw.pvs.exam.cache;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+@Provider
+public class ResponseCacheInterceptor implements WriterInterceptor {
+    // Headers that belong to the user or to this one transfer and never go into the cache
+    private static final String[] UNCACHED_HEADERS = {"Authorization", "Content-Type", "Content-Length",
+            "Content-Encoding", "Vary"};
+
+
+    // If the request has been marked by ResponseCache.lookup, the bytes are copied into a buffer while they are
+    // written to the client, so they can be cached together with the headers. A list is streamed, so the copy stops
+    // as soon as the response gets too big for the cache instead of holding the whole response
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        Object pendingEntry = context.getProperty(ResponseCache.PENDING_ENTRY);
+        if (!(pendingEntry instanceof ResponseCache.PendingEntry)) {
+            context.proceed();
+            return;
+        }
+        context.removeProperty(ResponseCache.PENDING_ENTRY);
+
+        OutputStream outputStream = context.getOutputStream();
+        CopyingOutputStream copyingOutputStream = new CopyingOutputStream(outputStream,
+                ResponseCache.getMaximumEntryBytes());
+        context.setOutputStream(copyingOutputStream);
+        boolean written = false;
+        try {
+            context.proceed();
+            written = true;
+        } finally {
+            context.setOutputStream(outputStream);
+            // Identical requests may wait for this response, they have to hear about it either way
+            if (written && copyingOutputStream.copy != null) {
+                ResponseCache.put((ResponseCache.PendingEntry) pendingEntry, copyingOutputStream.copy.toByteArray(),
+                        context.getMediaType(), cacheableHeaders(context.getHeaders()));
+            } else {
+                ResponseCache.abandon((ResponseCache.PendingEntry) pendingEntry);
+            }
+        }
+    }
+
+
+
+    // Additional methods:
+
+    private static MultivaluedMap<String, Object> cacheableHeaders(MultivaluedMap<String, Object> headers) {
+        MultivaluedMap<String, Object> cacheableHeaders = new MultivaluedHashMap<>();
+        for (Map.Entry<String, List<Object>> header : headers.entrySet()) {
+            if (!isUncached(header.getKey())) {
+                cacheableHeaders.addAll(header.getKey(), header.getValue());
+            }
+        }
+        return cacheableHeaders;
+    }
+
+
+    private static boolean isUncached(String headerName) {
+        for (String uncachedHeader : UNCACHED_HEADERS) {
+            if (uncachedHeader.equalsIgnoreCase(headerName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+
+    // Additional classes:
+
+    // Writes through to the client and keeps a copy of the bytes, until there are more than maximumBytes of them
+    private static class CopyingOutputStream extends OutputStream {
+        private final OutputStream outputStream;
+        private final long maximumBytes;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        CopyingOutputStream(OutputStream outputStream, long maximumBytes) {
+            this.outputStream = outputStream;
+            this.maximumBytes = maximumBytes;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            outputStream.write(bytes, offset, length);
+            if (copy != null) {
+                if (copy.size() + length > maximumBytes) {
+                    copy = null;
+                } else {
+                    copy.write(bytes, offset, length);
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            outputStream.flush();
+        }
+
+        // The stream of the container is closed by the container
+        @Override
+        public void close() throws IOException {
+            outputStream.flush();
+        }
+    }
+}
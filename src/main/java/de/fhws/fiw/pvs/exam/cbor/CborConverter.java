@@ -0,0 +1,101 @@
+package de.fhws.fiw.pvs.exam.cbor;
+
+import com.owlike.genson.Context;
+import com.owlike.genson.GenericType;
+import com.owlike.genson.Genson;
+import com.owlike.genson.JsonBindingException;
+import com.owlike.genson.ext.jaxrs.GensonJaxRSFeature;
+import com.owlike.genson.stream.JsonStreamException;
+import com.owlike.genson.stream.ObjectWriter;
+import de.fhws.fiw.pvs.exam.configuration.Configuration;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.Providers;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// application/cbor for clients that move a lot of courses/events: the same Genson (and so the same properties and
+// links) as the JSON, but binary, so numbers and strings don't have to be formatted, escaped and parsed
+@Provider
+@Produces(CborConverter.APPLICATION_CBOR)
+@Consumes(CborConverter.APPLICATION_CBOR)
+public class CborConverter implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+    public static final String APPLICATION_CBOR = "application/cbor";
+    public static final MediaType APPLICATION_CBOR_TYPE = MediaType.valueOf(APPLICATION_CBOR);
+    // A request body may not be bigger than this, a declared length beyond it is rejected before it is read
+    private static final long MAXIMUM_BYTES = Configuration.getLong("softskills.cbor.maximumBytes", 1048576);
+    private final GensonJaxRSFeature feature;
+
+
+    public CborConverter(@javax.ws.rs.core.Context Providers providers) {
+        // Use the Genson of the JSON provider if the application has configured one
+        ContextResolver<GensonJaxRSFeature> resolver = providers == null ? null
+                : providers.getContextResolver(GensonJaxRSFeature.class, MediaType.APPLICATION_JSON_TYPE);
+        GensonJaxRSFeature configuredFeature = resolver == null ? null : resolver.getContext(Object.class);
+        this.feature = configuredFeature == null ? new GensonJaxRSFeature() : configuredFeature;
+    }
+
+
+    // Like the JSON provider: not for the types Jersey writes itself (String, byte[], StreamingOutput, ...)
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return feature.isEnabled() && feature.isSerializable(type);
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return feature.isEnabled() && feature.isDeserializable(type);
+    }
+
+
+    @Override
+    public void writeTo(Object resource, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream outputStream)
+            throws IOException, WebApplicationException {
+        Genson genson = feature.genson();
+        ObjectWriter writer = new CborObjectWriter(outputStream);
+        try {
+            genson.serialize(resource, genericType == null ? type : genericType, writer, new Context(genson));
+            writer.flush();
+        } catch (JsonStreamException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new WebApplicationException(e);
+        } catch (JsonBindingException e) {
+            throw new WebApplicationException(e);
+        }
+    }
+
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream inputStream)
+            throws IOException, WebApplicationException {
+        Genson genson = feature.genson();
+        try {
+            return genson.deserialize(GenericType.of(genericType == null ? type : genericType),
+                    new CborObjectReader(inputStream, MAXIMUM_BYTES), new Context(genson));
+        } catch (JsonStreamException | JsonBindingException | NumberFormatException e) {
+            // Broken or wrong input is the fault of the client
+            throw new BadRequestException(e);
+        }
+    }
+}
@@ -0,0 +1,631 @@
+package de.fhws.fiw.pvs.exam.cbor;
+
+import com.owlike.genson.stream.JsonStreamException;
+import com.owlike.genson.stream.JsonType;
+import com.owlike.genson.stream.ObjectReader;
+import com.owlike.genson.stream.ValueType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Reads CBOR (RFC 8949) for Genson like its JsonReader reads JSON: the reader is always at one value, objects and
+// arrays are only entered with beginObject/beginArray and skipped otherwise. Definite and indefinite lengths are
+// both accepted, tags are ignored and byte strings are handed out like Base64 strings in JSON. The input comes from
+// the client: it may not be longer than maximumBytes, a declared length only takes memory as far as its bytes
+// really arrive, and objects/arrays can't be nested deeper than MAXIMUM_DEPTH
+public class CborObjectReader implements ObjectReader {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAXIMUM_DEPTH = 64;
+    private static final int BREAK = 0xFF;
+    private static final int INDEFINITE = 31;
+    private final InputStream inputStream;
+    private final long maximumBytes;
+    private final Deque<Container> containers = new ArrayDeque<>();
+    private final Map<String, String> metadata = new HashMap<>();
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    // Bytes that have been dropped from the buffer, for the position in error messages
+    private long discarded;
+    // A position that must stay in the buffer, to go back after looking at the next key
+    private int mark = -1;
+
+    // The current value
+    private ValueType valueType;
+    private String name;
+    private String stringValue;
+    private byte[] bytesValue;
+    private long longValue;
+    private double doubleValue;
+    private boolean booleanValue;
+    // The length of the current object/array (-1 if indefinite) as long as it hasn't been entered or skipped
+    private long containerLength;
+    private boolean containerPending;
+    // nextObjectMetadata has entered the current object already
+    private boolean objectEntered;
+
+
+    public CborObjectReader(InputStream inputStream, long maximumBytes) {
+        this.inputStream = inputStream;
+        this.maximumBytes = maximumBytes;
+        readValue();
+    }
+
+
+    @Override
+    public ObjectReader beginObject() {
+        if (objectEntered) {
+            objectEntered = false;
+            return this;
+        }
+        enter(ValueType.OBJECT);
+        metadata.clear();
+        return this;
+    }
+
+    @Override
+    public ObjectReader endObject() {
+        leave(true);
+        metadata.clear();
+        return this;
+    }
+
+    @Override
+    public ObjectReader beginArray() {
+        enter(ValueType.ARRAY);
+        return this;
+    }
+
+    @Override
+    public ObjectReader endArray() {
+        leave(false);
+        return this;
+    }
+
+    // Enter the object and read the @ entries at its start, e.g. @class
+    @Override
+    public ObjectReader nextObjectMetadata() {
+        if (valueType != ValueType.OBJECT || objectEntered) {
+            return this;
+        }
+        beginObject();
+        Container object = containers.peek();
+        while (hasNext()) {
+            mark = position;
+            long remaining = object.remaining;
+            next();
+            if (name.startsWith("@") && valueType == ValueType.STRING) {
+                metadata.put(name.substring(1), valueAsString());
+                continue;
+            }
+            // Not metadata, go back to the start of the entry
+            position = mark;
+            object.remaining = remaining;
+            containerPending = false;
+            break;
+        }
+        mark = -1;
+        valueType = ValueType.OBJECT;
+        objectEntered = true;
+        return this;
+    }
+
+    @Override
+    public ValueType next() {
+        if (containerPending) {
+            skipPendingContainer();
+        }
+        objectEntered = false;
+        if (!hasNext()) {
+            throw new JsonStreamException("No more values at byte " + column());
+        }
+
+        Container container = containers.peek();
+        if (container.remaining > 0) {
+            container.remaining--;
+        }
+        if (container.object) {
+            name = readKey();
+        }
+        readValue();
+        return valueType;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (containerPending) {
+            skipPendingContainer();
+        }
+        Container container = containers.peek();
+        if (container == null) {
+            return false;
+        }
+        return container.remaining < 0 ? peekByte() != BREAK : container.remaining > 0;
+    }
+
+    @Override
+    public ObjectReader skipValue() {
+        if (containerPending) {
+            skipPendingContainer();
+        }
+        return this;
+    }
+
+    @Override
+    public ValueType getValueType() {
+        return valueType;
+    }
+
+    @Override
+    public String metadata(String name) {
+        return metadata.get(name);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String valueAsString() {
+        switch (valueType) {
+            case STRING: return stringValue != null ? stringValue : Base64.getEncoder().encodeToString(bytesValue);
+            case INTEGER: return String.valueOf(longValue);
+            case DOUBLE: return String.valueOf(doubleValue);
+            case BOOLEAN: return String.valueOf(booleanValue);
+            case NULL: return null;
+            default: throw new JsonStreamException("Expected a value but found " + valueType);
+        }
+    }
+
+    @Override
+    public int valueAsInt() {
+        long value = valueAsLong();
+        if ((int) value != value) {
+            throw new NumberFormatException(value + " is too big for an int");
+        }
+        return (int) value;
+    }
+
+    @Override
+    public long valueAsLong() {
+        switch (valueType) {
+            case INTEGER: return longValue;
+            case DOUBLE: return (long) doubleValue;
+            case STRING: return Long.parseLong(valueAsString());
+            default: throw new JsonStreamException("Expected a number but found " + valueType);
+        }
+    }
+
+    @Override
+    public double valueAsDouble() {
+        switch (valueType) {
+            case INTEGER: return longValue;
+            case DOUBLE: return doubleValue;
+            case STRING: return Double.parseDouble(valueAsString());
+            default: throw new JsonStreamException("Expected a number but found " + valueType);
+        }
+    }
+
+    @Override
+    public short valueAsShort() {
+        long value = valueAsLong();
+        if ((short) value != value) {
+            throw new NumberFormatException(value + " is too big for a short");
+        }
+        return (short) value;
+    }
+
+    @Override
+    public float valueAsFloat() {
+        return (float) valueAsDouble();
+    }
+
+    @Override
+    public boolean valueAsBoolean() {
+        switch (valueType) {
+            case BOOLEAN: return booleanValue;
+            case STRING: return Boolean.parseBoolean(stringValue);
+            default: throw new JsonStreamException("Expected a boolean but found " + valueType);
+        }
+    }
+
+    @Override
+    public byte[] valueAsByteArray() {
+        if (valueType == ValueType.NULL) {
+            return null;
+        }
+        return bytesValue != null ? bytesValue : Base64.getDecoder().decode(valueAsString());
+    }
+
+    @Override
+    public JsonType enclosingType() {
+        Container container = containers.peek();
+        if (container == null) {
+            return JsonType.EMPTY;
+        }
+        return container.object ? JsonType.OBJECT : JsonType.ARRAY;
+    }
+
+    // CBOR has no lines, the column is the byte offset
+    @Override
+    public int column() {
+        return (int) (discarded + position);
+    }
+
+    @Override
+    public int row() {
+        return 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+
+
+
+    // Additional methods:
+
+    private void enter(ValueType type) {
+        if (valueType != type || !containerPending) {
+            throw new JsonStreamException("Expected " + type + " but found " + valueType + " at byte " + column());
+        }
+        checkDepth(containers.size() + 1);
+        containers.push(new Container(type == ValueType.OBJECT, containerLength));
+        containerPending = false;
+        objectEntered = false;
+    }
+
+
+    // Skip what hasn't been read of the object/array and go on behind it
+    private void leave(boolean object) {
+        Container container = containers.peek();
+        if (container == null || container.object != object) {
+            throw new JsonStreamException("Not in an " + (object ? "object" : "array") + " at byte " + column());
+        }
+        while (hasNext()) {
+            next();
+            skipValue();
+        }
+        if (container.remaining < 0) {
+            readByte();
+        }
+        containers.pop();
+        objectEntered = false;
+    }
+
+
+    // Keys are text strings, integer keys are accepted as their text
+    private String readKey() {
+        readValue();
+        if (valueType == ValueType.STRING) {
+            return valueAsString();
+        } else if (valueType == ValueType.INTEGER) {
+            return String.valueOf(longValue);
+        }
+        throw new JsonStreamException("Expected a key but found " + valueType + " at byte " + column());
+    }
+
+
+    private void readValue() {
+        stringValue = null;
+        bytesValue = null;
+        containerPending = false;
+
+        int initialByte = readUntaggedByte();
+        int majorType = initialByte >>> 5;
+        int additional = initialByte & 0x1F;
+        switch (majorType) {
+            case 0:
+            case 1:
+                long argument = readArgument(additional);
+                if (argument < 0) {
+                    throw new JsonStreamException("Integer too big at byte " + column());
+                }
+                valueType = ValueType.INTEGER;
+                longValue = majorType == 0 ? argument : ~argument;
+                break;
+            case 2:
+                valueType = ValueType.STRING;
+                bytesValue = readString(additional, 2);
+                break;
+            case 3:
+                valueType = ValueType.STRING;
+                stringValue = new String(readString(additional, 3), StandardCharsets.UTF_8);
+                break;
+            case 4:
+            case 5:
+                valueType = majorType == 4 ? ValueType.ARRAY : ValueType.OBJECT;
+                containerLength = readContainerLength(additional);
+                containerPending = true;
+                break;
+            default:
+                readSimpleValue(additional);
+        }
+    }
+
+
+    private void readSimpleValue(int additional) {
+        switch (additional) {
+            case 20:
+            case 21:
+                valueType = ValueType.BOOLEAN;
+                booleanValue = additional == 21;
+                break;
+            case 22:
+            case 23:
+                valueType = ValueType.NULL;
+                break;
+            case 25:
+                valueType = ValueType.DOUBLE;
+                doubleValue = halfToDouble((int) readBigEndian(2));
+                break;
+            case 26:
+                valueType = ValueType.DOUBLE;
+                doubleValue = Float.intBitsToFloat((int) readBigEndian(4));
+                break;
+            case 27:
+                valueType = ValueType.DOUBLE;
+                doubleValue = Double.longBitsToDouble(readBigEndian(8));
+                break;
+            default:
+                throw new JsonStreamException("Unexpected simple value " + additional + " at byte " + column());
+        }
+    }
+
+
+    // The initial byte of the next item. Tags (e.g. a date) are ignored, the tagged item is the value
+    private int readUntaggedByte() {
+        int initialByte = readByte();
+        while (initialByte >>> 5 == 6) {
+            readArgument(initialByte & 0x1F);
+            initialByte = readByte();
+        }
+        return initialByte;
+    }
+
+
+    // A byte/text string, an indefinite one is read chunk by chunk
+    private byte[] readString(int additional, int majorType) {
+        if (additional != INDEFINITE) {
+            return readBytes(readLength(additional));
+        }
+
+        ByteArrayOutputStream chunks = new ByteArrayOutputStream();
+        while (peekByte() != BREAK) {
+            int chunkByte = readByte();
+            if (chunkByte >>> 5 != majorType || (chunkByte & 0x1F) == INDEFINITE) {
+                throw new JsonStreamException("Invalid string chunk at byte " + column());
+            }
+            byte[] chunk = readBytes(readLength(chunkByte & 0x1F));
+            chunks.write(chunk, 0, chunk.length);
+        }
+        readByte();
+        return chunks.toByteArray();
+    }
+
+
+    // A string can't be longer than what is left of the input
+    private int readLength(int additional) {
+        long length = readArgument(additional);
+        if (length < 0 || length > maximumBytes - column()) {
+            throw new JsonStreamException("String of " + Long.toUnsignedString(length) + " bytes at byte " + column()
+                    + " is longer than the input may be (" + maximumBytes + " bytes)");
+        }
+        return (int) length;
+    }
+
+
+    // Every entry/element takes at least one byte, so a length beyond the rest of the input can't be right either.
+    // Returns -1 for an indefinite length
+    private long readContainerLength(int additional) {
+        if (additional == INDEFINITE) {
+            return -1;
+        }
+        long length = readArgument(additional);
+        if (length < 0 || length > maximumBytes - column()) {
+            throw new JsonStreamException("Object/array of " + Long.toUnsignedString(length) + " items at byte "
+                    + column() + " is longer than the input may be (" + maximumBytes + " bytes)");
+        }
+        return length;
+    }
+
+
+    private void checkDepth(int depth) {
+        if (depth > MAXIMUM_DEPTH) {
+            throw new JsonStreamException("Objects/arrays nested deeper than " + MAXIMUM_DEPTH + " at byte "
+                    + column());
+        }
+    }
+
+
+    private long readArgument(int additional) {
+        if (additional < 24) {
+            return additional;
+        }
+        switch (additional) {
+            case 24: return readByte();
+            case 25: return readBigEndian(2);
+            case 26: return readBigEndian(4);
+            case 27: return readBigEndian(8);
+            default: throw new JsonStreamException("Invalid length " + additional + " at byte " + column());
+        }
+    }
+
+
+    private void skipPendingContainer() {
+        containerPending = false;
+        long items = valueType == ValueType.OBJECT ? containerLength * 2 : containerLength;
+        skipItems(items);
+    }
+
+
+    // Skip a number of items, or up to the break if the number is negative (indefinite). The objects/arrays inside
+    // are counted on a stack of their own instead of recursion, so no input can overflow the stack of the thread
+    private void skipItems(long items) {
+        long[] remaining = new long[MAXIMUM_DEPTH + 1];
+        int depth = 0;
+        remaining[0] = items;
+        checkDepth(containers.size() + 1);
+
+        while (depth >= 0) {
+            if (remaining[depth] < 0 ? peekByte() == BREAK : remaining[depth] == 0) {
+                if (remaining[depth] < 0) {
+                    readByte();
+                }
+                depth--;
+                continue;
+            }
+            if (remaining[depth] > 0) {
+                remaining[depth]--;
+            }
+
+            int initialByte = readUntaggedByte();
+            int majorType = initialByte >>> 5;
+            int additional = initialByte & 0x1F;
+            switch (majorType) {
+                case 2:
+                case 3:
+                    readString(additional, majorType);
+                    break;
+                case 4:
+                case 5:
+                    long length = readContainerLength(additional);
+                    checkDepth(containers.size() + depth + 2);
+                    remaining[++depth] = length < 0 ? -1 : majorType == 5 ? length * 2 : length;
+                    break;
+                case 7:
+                    if (additional >= 24 && additional <= 27) {
+                        readBigEndian(1 << (additional - 24));
+                    }
+                    break;
+                default:
+                    readArgument(additional);
+            }
+        }
+    }
+
+
+    // IEEE 754 half precision
+    private static double halfToDouble(int half) {
+        int exponent = (half >>> 10) & 0x1F;
+        int mantissa = half & 0x3FF;
+        double value;
+        if (exponent == 0) {
+            value = mantissa * Math.pow(2, -24);
+        } else if (exponent == 31) {
+            value = mantissa == 0 ? Double.POSITIVE_INFINITY : Double.NaN;
+        } else {
+            value = (mantissa + 1024) * Math.pow(2, exponent - 25);
+        }
+        return (half & 0x8000) == 0 ? value : -value;
+    }
+
+
+    private long readBigEndian(int bytes) {
+        ensure(bytes);
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value = (value << 8) | (buffer[position++] & 0xFF);
+        }
+        return value;
+    }
+
+
+    // Read the bytes piece by piece as they arrive, the array only grows with them and not with the declared length
+    private byte[] readBytes(int length) {
+        byte[] bytes = new byte[Math.min(length, BUFFER_SIZE)];
+        int read = 0;
+        while (read < length) {
+            ensure(1);
+            int piece = Math.min(length - read, limit - position);
+            if (read + piece > bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(length, Math.max(bytes.length * 2L, read + piece)));
+            }
+            System.arraycopy(buffer, position, bytes, read, piece);
+            position += piece;
+            read += piece;
+        }
+        return bytes;
+    }
+
+
+    private int readByte() {
+        ensure(1);
+        return buffer[position++] & 0xFF;
+    }
+
+
+    private int peekByte() {
+        ensure(1);
+        return buffer[position] & 0xFF;
+    }
+
+
+    // Make sure the next bytes are in the buffer. Strings are read in pieces, only the bytes behind a mark can make the
+    // buffer grow
+    private void ensure(int bytes) {
+        if (limit - position >= bytes) {
+            return;
+        }
+
+        int keep = mark >= 0 ? mark : position;
+        if (limit - keep + bytes > buffer.length) {
+            byte[] biggerBuffer = new byte[Math.max(buffer.length * 2, limit - keep + bytes)];
+            System.arraycopy(buffer, keep, biggerBuffer, 0, limit - keep);
+            buffer = biggerBuffer;
+        } else {
+            System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+        }
+        discarded += keep;
+        limit -= keep;
+        position -= keep;
+        if (mark >= 0) {
+            mark = 0;
+        }
+
+        try {
+            while (limit - position < bytes) {
+                int read = inputStream.read(buffer, limit, buffer.length - limit);
+                if (read < 0) {
+                    throw new JsonStreamException("Unexpected end of the CBOR input at byte " + column());
+                }
+                limit += read;
+                if (discarded + limit > maximumBytes) {
+                    throw new JsonStreamException("The CBOR input is bigger than " + maximumBytes + " bytes");
+                }
+            }
+        } catch (IOException e) {
+            throw new JsonStreamException(e);
+        }
+    }
+
+
+
+    // Additional classes:
+
+    // An object/array that has been entered and the number of entries/elements left (-1 if indefinite)
+    private static class Container {
+        private final boolean object;
+        private long remaining;
+
+        Container(boolean object, long remaining) {
+            this.object = object;
+            this.remaining = remaining;
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package de.fhws.fiw.pvs.exam.cbor;
+
+import com.owlike.genson.stream.JsonStreamException;
+import com.owlike.genson.stream.JsonType;
+import com.owlike.genson.stream.ObjectWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Writes what Genson serializes as CBOR (RFC 8949) instead of JSON, so the converters and annotations of the
+// resources (e.g. the ServerLinkConverter) work for both. Objects and arrays are written with indefinite length, as
+// Genson doesn't know their size in advance
+public class CborObjectWriter implements ObjectWriter {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int BREAK = 0xFF;
+    // Genson hands over the same escaped name array of a property every time, so its CBOR key is only encoded once
+    // (arrays are compared by identity)
+    private static final Map<char[], byte[]> ENCODED_NAMES = new ConcurrentHashMap<>();
+    private final OutputStream outputStream;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final Deque<JsonType> enclosingTypes = new ArrayDeque<>();
+    // Metadata (e.g. @class) is written as the first entries of the next object
+    private final List<String> pendingMetadata = new ArrayList<>();
+    // Like the JsonWriter, the name is only written with its value, so a converter can still replace it (the
+    // ServerLinkConverter names the link by its rel)
+    private String pendingName;
+    private byte[] pendingEncodedName;
+    private int position;
+
+
+    public CborObjectWriter(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+
+    @Override
+    public ObjectWriter beginArray() {
+        writePendingName();
+        writeByte(0x9F);
+        enclosingTypes.push(JsonType.ARRAY);
+        return this;
+    }
+
+    @Override
+    public ObjectWriter endArray() {
+        writeByte(BREAK);
+        enclosingTypes.pop();
+        return this;
+    }
+
+    @Override
+    public ObjectWriter beginObject() {
+        writePendingName();
+        writeByte(0xBF);
+        enclosingTypes.push(JsonType.OBJECT);
+        for (int i = 0; i < pendingMetadata.size(); i += 2) {
+            writeText('@' + pendingMetadata.get(i));
+            writeText(pendingMetadata.get(i + 1));
+        }
+        pendingMetadata.clear();
+        return this;
+    }
+
+    @Override
+    public ObjectWriter endObject() {
+        writeByte(BREAK);
+        enclosingTypes.pop();
+        return this;
+    }
+
+    @Override
+    public ObjectWriter writeName(String name) {
+        pendingName = name;
+        pendingEncodedName = null;
+        return this;
+    }
+
+    @Override
+    public ObjectWriter writeEscapedName(char[] name) {
+        pendingName = null;
+        pendingEncodedName = ENCODED_NAMES.computeIfAbsent(name, CborObjectWriter::encodeName);
+        return this;
+    }
+
+    @Override
+    public ObjectWriter writeValue(int value) {
+        writeInteger(value);
+        return this;
+    }
+
+    @Override
+    public ObjectWriter writeValue(double value) {
+        writeDouble(value);
+        return this;
+    }
+
+    @Override
+    public ObjectWriter writeValue(long value) {
+        writeInteger(value);
+        return this;
+    }
+
+    @Override
+    public ObjectWriter writeValue(short value) {
+        writeInteger(value);
+        return this;
+    }
+
+    @Override
+    public ObjectWriter writeValue(float value) {
+        writeDouble(value);
+        return this;
+    }
+
+    @Override
+    public ObjectWriter writeValue(boolean value) {
+        writePendingName();
+        writeByte(value ? 0xF5 : 0xF4);
+        return this;
+    }
+
+    @Override
+    public ObjectWriter writeBoolean(Boolean value) {
+        return value == null ? writeNull() : writeValue(value.booleanValue());
+    }
+
+    @Override
+    public ObjectWriter writeValue(Number value) {
+        if (value == null) {
+            return writeNull();
+        }
+        boolean integral = value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte || (value instanceof BigInteger && ((BigInteger) value).bitLength() < 64);
+        if (integral) {
+            writeInteger(value.longValue());
+        } else {
+            writeDouble(value.doubleValue());
+        }
+        return this;
+    }
+
+    @Override
+    public ObjectWriter writeNumber(Number value) {
+        return writeValue(value);
+    }
+
+    @Override
+    public ObjectWriter writeValue(String value) {
+        if (value == null) {
+            return writeNull();
+        }
+        writePendingName();
+        writeText(value);
+        return this;
+    }
+
+    @Override
+    public ObjectWriter writeString(String value) {
+        return writeValue(value);
+    }
+
+    @Override
+    public ObjectWriter writeValue(byte[] value) {
+        if (value == null) {
+            return writeNull();
+        }
+        writePendingName();
+        writeHead(2, value.length);
+        writeRaw(value);
+        return this;
+    }
+
+    @Override
+    public ObjectWriter writeBytes(byte[] value) {
+        return writeValue(value);
+    }
+
+    // Raw JSON can't be embedded in CBOR, it is written as a string
+    @Override
+    public ObjectWriter writeUnsafeValue(String value) {
+        return writeValue(value);
+    }
+
+    @Override
+    public ObjectWriter writeNull() {
+        writePendingName();
+        writeByte(0xF6);
+        return this;
+    }
+
+    @Override
+    public ObjectWriter beginNextObjectMetadata() {
+        pendingMetadata.clear();
+        return this;
+    }
+
+    @Override
+    public ObjectWriter writeMetadata(String name, String value) {
+        pendingMetadata.add(name);
+        pendingMetadata.add(value);
+        return this;
+    }
+
+    @Override
+    public ObjectWriter writeBoolean(String name, Boolean value) {
+        return writeName(name).writeBoolean(value);
+    }
+
+    @Override
+    public ObjectWriter writeNumber(String name, Number value) {
+        return writeName(name).writeNumber(value);
+    }
+
+    @Override
+    public ObjectWriter writeString(String name, String value) {
+        return writeName(name).writeString(value);
+    }
+
+    @Override
+    public ObjectWriter writeBytes(String name, byte[] value) {
+        return writeName(name).writeBytes(value);
+    }
+
+    @Override
+    public void flush() {
+        try {
+            flushBuffer();
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new JsonStreamException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        try {
+            outputStream.close();
+        } catch (IOException e) {
+            throw new JsonStreamException(e);
+        }
+    }
+
+    @Override
+    public JsonType enclosingType() {
+        return enclosingTypes.isEmpty() ? JsonType.EMPTY : enclosingTypes.peek();
+    }
+
+
+
+    // Additional methods:
+
+    private void writePendingName() {
+        if (pendingEncodedName != null) {
+            writeRaw(pendingEncodedName);
+            pendingEncodedName = null;
+        } else if (pendingName != null) {
+            writeText(pendingName);
+            pendingName = null;
+        }
+    }
+
+
+    // Major type 0 for positive and 1 for negative integers (-1 - n)
+    private void writeInteger(long value) {
+        writePendingName();
+        if (value >= 0) {
+            writeHead(0, value);
+        } else {
+            writeHead(1, ~value);
+        }
+    }
+
+
+    // As float if that doesn't lose anything, e.g. for whole numbers
+    private void writeDouble(double value) {
+        writePendingName();
+        if ((float) value == value || Double.isNaN(value)) {
+            writeByte(0xFA);
+            writeBigEndian(Float.floatToIntBits((float) value), 4);
+        } else {
+            writeByte(0xFB);
+            writeBigEndian(Double.doubleToLongBits(value), 8);
+        }
+    }
+
+
+    private void writeText(String text) {
+        // Ids, dates and names are ASCII, they don't have to be encoded
+        int length = text.length();
+        boolean ascii = true;
+        for (int i = 0; i < length && ascii; i++) {
+            ascii = text.charAt(i) < 0x80;
+        }
+        if (!ascii) {
+            byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+            writeHead(3, utf8.length);
+            writeRaw(utf8);
+            return;
+        }
+
+        writeHead(3, length);
+        if (length > buffer.length - position) {
+            flushBuffer();
+        }
+        if (length > buffer.length) {
+            writeRaw(text.getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            buffer[position++] = (byte) text.charAt(i);
+        }
+    }
+
+
+    // The initial byte of an item: the major type and the value itself, or how many bytes follow for it
+    private void writeHead(int majorType, long value) {
+        int major = majorType << 5;
+        if (value < 24) {
+            writeByte(major | (int) value);
+        } else if (value < 0x100) {
+            writeByte(major | 24);
+            writeByte((int) value);
+        } else if (value < 0x10000) {
+            writeByte(major | 25);
+            writeBigEndian(value, 2);
+        } else if (value < 0x100000000L) {
+            writeByte(major | 26);
+            writeBigEndian(value, 4);
+        } else {
+            writeByte(major | 27);
+            writeBigEndian(value, 8);
+        }
+    }
+
+
+    private void writeBigEndian(long value, int bytes) {
+        if (bytes > buffer.length - position) {
+            flushBuffer();
+        }
+        for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+    }
+
+
+    private void writeByte(int value) {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) value;
+    }
+
+
+    private void writeRaw(byte[] bytes) {
+        if (bytes.length > buffer.length - position) {
+            flushBuffer();
+            if (bytes.length > buffer.length) {
+                try {
+                    outputStream.write(bytes);
+                } catch (IOException e) {
+                    throw new JsonStreamException(e);
+                }
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+
+    private void flushBuffer() {
+        try {
+            outputStream.write(buffer, 0, position);
+            position = 0;
+        } catch (IOException e) {
+            throw new JsonStreamException(e);
+        }
+    }
+
+
+    // The name comes escaped for JSON, the key is the unescaped text string
+    private static byte[] encodeName(char[] escapedName) {
+        StringBuilder name = new StringBuilder(escapedName.length);
+        for (int i = 0; i < escapedName.length; i++) {
+            char c = escapedName[i];
+            if (c != '\\' || i + 1 == escapedName.length) {
+                name.append(c);
+                continue;
+            }
+            char escaped = escapedName[++i];
+            switch (escaped) {
+                case 'b': name.append('\b'); break;
+                case 'f': name.append('\f'); break;
+                case 'n': name.append('\n'); break;
+                case 'r': name.append('\r'); break;
+                case 't': name.append('\t'); break;
+                case 'u':
+                    name.append((char) Integer.parseInt(new String(escapedName, i + 1, 4), 16));
+                    i += 4;
+                    break;
+                default: name.append(escaped);
+            }
+        }
+
+        byte[] utf8 = name.toString().getBytes(StandardCharsets.UTF_8);
+        CborObjectWriter headWriter = new CborObjectWriter(null);
+        headWriter.writeHead(3, utf8.length);
+        byte[] encodedName = new byte[headWriter.position + utf8.length];
+        System.arraycopy(headWriter.buffer, 0, encodedName, 0, headWriter.position);
+        System.arraycopy(utf8, 0, encodedName, headWriter.position, utf8.length);
+        return encodedName;
+    }
+}
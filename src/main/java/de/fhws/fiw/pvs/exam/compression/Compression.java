@@ -0,0 +1,136 @@
+package de.fhws.fiw.pvs.exam.compression;
+
+import de.fhws.fiw.pvs.exam.configuration.Configuration;
+
+import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class Compression {
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+    public static final String IDENTITY = "identity";
+
+    private static final boolean ENABLED = Configuration.getBoolean("softskills.compression.enabled", true);
+    private static final boolean DEFLATE_ENABLED = Configuration.getBoolean("softskills.compression.deflate.enabled",
+            false);
+    // Smaller responses are sent as they are, compressing them costs more than it saves
+    private static final int MINIMUM_BYTES = Configuration.getInt("softskills.compression.minimumBytes", 1024);
+    // 1 (fastest) to 9 (smallest)
+    private static final int LEVEL = Math.max(Deflater.BEST_SPEED, Math.min(Deflater.BEST_COMPRESSION,
+            Configuration.getInt("softskills.compression.level", 6)));
+
+
+    // Choose the encoding of a response by the Accept-Encoding header of the request, gzip is preferred. An
+    // encoding with q=0 is refused by the client
+    public static String negotiate(String acceptEncoding) {
+        if (!ENABLED || acceptEncoding == null) {
+            return IDENTITY;
+        }
+
+        boolean gzipAccepted = false;
+        boolean deflateAccepted = false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] nameAndParameters = coding.trim().split(";");
+            String name = nameAndParameters[0].trim().toLowerCase();
+            if (isRefused(nameAndParameters)) {
+                continue;
+            }
+            if (name.equals(GZIP) || name.equals("x-gzip") || name.equals("*")) {
+                gzipAccepted = true;
+            } else if (name.equals(DEFLATE)) {
+                deflateAccepted = true;
+            }
+        }
+
+        if (gzipAccepted) {
+            return GZIP;
+        } else if (deflateAccepted && DEFLATE_ENABLED) {
+            return DEFLATE;
+        }
+        return IDENTITY;
+    }
+
+
+    // Only text formats shrink noticeably. Event streams are left out, every event has to reach the client right
+    // away instead of waiting in the compressor
+    public static boolean isCompressible(MediaType mediaType) {
+        return mediaType != null && !mediaType.isCompatible(MediaType.SERVER_SENT_EVENTS_TYPE)
+                && (mediaType.getType().equals("text")
+                || mediaType.getSubtype().endsWith("json") || mediaType.getSubtype().endsWith("xml")
+                // The keys of CBOR repeat for every resource like in JSON
+                || mediaType.getSubtype().equals("cbor"));
+    }
+
+
+    public static int getMinimumBytes() {
+        return MINIMUM_BYTES;
+    }
+
+
+    // Wrap the stream so everything written into it gets compressed. Closing the returned stream finishes the
+    // compression and closes the given stream
+    public static OutputStream compressingStream(OutputStream outputStream, String encoding) throws IOException {
+        if (encoding.equals(GZIP)) {
+            return new GZIPOutputStream(outputStream) {
+                {
+                    def.setLevel(LEVEL);
+                }
+            };
+        }
+
+        Deflater deflater = new Deflater(LEVEL);
+        return new DeflaterOutputStream(outputStream, deflater) {
+            // A Deflater that has not been created by the stream itself is not released on close
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+
+    // Compress bytes at once, e.g. the body of a cached response
+    public static byte[] compress(byte[] body, String encoding) {
+        ByteArrayOutputStream compressedBody = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (OutputStream outputStream = compressingStream(compressedBody, encoding)) {
+            outputStream.write(body);
+        } catch (IOException e) {
+            // A ByteArrayOutputStream doesn't throw
+            throw new UncheckedIOException(e);
+        }
+        return compressedBody.toByteArray();
+    }
+
+
+
+    // Additional methods:
+
+    private static boolean isRefused(String[] nameAndParameters) {
+        for (int i = 1; i < nameAndParameters.length; i++) {
+            String parameter = nameAndParameters[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) <= 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,82 @@
+package de.fhws.fiw.pvs.exam.compression;
+
+import de.fhws.fiw.pvs.exam.cache.CachedResponse;
+import de.fhws.fiw.pvs.exam.cache.ResponseCache;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Runs before (outside of) the ResponseCacheInterceptor, so the cache always keeps the uncompressed bytes
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class CompressionInterceptor implements WriterInterceptor {
+    @Context
+    private HttpHeaders httpHeaders;
+
+
+    // Compress text responses with gzip (or deflate) if the client accepts it and they are big enough
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+        if (!Compression.isCompressible(context.getMediaType()) || headers.containsKey("Content-Encoding")) {
+            context.proceed();
+            return;
+        }
+
+        // The response depends on the Accept-Encoding, shared caches have to keep that apart
+        headers.add("Vary", HttpHeaders.ACCEPT_ENCODING);
+        String encoding = Compression.negotiate(httpHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding.equals(Compression.IDENTITY)) {
+            context.proceed();
+            return;
+        }
+
+        // A response from the cache is compressed once and the compressed bytes are kept with it
+        Object cachedResponse = context.getProperty(ResponseCache.CACHED_RESPONSE);
+        if (cachedResponse instanceof CachedResponse) {
+            writeCachedResponse(context, (CachedResponse) cachedResponse, encoding);
+            return;
+        }
+
+        OutputStream outputStream = context.getOutputStream();
+        ThresholdOutputStream thresholdOutputStream = new ThresholdOutputStream(outputStream, headers, encoding,
+                Compression.getMinimumBytes());
+        context.setOutputStream(thresholdOutputStream);
+        try {
+            context.proceed();
+        } finally {
+            // Sends what is still held back or finishes the compression
+            thresholdOutputStream.close();
+            context.setOutputStream(outputStream);
+        }
+    }
+
+
+
+    // Additional methods:
+
+    private static void writeCachedResponse(WriterInterceptorContext context, CachedResponse cachedResponse,
+                                            String encoding) throws IOException {
+        if (cachedResponse.getBody().length < Compression.getMinimumBytes()) {
+            context.proceed();
+            return;
+        }
+
+        context.getHeaders().putSingle("Content-Encoding", encoding);
+        context.getOutputStream().write(cachedResponse.getCompressedBody(encoding));
+    }
+}
@@ -0,0 +1,82 @@
+package de.fhws.fiw.pvs.exam.compression;
+
+import de.fhws.fiw.pvs.exam.streaming.NonClosingOutputStream;
+
+import javax.ws.rs.core.MultivaluedMap;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Holds the first bytes of a response back until it is clear whether the response is big enough to be compressed.
+// The decision has to be made before the first byte reaches the client, as the headers are sent with it
+class ThresholdOutputStream extends OutputStream {
+    private final OutputStream outputStream;
+    private final MultivaluedMap<String, Object> headers;
+    private final String encoding;
+    private final int minimumBytes;
+    private ByteArrayOutputStream buffer;
+    private OutputStream target;
+
+
+    ThresholdOutputStream(OutputStream outputStream, MultivaluedMap<String, Object> headers, String encoding,
+                          int minimumBytes) {
+        this.outputStream = outputStream;
+        this.headers = headers;
+        this.encoding = encoding;
+        this.minimumBytes = minimumBytes;
+        this.buffer = new ByteArrayOutputStream(minimumBytes);
+    }
+
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (target != null) {
+            target.write(bytes, offset, length);
+            return;
+        }
+
+        buffer.write(bytes, offset, length);
+        if (buffer.size() >= minimumBytes) {
+            // Big enough: from now on everything goes through the compression
+            headers.putSingle("Content-Encoding", encoding);
+            headers.remove("Content-Length");
+            target = Compression.compressingStream(new NonClosingOutputStream(outputStream), encoding);
+            buffer.writeTo(target);
+            buffer = null;
+        }
+    }
+
+
+    // Flushing before the threshold is reached would send the headers too early, so it only happens afterwards
+    @Override
+    public void flush() throws IOException {
+        if (target != null) {
+            target.flush();
+        }
+    }
+
+
+    // A small response is sent as it is. The stream of the container stays open, the container closes it itself
+    @Override
+    public void close() throws IOException {
+        if (target == null) {
+            target = outputStream;
+            buffer.writeTo(target);
+            buffer = null;
+        } else if (target != outputStream) {
+            target.close();
+            target = outputStream;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package de.fhws.fiw.pvs.exam.configuration;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class Configuration {
+    // Location of the optional configuration file, can be changed with -Dsoftskills.config=<path>
+    private static final String CONFIG_FILE = System.getProperty("softskills.config", "softskills.properties");
+    private static final Properties FILE_PROPERTIES = loadConfigFile();
+
+
+    // Look a key up in this order: system property (softskills.mongo.uri), environment variable
+    // (SOFTSKILLS_MONGO_URI), configuration file. If none of them sets the key the default value is returned
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = System.getenv(key.toUpperCase().replace('.', '_'));
+        }
+        if (value == null) {
+            value = FILE_PROPERTIES.getProperty(key);
+        }
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+
+    public static int getInt(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(getString(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+
+    public static long getLong(String key, long defaultValue) {
+        try {
+            return Long.parseLong(getString(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        return Boolean.parseBoolean(getString(key, String.valueOf(defaultValue)));
+    }
+
+
+
+    // Additional methods:
+
+    // Load the configuration file if there is one, a missing file just means every key uses its default
+    private static Properties loadConfigFile() {
+        Properties properties = new Properties();
+        File configFile = new File(CONFIG_FILE);
+        if (!configFile.isFile()) {
+            return properties;
+        }
+
+        try (InputStream inputStream = new FileInputStream(configFile)) {
+            properties.load(inputStream);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,110 @@
+package de.fhws.fiw.pvs.exam.database;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.TransactionBody;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.conversions.Bson;
+
+import java.util.Collection;
+import java.util.List;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class CausalSession implements AutoCloseable {
+    private final Collection<String> principals;
+    private final ClientSession clientSession;
+
+
+    CausalSession(Collection<String> principals, ClientSession clientSession) {
+        this.principals = principals;
+        this.clientSession = clientSession;
+    }
+
+
+    // The operations below run inside the session if there is one and plain otherwise
+
+    public <T> FindIterable<T> find(MongoCollection<T> collection) {
+        return clientSession == null ? collection.find() : collection.find(clientSession);
+    }
+
+    public <T> FindIterable<T> find(MongoCollection<T> collection, Bson filter) {
+        return clientSession == null ? collection.find(filter) : collection.find(clientSession, filter);
+    }
+
+    public <T> long countDocuments(MongoCollection<T> collection, Bson filter) {
+        return clientSession == null ? collection.countDocuments(filter)
+                : collection.countDocuments(clientSession, filter);
+    }
+
+    public <T, R> AggregateIterable<R> aggregate(MongoCollection<T> collection, List<? extends Bson> pipeline,
+                                                 Class<R> resultClass) {
+        return clientSession == null ? collection.aggregate(pipeline, resultClass)
+                : collection.aggregate(clientSession, pipeline, resultClass);
+    }
+
+    public <T> void insertOne(MongoCollection<T> collection, T document) {
+        if (clientSession == null) collection.insertOne(document);
+        else collection.insertOne(clientSession, document);
+    }
+
+    public <T> UpdateResult replaceOne(MongoCollection<T> collection, Bson filter, T document) {
+        return clientSession == null ? collection.replaceOne(filter, document)
+                : collection.replaceOne(clientSession, filter, document);
+    }
+
+    public <T> UpdateResult updateOne(MongoCollection<T> collection, Bson filter, Bson update) {
+        return clientSession == null ? collection.updateOne(filter, update)
+                : collection.updateOne(clientSession, filter, update);
+    }
+
+    public <T> T findOneAndUpdate(MongoCollection<T> collection, Bson filter, Bson update,
+                                  FindOneAndUpdateOptions options) {
+        return clientSession == null ? collection.findOneAndUpdate(filter, update, options)
+                : collection.findOneAndUpdate(clientSession, filter, update, options);
+    }
+
+    public <T> UpdateResult updateMany(MongoCollection<T> collection, Bson filter, Bson update) {
+        return clientSession == null ? collection.updateMany(filter, update)
+                : collection.updateMany(clientSession, filter, update);
+    }
+
+    public <T> BulkWriteResult bulkWrite(MongoCollection<T> collection,
+                                         List<? extends WriteModel<? extends T>> requests) {
+        return clientSession == null ? collection.bulkWrite(requests)
+                : collection.bulkWrite(clientSession, requests);
+    }
+
+    public <T> DeleteResult deleteOne(MongoCollection<T> collection, Bson filter) {
+        return clientSession == null ? collection.deleteOne(filter) : collection.deleteOne(clientSession, filter);
+    }
+
+
+    // Run the body as one transaction, so all of its writes are applied together or not at all. The driver retries
+    // it on transient errors, so the body must not have any effect outside the database. Without a session (no
+    // principal or a server without sessions) the writes of the body run one after another
+    public <T> T withTransaction(TransactionBody<T> body) {
+        return clientSession == null ? body.execute() : clientSession.withTransaction(body);
+    }
+
+
+    // Remember how far the session got and give it back to the driver's session pool
+    @Override
+    public void close() {
+        if (clientSession != null) {
+            for (String principal : principals) {
+                CausalSessions.record(principal, clientSession);
+            }
+            clientSession.close();
+        }
+    }
+}
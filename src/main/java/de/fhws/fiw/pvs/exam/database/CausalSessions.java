@@ -0,0 +1,134 @@
+package de.fhws.fiw.pvs.exam.database;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.MongoClientException;
+import com.mongodb.client.ClientSession;
+import de.fhws.fiw.pvs.exam.configuration.Configuration;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class CausalSessions {
+    private static final int MAXIMUM_TRACKED_PRINCIPALS = Configuration.getInt(
+            "softskills.mongo.causalSessions.maximumPrincipals", 10000);
+    private static final ClientSessionOptions SESSION_OPTIONS = ClientSessionOptions.builder()
+            .causallyConsistent(true)
+            .build();
+
+    // The principal (cn) of the request that is handled by the current thread
+    private static final ThreadLocal<String> BOUND_PRINCIPAL = new ThreadLocal<>();
+
+    // The last operation- and clusterTime every principal has seen, least recently used principals are dropped
+    private static final Map<String, SessionTimes> LAST_SEEN_TIMES = Collections.synchronizedMap(
+            new LinkedHashMap<String, SessionTimes>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SessionTimes> eldest) {
+                    return size() > MAXIMUM_TRACKED_PRINCIPALS;
+                }
+            });
+
+    private static volatile boolean sessionsSupported = true;
+
+
+    // Pin the database operations of the current thread to the session of a principal
+    public static void bind(String principal) {
+        if (principal == null || principal.isEmpty()) {
+            BOUND_PRINCIPAL.remove();
+        } else {
+            BOUND_PRINCIPAL.set(principal);
+        }
+    }
+
+
+    // Release the current thread after the request has been answered
+    public static void release() {
+        BOUND_PRINCIPAL.remove();
+    }
+
+
+    public static String getBoundPrincipal() {
+        return BOUND_PRINCIPAL.get();
+    }
+
+
+    // Start a session for the principal bound to the current thread
+    public static CausalSession start() {
+        return start(getBoundPrincipal());
+    }
+
+
+    // Start a causally consistent session that continues where the last session of the principal ended, so the
+    // principal sees its own writes even on a secondary. Without a principal no session is used at all
+    public static CausalSession start(String principal) {
+        if (principal == null || !sessionsSupported) {
+            return new CausalSession(Collections.emptyList(), null);
+        }
+
+        ClientSession clientSession;
+        try {
+            clientSession = MongoConnection.getClient().startSession(SESSION_OPTIONS);
+        } catch (MongoClientException e) {
+            // The deployment doesn't support sessions (e.g. an old standalone server), so don't try again
+            sessionsSupported = false;
+            return new CausalSession(Collections.emptyList(), null);
+        }
+
+        SessionTimes lastSeenTimes = LAST_SEEN_TIMES.get(principal);
+        if (lastSeenTimes != null) {
+            if (lastSeenTimes.clusterTime != null) {
+                clientSession.advanceClusterTime(lastSeenTimes.clusterTime);
+            }
+            clientSession.advanceOperationTime(lastSeenTimes.operationTime);
+        }
+        return new CausalSession(Collections.singletonList(principal), clientSession);
+    }
+
+
+    // Start one session for a write that is done on behalf of several principals at once (e.g. a batch of
+    // sign-ups). Afterwards every one of them continues from this write
+    public static CausalSession startOnBehalfOf(Collection<String> principals) {
+        if (principals.isEmpty() || !sessionsSupported) {
+            return new CausalSession(Collections.emptyList(), null);
+        }
+
+        try {
+            return new CausalSession(principals, MongoConnection.getClient().startSession(SESSION_OPTIONS));
+        } catch (MongoClientException e) {
+            sessionsSupported = false;
+            return new CausalSession(Collections.emptyList(), null);
+        }
+    }
+
+
+    // Remember how far the session of a principal has advanced
+    static void record(String principal, ClientSession clientSession) {
+        if (principal == null || clientSession.getOperationTime() == null) {
+            return;
+        }
+
+        SessionTimes newTimes = new SessionTimes(clientSession.getOperationTime(), clientSession.getClusterTime());
+        LAST_SEEN_TIMES.merge(principal, newTimes, (oldTimes, times) ->
+                oldTimes.operationTime.compareTo(times.operationTime) > 0 ? oldTimes : times);
+    }
+
+
+
+    private static class SessionTimes {
+        private final BsonTimestamp operationTime;
+        private final BsonDocument clusterTime;
+
+        private SessionTimes(BsonTimestamp operationTime, BsonDocument clusterTime) {
+            this.operationTime = operationTime;
+            this.clusterTime = clusterTime;
+        }
+    }
+}
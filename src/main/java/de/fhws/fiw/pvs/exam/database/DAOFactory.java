@@ -1,7 +1,9 @@
 package de.fhws.fiw.pvs.exam.database;
 
+import de.fhws.fiw.pvs.exam.database.dao.ChangeDAO;
 import de.fhws.fiw.pvs.exam.database.dao.CourseDAO;
 import de.fhws.fiw.pvs.exam.database.dao.EventDAO;
+import de.fhws.fiw.pvs.exam.database.daoimpl.ChangeDAOImpl;
 import de.fhws.fiw.pvs.exam.database.daoimpl.CourseDAOImpl;
 import de.fhws.fiw.pvs.exam.database.daoimpl.EventDAOImpl;
 import de.fhws.fiw.pvs.exam.resources.Course;
@@ -13,13 +15,25 @@ import de.fhws.fiw.pvs.exam.resources.Event;
 
 
 public class DAOFactory {
+    public static final String COURSE_COLLECTION = "courses";
+    public static final String EVENT_COLLECTION = "events";
+    // Events that are long over, see EventArchiver
+    public static final String EVENT_ARCHIVE_COLLECTION = "events_archive";
+    // Ids of deleted courses and events, see Tombstones
+    public static final String TOMBSTONE_COLLECTION = "tombstones";
+
     // Return a course database interface to hide implementation
     public static CourseDAO createCourseDAO() {
-        return new CourseDAOImpl("courses", Course.class);
+        return new CourseDAOImpl(COURSE_COLLECTION, Course.class);
     }
 
     // Return an event database interface to hide implementation
     public static EventDAO createEventDAO() {
-        return new EventDAOImpl("events", Event.class);
+        return new EventDAOImpl(EVENT_COLLECTION, Event.class);
+    }
+
+    // Return a change database interface to hide implementation
+    public static ChangeDAO createChangeDAO() {
+        return new ChangeDAOImpl();
     }
 }
@@ -0,0 +1,60 @@
+package de.fhws.fiw.pvs.exam.database;
+
+import de.fhws.fiw.pvs.exam.database.archive.EventArchiver;
+import de.fhws.fiw.pvs.exam.database.migration.ModificationSequenceMigration;
+import de.fhws.fiw.pvs.exam.database.migration.SeatCounterMigration;
+import org.glassfish.jersey.server.spi.Container;
+import org.glassfish.jersey.server.spi.ContainerLifecycleListener;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class DatabaseLifecycleListener implements ContainerLifecycleListener {
+    // Prepare the database in the background, so the server is reachable even if the database isn't yet. Only the
+    // seat counters are migrated before Jersey handles the first request, as the capacity check of a sign-up rejects
+    // every event without them as full. If the database can't be reached yet, they are migrated in the background
+    // as well
+    @Override
+    public void onStartup(Container container) {
+        boolean seatCountersMigrated = migrateSeatCounters();
+        Thread thread = new Thread(() -> {
+            try {
+                MongoIndexes.ensureIndexes();
+                if (!seatCountersMigrated) {
+                    SeatCounterMigration.run();
+                }
+                ModificationSequenceMigration.run();
+                EventArchiver.start();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, "database-startup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void onReload(Container container) {
+    }
+
+    @Override
+    public void onShutdown(Container container) {
+        EventArchiver.stop();
+    }
+
+
+
+    // Additional methods:
+
+    private static boolean migrateSeatCounters() {
+        try {
+            SeatCounterMigration.run();
+            return true;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package de.fhws.fiw.pvs.exam.database;
+
+import com.mongodb.client.model.Updates;
+import de.fhws.fiw.pvs.exam.configuration.Configuration;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Every write stamps the document with the time the database applied it (a BSON timestamp, unique per write on the
+// same server). GET /changes hands out the documents stamped after the token of the client. The token is the stamp
+// of the last change the client has got, so a mirror only reads what has changed since then
+public class ModificationSequence {
+    public static final String FIELD = "modSeq";
+    // A write that got its stamp has not necessarily finished yet, so the newest changes are held back for a moment.
+    // Otherwise a client could get a token behind which an older write still shows up
+    private static final long SETTLE_SECONDS = Configuration.getLong("softskills.changes.settleSeconds", 5);
+    // Tombstones of deleted resources are kept this long, an older token can't be continued
+    private static final long RETENTION_DAYS = Configuration.getLong("softskills.changes.retentionDays", 30);
+
+
+    // Stamp the document with the current time of the database
+    public static Bson touch() {
+        return Updates.currentTimestamp(FIELD);
+    }
+
+
+    // Changes up to this stamp are complete
+    public static BsonTimestamp getSettledUntil() {
+        return new BsonTimestamp((int) (getDatabaseSeconds() - SETTLE_SECONDS), 0);
+    }
+
+
+    public static long getRetentionDays() {
+        return RETENTION_DAYS;
+    }
+
+
+    // The token is the stamp as a number, it is meant to be opaque to the clients
+    public static String toToken(BsonTimestamp modSeq) {
+        return Long.toString(modSeq.getValue());
+    }
+
+
+    // Returns null if the token is not one of ours
+    public static BsonTimestamp fromToken(String token) {
+        try {
+            long value = Long.parseLong(token);
+            return value < 0 ? null : new BsonTimestamp(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+
+    // The deletes from before the token may be gone already, so the client has to download everything again
+    public static boolean isExpired(BsonTimestamp since) {
+        if (since.getValue() == 0) {
+            return false;
+        }
+        return since.getTime() < getDatabaseSeconds() - TimeUnit.DAYS.toSeconds(RETENTION_DAYS);
+    }
+
+
+
+    // Additional methods:
+
+    // The stamps come from the clock of the database, so the time is taken from there as well: the operationTime of
+    // a replica set (the cluster time the stamps are taken from), else the localTime of the server. The clock of this
+    // machine is only the last resort, it can be off by more than the settle time
+    private static long getDatabaseSeconds() {
+        Document reply = MongoConnection.getDatabase().runCommand(new Document("isMaster", 1));
+        if (reply.get("operationTime") instanceof BsonTimestamp) {
+            return ((BsonTimestamp) reply.get("operationTime")).getTime();
+        } else if (reply.get("localTime") instanceof Date) {
+            return TimeUnit.MILLISECONDS.toSeconds(reply.getDate("localTime").getTime());
+        }
+        return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,47 @@
+package de.fhws.fiw.pvs.exam.database;
+
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import org.bson.Document;
+
+import java.util.concurrent.TimeUnit;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class MongoIndexes {
+    // Create the indexes the queries rely on. Creating an index that already exists does nothing
+    public static void ensureIndexes() {
+        MongoDatabase database = MongoConnection.getDatabase();
+
+        // Full-text search of GET /courses?q=..., a hit in the name counts more than one in the description. The
+        // courses are written in German and English, so the words are indexed as they are without any stemming
+        database.getCollection(DAOFactory.COURSE_COLLECTION).createIndex(
+                Indexes.compoundIndex(Indexes.text("courseName"), Indexes.text("courseDescription")),
+                new IndexOptions().name("courseSearch").defaultLanguage("none")
+                        .weights(new Document("courseName", 10).append("courseDescription", 1)));
+
+        // Events of a course ($lookup of GET /courses/{id}?embed=events), in the archive as well
+        database.getCollection(DAOFactory.EVENT_COLLECTION).createIndex(Indexes.ascending("courseId", "startTime"));
+        database.getCollection(DAOFactory.EVENT_ARCHIVE_COLLECTION)
+                .createIndex(Indexes.ascending("courseId", "startTime"));
+
+        // Time lookups and the archival of past events
+        for (String collectionName : new String[]{DAOFactory.EVENT_COLLECTION, DAOFactory.EVENT_ARCHIVE_COLLECTION}) {
+            database.getCollection(collectionName).createIndex(Indexes.ascending("startTime"));
+            database.getCollection(collectionName).createIndex(Indexes.ascending("endTime"));
+        }
+
+        // GET /changes reads every collection by the modification sequence. The tombstones expire after the
+        // retention, a token that old has to start over
+        for (String collectionName : new String[]{DAOFactory.COURSE_COLLECTION, DAOFactory.EVENT_COLLECTION,
+                DAOFactory.TOMBSTONE_COLLECTION}) {
+            database.getCollection(collectionName).createIndex(Indexes.ascending(ModificationSequence.FIELD));
+        }
+        database.getCollection(DAOFactory.TOMBSTONE_COLLECTION).createIndex(Indexes.ascending("deletedAt"),
+                new IndexOptions().expireAfter(ModificationSequence.getRetentionDays(), TimeUnit.DAYS));
+    }
+}
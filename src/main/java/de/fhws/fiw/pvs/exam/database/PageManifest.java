@@ -0,0 +1,37 @@
+package de.fhws.fiw.pvs.exam.database;
+
+import de.fhws.fiw.pvs.exam.etag.EntityTags;
+
+import javax.ws.rs.core.EntityTag;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// What is known about a page before it is sent: how many resources it has and its ETag
+public class PageManifest {
+    private final int amountOfResources;
+    private final EntityTag entityTag;
+
+
+    public PageManifest(int amountOfResources, EntityTag entityTag) {
+        this.amountOfResources = amountOfResources;
+        this.entityTag = entityTag;
+    }
+
+    // The manifest of a page without any resources
+    public static PageManifest empty() {
+        return new PageManifest(0, new EntityTags.ListTag().toEntityTag());
+    }
+
+    // Getter: AmountOfResources
+    public int getAmountOfResources() {
+        return amountOfResources;
+    }
+
+    // Getter: EntityTag
+    public EntityTag getEntityTag() {
+        return entityTag;
+    }
+}
@@ -0,0 +1,14 @@
+package de.fhws.fiw.pvs.exam.database;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public enum ReadOperation {
+    // Listings of the catalog (all courses, events in a timeframe, ...). Slightly stale data is fine here, so these
+    // reads may be served by secondaries
+    CATALOG,
+    // Reads that decide about a write (does the event exist, is there a free seat, ...). These stay on the primary
+    SIGN_UP_CHECK
+}
@@ -0,0 +1,236 @@
+package de.fhws.fiw.pvs.exam.database;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Projections;
+import de.fhws.fiw.pvs.exam.configuration.Configuration;
+import de.fhws.fiw.pvs.exam.etag.EntityTags;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// A page of a query that is only run when it is needed. The elements are handed out one by one while the cursor
+// goes through the result, so no matter how big the page is only one batch of it is in memory. Small pages are the
+// exception, they are read once for their manifest and kept (see getManifest)
+public class ResultPage<T> {
+    private static final int BATCH_SIZE = Configuration.getInt("softskills.streaming.batchSize", 100);
+    private static final int MAXIMUM_BUFFERED_SIZE = Configuration.getInt("softskills.streaming.maximumBufferedSize",
+            200);
+
+    // Queried one after the other, e.g. the archive before the events that are not archived yet
+    private final List<MongoCollection<T>> collections = new ArrayList<>();
+    private final List<Bson> filters = new ArrayList<>();
+    private final int offset;
+    private final int size;
+    // The page is usually run after the request has released its principal (while the response is written), so
+    // the principal is remembered for the causally consistent session
+    private final String principal = CausalSessions.getBoundPrincipal();
+    private Bson projection;
+    private Bson sort;
+    // If set, the collections are read side by side and merged in this order (it has to match the sort)
+    private Comparator<? super T> mergeOrder;
+    // The resources that have been read for the manifest already, null if the page is read while it is written
+    private List<T> bufferedResources;
+
+
+    public ResultPage(int offset, int size) {
+        this.offset = Math.max(offset, 0);
+        this.size = size;
+    }
+
+
+    // A page without any resources
+    public static <T> ResultPage<T> empty() {
+        return new ResultPage<>(0, 0);
+    }
+
+
+    // Add the resources of a collection that match the filter
+    public ResultPage<T> from(MongoCollection<T> collection, Bson filter) {
+        collections.add(collection);
+        filters.add(filter);
+        return this;
+    }
+
+
+    public ResultPage<T> projection(Bson projection) {
+        this.projection = projection;
+        return this;
+    }
+
+
+    public ResultPage<T> sort(Bson sort) {
+        this.sort = sort;
+        return this;
+    }
+
+
+    // Read the collections side by side and merge them, e.g. to go through events and archive ordered by _id. The
+    // comparator has to order the resources like the sort of the query does
+    public ResultPage<T> mergedBy(Comparator<? super T> mergeOrder) {
+        this.mergeOrder = mergeOrder;
+        return this;
+    }
+
+
+    // Count the page and build its ETag. A page of up to MAXIMUM_BUFFERED_SIZE resources is read completely here and
+    // kept for forEach, so there is only one query and the ETag describes exactly the resources that are sent. Of a
+    // bigger page only the ids and versions are loaded here, it is read a second time while it is written
+    public PageManifest getManifest(Function<? super T, String> idOf, ToLongFunction<? super T> versionOf) {
+        if (size <= 0 || collections.isEmpty()) {
+            return PageManifest.empty();
+        }
+
+        EntityTags.ListTag listTag = new EntityTags.ListTag();
+        if (size <= MAXIMUM_BUFFERED_SIZE) {
+            List<T> resources = toList();
+            for (T resource : resources) {
+                listTag.add(idOf.apply(resource), versionOf.applyAsLong(resource));
+            }
+            bufferedResources = resources;
+            return new PageManifest(resources.size(), listTag.toEntityTag());
+        }
+
+        Bson idAndVersion = Projections.include("_id", "version");
+        Bson manifestProjection = projection == null ? idAndVersion : Projections.fields(idAndVersion, projection);
+        int[] amountOfResources = {0};
+
+        try (CausalSession session = CausalSessions.start(principal)) {
+            run(session, (collection, filter) -> session.find(collection.withDocumentClass(Document.class), filter)
+                    .projection(manifestProjection), document -> {
+                Object version = document.get("version");
+                listTag.add(String.valueOf(document.get("_id")),
+                        version instanceof Number ? ((Number) version).longValue() : 0);
+                amountOfResources[0]++;
+            });
+        }
+
+        return new PageManifest(amountOfResources[0], listTag.toEntityTag());
+    }
+
+
+    // Hand the resources of the page to the action one by one
+    public void forEach(Consumer<? super T> action) {
+        if (bufferedResources != null) {
+            bufferedResources.forEach(action);
+            return;
+        }
+        if (size <= 0 || collections.isEmpty()) {
+            return;
+        }
+
+        try (CausalSession session = CausalSessions.start(principal)) {
+            BiFunction<MongoCollection<T>, Bson, FindIterable<T>> find = (collection, filter) -> {
+                FindIterable<T> findIterable = session.find(collection, filter);
+                return projection == null ? findIterable : findIterable.projection(projection);
+            };
+            if (mergeOrder == null) {
+                run(session, find, action);
+            } else {
+                runMerged(find, action);
+            }
+        }
+    }
+
+
+    // Load the whole page into a list, only for callers that really need all of it at once
+    public List<T> toList() {
+        List<T> resources = new ArrayList<>();
+        forEach(resources::add);
+        return resources;
+    }
+
+
+
+    // Additional methods:
+
+    // Go through the collections in their order, the offset and size count over all of them together
+    private <R> void run(CausalSession session, BiFunction<MongoCollection<T>, Bson, FindIterable<R>> find,
+                         Consumer<? super R> action) {
+        long skip = offset;
+        int remaining = size;
+
+        for (int i = 0; i < collections.size() && remaining > 0; i++) {
+            MongoCollection<T> collection = collections.get(i);
+            Bson filter = filters.get(i);
+
+            // Skip whole collections the offset reaches beyond, the last one skips on its own
+            if (skip > 0 && i < collections.size() - 1) {
+                long amountInCollection = session.countDocuments(collection, filter);
+                if (skip >= amountInCollection) {
+                    skip -= amountInCollection;
+                    continue;
+                }
+            }
+
+            FindIterable<R> findIterable = find.apply(collection, filter);
+            if (sort != null) {
+                findIterable.sort(sort);
+            }
+            for (R resource : findIterable.skip((int) skip).limit(remaining).batchSize(Math.min(BATCH_SIZE,
+                    remaining))) {
+                action.accept(resource);
+                remaining--;
+            }
+            skip = 0;
+        }
+    }
+
+
+    // Open a cursor on every collection and always hand out the next resource of the cursor that comes first
+    private void runMerged(BiFunction<MongoCollection<T>, Bson, FindIterable<T>> find, Consumer<? super T> action) {
+        List<MongoCursor<T>> cursors = new ArrayList<>();
+        List<T> heads = new ArrayList<>();
+        try {
+            for (int i = 0; i < collections.size(); i++) {
+                FindIterable<T> findIterable = find.apply(collections.get(i), filters.get(i));
+                if (sort != null) {
+                    findIterable.sort(sort);
+                }
+                MongoCursor<T> cursor = findIterable.batchSize(BATCH_SIZE).iterator();
+                cursors.add(cursor);
+                heads.add(cursor.hasNext() ? cursor.next() : null);
+            }
+
+            long skip = offset;
+            int remaining = size;
+            while (remaining > 0) {
+                int next = -1;
+                for (int i = 0; i < heads.size(); i++) {
+                    if (heads.get(i) != null && (next < 0 || mergeOrder.compare(heads.get(i), heads.get(next)) < 0)) {
+                        next = i;
+                    }
+                }
+                if (next < 0) {
+                    break;
+                }
+
+                T resource = heads.get(next);
+                heads.set(next, cursors.get(next).hasNext() ? cursors.get(next).next() : null);
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    action.accept(resource);
+                    remaining--;
+                }
+            }
+        } finally {
+            for (MongoCursor<T> cursor : cursors) {
+                cursor.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package de.fhws.fiw.pvs.exam.database;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Updates;
+import de.fhws.fiw.pvs.exam.resources.Event;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class SeatUpdates {
+    // Sign a single student up, returns false if the event is full or doesn't exist
+    public static boolean signUp(CausalSession session, MongoCollection<Event> collection, String cn, String id) {
+        if (session.updateOne(collection, seatAvailableFor(cn, id), signUp(cn)).getMatchedCount() > 0) {
+            return true;
+        }
+        // Nothing matched: either the student already has a seat (fine) or the event is full
+        return session.find(collection, seatTakenBy(cn, id)).projection(Projections.include("_id")).first() != null;
+    }
+
+
+    // Release a single student from an event, the counter only goes down if he really had a seat. Returns false if he
+    // had none, so nothing has changed
+    public static boolean leave(CausalSession session, MongoCollection<Event> collection, String cn, String id) {
+        return session.updateOne(collection, seatTakenBy(cn, id), leave(cn)).getMatchedCount() > 0;
+    }
+
+
+    // Matches the event if the student has no seat yet and there is still a free one. The capacity check, the
+    // sign-up and the counter happen in one atomic update, so two students can never take the last seat together
+    public static Bson seatAvailableFor(String cn, String id) {
+        return Filters.and(Filters.eq("_id", id), Filters.ne("signedUpStudents", cn), seatsLeft(1));
+    }
+
+
+    // Matches the event if none of the students has a seat yet and all of them still fit in
+    public static Bson seatsAvailableFor(Collection<String> cns, String id) {
+        return Filters.and(Filters.eq("_id", id), Filters.nin("signedUpStudents", new ArrayList<>(cns)),
+                seatsLeft(cns.size()));
+    }
+
+
+    // Matches the event if the student has a seat
+    public static Bson seatTakenBy(String cn, String id) {
+        return Filters.and(Filters.eq("_id", id), Filters.eq("signedUpStudents", cn));
+    }
+
+
+    // Matches the event if all of the students have a seat
+    public static Bson seatsTakenBy(Collection<String> cns, String id) {
+        return Filters.and(Filters.eq("_id", id), Filters.all("signedUpStudents", new ArrayList<>(cns)));
+    }
+
+
+    public static Bson signUp(String cn) {
+        return signUp(Collections.singletonList(cn));
+    }
+
+
+    public static Bson signUp(Collection<String> cns) {
+        return Updates.combine(Updates.addEachToSet("signedUpStudents", new ArrayList<>(cns)),
+                Updates.inc("signedUpCount", cns.size()), Versions.increment());
+    }
+
+
+    public static Bson leave(String cn) {
+        return leave(Collections.singletonList(cn));
+    }
+
+
+    public static Bson leave(Collection<String> cns) {
+        return Updates.combine(Updates.pullAll("signedUpStudents", new ArrayList<>(cns)),
+                Updates.inc("signedUpCount", -cns.size()), Versions.increment());
+    }
+
+
+
+    // Additional methods:
+
+    // $expr: signedUpCount + amountOfStudents <= maximumStudents
+    private static Bson seatsLeft(int amountOfStudents) {
+        return Filters.expr(new Document("$lte", Arrays.asList(
+                new Document("$add", Arrays.asList("$signedUpCount", amountOfStudents)),
+                "$maximumStudents")));
+    }
+}
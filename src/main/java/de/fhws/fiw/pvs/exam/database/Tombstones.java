@@ -0,0 +1,43 @@
+package de.fhws.fiw.pvs.exam.database;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// A deleted resource leaves a tombstone with its id behind, so GET /changes can tell the mirrors about the delete.
+// The tombstones are removed after ModificationSequence.getRetentionDays() by a TTL index on deletedAt
+public class Tombstones {
+    // Remember that the resources of the type (Change.COURSE or Change.EVENT) have been deleted
+    public static void record(CausalSession session, String type, Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        List<WriteModel<Document>> tombstones = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            tombstones.add(new UpdateOneModel<>(Filters.eq("_id", id), Updates.combine(Updates.set("type", type),
+                    Updates.currentDate("deletedAt"), ModificationSequence.touch()),
+                    new UpdateOptions().upsert(true)));
+        }
+        session.bulkWrite(getCollection(), tombstones);
+    }
+
+
+    public static MongoCollection<Document> getCollection() {
+        return MongoConnection.getCollection(DAOFactory.TOMBSTONE_COLLECTION, Document.class,
+                ReadOperation.SIGN_UP_CHECK);
+    }
+}
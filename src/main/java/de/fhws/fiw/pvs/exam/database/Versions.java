@@ -0,0 +1,38 @@
+package de.fhws.fiw.pvs.exam.database;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class Versions {
+    // Matches the document with the id if it still has one of the expected versions. Without expected versions
+    // (null) any version matches. Documents stored before the version existed count as version 0
+    public static Bson matches(String id, Collection<Long> expectedVersions) {
+        if (expectedVersions == null) {
+            return Filters.eq("_id", id);
+        }
+
+        List<Object> versions = new ArrayList<>(expectedVersions);
+        if (expectedVersions.contains(0L)) {
+            // $in with null also matches documents that don't have the field at all
+            versions.add(null);
+        }
+        return Filters.and(Filters.eq("_id", id), Filters.in("version", versions));
+    }
+
+
+    // Every write increases the version by one, so a client that knows an old version can't overwrite the changes.
+    // It also stamps the modification sequence the change feed is read by
+    public static Bson increment() {
+        return Updates.combine(Updates.inc("version", 1L), ModificationSequence.touch());
+    }
+}
@@ -0,0 +1,39 @@
+package de.fhws.fiw.pvs.exam.database.archive;
+
+import de.fhws.fiw.pvs.exam.configuration.Configuration;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class EventArchive {
+    // Events that ended more than this many days ago are moved to the archive
+    private static final long HORIZON_DAYS = Configuration.getLong("softskills.archive.horizonDays", 180);
+
+
+    // Every event that ended before this time may already be in the archive. The time has the same format as the
+    // start- and endTimes (yyyy-MM-dd--HH:mm:ss), so it can be compared with them as a plain string
+    public static String getCutoff() {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd--HH:mm:ss");
+        return sdf.format(new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(HORIZON_DAYS)));
+    }
+
+
+    // Does a query for this time have to look into the archive as well
+    public static boolean reachesArchive(String time) {
+        return time != null && time.compareTo(getCutoff()) < 0;
+    }
+
+
+    // The one rule for every list of events (GET /events, /courses/{id}/events, ?embed=events and /export/events):
+    // the archive is part of it if the startTime (or the endTime if there is no startTime) lies before the cutoff.
+    // A list without any time only has the current events
+    public static boolean reachesArchive(String startTime, String endTime) {
+        return reachesArchive(startTime != null ? startTime : endTime);
+    }
+}
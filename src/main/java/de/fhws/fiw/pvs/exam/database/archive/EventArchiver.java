@@ -0,0 +1,154 @@
+package de.fhws.fiw.pvs.exam.database.archive;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import de.fhws.fiw.pvs.exam.cache.CacheRegion;
+import de.fhws.fiw.pvs.exam.cache.ResponseCache;
+import de.fhws.fiw.pvs.exam.configuration.Configuration;
+import de.fhws.fiw.pvs.exam.database.DAOFactory;
+import de.fhws.fiw.pvs.exam.database.MongoConnection;
+import de.fhws.fiw.pvs.exam.database.ReadOperation;
+import de.fhws.fiw.pvs.exam.database.Versions;
+import de.fhws.fiw.pvs.exam.resources.Event;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class EventArchiver {
+    private static final boolean ENABLED = Configuration.getBoolean("softskills.archive.enabled", false);
+    private static final long INTERVAL_MINUTES = Configuration.getLong("softskills.archive.intervalMinutes", 60);
+    private static final int BATCH_SIZE = Configuration.getInt("softskills.archive.batchSize", 500);
+
+    private static ScheduledExecutorService scheduler;
+
+
+    // Run the archival every INTERVAL_MINUTES in the background
+    public static synchronized void start() {
+        if (!ENABLED || scheduler != null) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                archivePastEvents();
+            } catch (RuntimeException e) {
+                // Don't let one failed run (e.g. database not reachable) cancel all the following runs
+                e.printStackTrace();
+            }
+        }, INTERVAL_MINUTES, INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+
+    // Move every event that ended before the cutoff from the events into the archive, BATCH_SIZE events at a time.
+    // Returns the amount of archived events
+    public static int archivePastEvents() {
+        MongoCollection<Event> events = MongoConnection.getCollection(DAOFactory.EVENT_COLLECTION, Event.class,
+                ReadOperation.SIGN_UP_CHECK);
+        MongoCollection<Event> archive = MongoConnection.getCollection(DAOFactory.EVENT_ARCHIVE_COLLECTION,
+                Event.class, ReadOperation.SIGN_UP_CHECK);
+        String cutoff = EventArchive.getCutoff();
+        int amountOfArchivedEvents = 0;
+        // Events that have changed while they were moved are left for the next run, so a busy event can't keep this
+        // run going forever
+        List<String> changedIds = new ArrayList<>();
+
+        while (true) {
+            Bson filter = changedIds.isEmpty() ? Filters.lt("endTime", cutoff)
+                    : Filters.and(Filters.lt("endTime", cutoff), Filters.nin("_id", changedIds));
+            List<Event> batch = events.find(filter).limit(BATCH_SIZE).into(new ArrayList<>());
+            if (batch.isEmpty()) {
+                return amountOfArchivedEvents;
+            }
+
+            List<String> archivedIds = archive(events, archive, batch, cutoff);
+            for (Event event : batch) {
+                if (!archivedIds.contains(event.getHashId())) {
+                    changedIds.add(event.getHashId());
+                }
+            }
+            amountOfArchivedEvents += archivedIds.size();
+        }
+    }
+
+
+
+    // Additional methods:
+
+    // Copy a batch into the archive and delete the events that are still exactly like their copy. Returns the ids
+    // of the archived events
+    static List<String> archive(MongoCollection<Event> events, MongoCollection<Event> archive, List<Event> batch,
+                                String cutoff) {
+        List<String> ids = new ArrayList<>(batch.size());
+        List<WriteModel<Event>> copies = new ArrayList<>(batch.size());
+        List<WriteModel<Event>> deletes = new ArrayList<>(batch.size());
+        for (Event event : batch) {
+            ids.add(event.getHashId());
+            copies.add(new ReplaceOneModel<>(Filters.eq("_id", event.getHashId()), event,
+                    new ReplaceOptions().upsert(true)));
+            deletes.add(new DeleteOneModel<>(unchangedSinceCopy(event, cutoff)));
+        }
+
+        // Copy first and delete afterwards, so an interrupted run never loses an event. A copy that an interrupted
+        // run has left behind is replaced with the current state of the event
+        archive.bulkWrite(copies, new BulkWriteOptions().ordered(false));
+        int amountOfDeletedEvents = events.bulkWrite(deletes, new BulkWriteOptions().ordered(false))
+                .getDeletedCount();
+
+        List<String> archivedIds = new ArrayList<>(ids);
+        if (amountOfDeletedEvents < batch.size()) {
+            // Somebody signed up, left or updated the event after it was copied. It stays in the events with its new
+            // state and the outdated copy is taken out of the archive again
+            List<String> changedIds = new ArrayList<>();
+            for (Event event : events.find(Filters.in("_id", ids)).projection(Projections.include("_id"))) {
+                changedIds.add(event.getHashId());
+            }
+            if (!changedIds.isEmpty()) {
+                archive.deleteMany(Filters.in("_id", changedIds));
+                archivedIds.removeAll(changedIds);
+            }
+        }
+
+        // No tombstones: an archived event still exists and can be read by its id, so the mirrors keep their copy.
+        // It is over and can't change anymore, so GET /changes has nothing to report about it
+        if (!archivedIds.isEmpty()) {
+            ResponseCache.invalidate(CacheRegion.EVENTS);
+        }
+        return archivedIds;
+    }
+
+
+    // Matches the event only if it still has the version that has been copied and still ended before the cutoff
+    static Bson unchangedSinceCopy(Event event, String cutoff) {
+        return Filters.and(Versions.matches(event.getHashId(), Collections.singletonList(event.getVersion())),
+                Filters.lt("endTime", cutoff));
+    }
+}
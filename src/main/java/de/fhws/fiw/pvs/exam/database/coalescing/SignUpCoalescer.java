@@ -0,0 +1,233 @@
+package de.fhws.fiw.pvs.exam.database.coalescing;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import de.fhws.fiw.pvs.exam.configuration.Configuration;
+import de.fhws.fiw.pvs.exam.database.CausalSession;
+import de.fhws.fiw.pvs.exam.database.CausalSessions;
+import de.fhws.fiw.pvs.exam.database.SeatUpdates;
+import de.fhws.fiw.pvs.exam.resources.Event;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class SignUpCoalescer {
+    private static final boolean ENABLED = Configuration.getBoolean("softskills.signUp.coalescing.enabled", false);
+    private static final long WINDOW_MILLIS = Configuration.getLong("softskills.signUp.coalescing.windowMillis", 5);
+    private static final int FLUSH_THREADS = Configuration.getInt("softskills.signUp.coalescing.flushThreads", 16);
+    private static final Map<String, SignUpCoalescer> COALESCERS = new ConcurrentHashMap<>();
+    // The flushes of different events are written side by side here, the scheduler only keeps the time
+    private static final ExecutorService FLUSH_EXECUTOR = createFlushExecutor();
+
+    private final MongoCollection<Event> collection;
+    // Commands that wait for their event to be written, in the order they arrived
+    private final Map<String, List<Command>> pendingCommands = new ConcurrentHashMap<>();
+    // The latest flush of every event. The next flush of the same event waits for it, so its batches stay in order
+    private final Map<String, CompletableFuture<Void>> lastFlushes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sign-up-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+
+    private SignUpCoalescer(MongoCollection<Event> collection) {
+        this.collection = collection;
+    }
+
+
+    // Is the coalescing mode switched on (softskills.signUp.coalescing.enabled=true)
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+
+    // One coalescer per collection, so every sign-up of an event ends up in the same queue
+    public static SignUpCoalescer forCollection(MongoCollection<Event> collection) {
+        return COALESCERS.computeIfAbsent(collection.getNamespace().getFullName(),
+                namespace -> new SignUpCoalescer(collection));
+    }
+
+
+    // Queue a sign-up. The future completes with false if the event was full when it was this command's turn
+    public CompletableFuture<Boolean> signUp(String cn, String id) {
+        return enqueue(id, new Command(true, cn, CausalSessions.getBoundPrincipal()));
+    }
+
+
+    // Queue a leave. The future completes once the student is released from the event, with false if he had no seat
+    public CompletableFuture<Boolean> leave(String cn, String id) {
+        return enqueue(id, new Command(false, cn, CausalSessions.getBoundPrincipal()));
+    }
+
+
+
+    // Additional methods:
+
+    // The first command for an event opens a new batch and schedules its flush, later commands just join it
+    private CompletableFuture<Boolean> enqueue(String id, Command command) {
+        pendingCommands.compute(id, (eventId, commands) -> {
+            if (commands == null) {
+                commands = new ArrayList<>();
+                scheduler.schedule(() -> startFlush(eventId), WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            commands.add(command);
+            return commands;
+        });
+        return command.result;
+    }
+
+
+    // Hand the batch of an event to the flush pool once the window is over. Only flushes of the same event queue up
+    // behind each other, a slow write for one event doesn't hold back the others
+    private void startFlush(String id) {
+        CompletableFuture<Void> flush = lastFlushes.compute(id, (eventId, lastFlush) -> lastFlush == null
+                ? CompletableFuture.runAsync(() -> flush(eventId), FLUSH_EXECUTOR)
+                : lastFlush.exceptionally(e -> null).thenRunAsync(() -> flush(eventId), FLUSH_EXECUTOR));
+        flush.whenComplete((ignored, e) -> lastFlushes.remove(id, flush));
+    }
+
+
+    // Apply all commands of an event in arrival order and write the net result
+    private void flush(String id) {
+        List<Command> commands = pendingCommands.remove(id);
+        if (commands == null) {
+            return;
+        }
+
+        try {
+            write(id, collection.find(Filters.eq("_id", id)).first(), commands);
+        } catch (RuntimeException e) {
+            for (Command command : commands) {
+                command.result.completeExceptionally(e);
+            }
+        }
+    }
+
+
+    // Decide about the commands based on the event as it was read and write the students that left and the students
+    // that joined. These are two updates instead of one bulkWrite, because a bulkWrite only reports how many of its
+    // models matched in total and not which of them
+    void write(String id, Event event, List<Command> commands) {
+        if (event == null) {
+            complete(commands, false);
+            return;
+        }
+
+        Set<String> signedUpBefore = event.getSignedUpStudents() == null ? new HashSet<>()
+                : event.getSignedUpStudents();
+        Set<String> signedUpAfter = new LinkedHashSet<>(signedUpBefore);
+        List<Boolean> results = new ArrayList<>(commands.size());
+
+        // Decide about every command as if they had been written one after another
+        for (Command command : commands) {
+            if (command.join) {
+                results.add(signedUpAfter.contains(command.cn)
+                        || (signedUpAfter.size() < event.getMaximumStudents() && signedUpAfter.add(command.cn)));
+            } else {
+                results.add(signedUpAfter.remove(command.cn));
+            }
+        }
+
+        Set<String> joined = new LinkedHashSet<>(signedUpAfter);
+        joined.removeAll(signedUpBefore);
+        Set<String> left = new LinkedHashSet<>(signedUpBefore);
+        left.removeAll(signedUpAfter);
+
+        boolean leftWritten;
+        boolean joinedWritten;
+        try (CausalSession session = CausalSessions.startOnBehalfOf(principalsOf(commands))) {
+            // The joins only match if all of them still fit into the event, so they go after the leaves
+            leftWritten = left.isEmpty() || session.updateOne(collection, SeatUpdates.seatsTakenBy(left, id),
+                    SeatUpdates.leave(left)).getMatchedCount() > 0;
+            joinedWritten = leftWritten && (joined.isEmpty() || session.updateOne(collection,
+                    SeatUpdates.seatsAvailableFor(joined, id), SeatUpdates.signUp(joined)).getMatchedCount() > 0);
+        }
+
+        // Somebody else changed the event in between (e.g. another server instance), so the part of the batch that
+        // didn't match can't be trusted anymore. The students whose leave has been written are done, the commands of
+        // all other students are applied one by one with their own capacity check instead
+        List<Command> unwrittenCommands = new ArrayList<>();
+        for (int i = 0; i < commands.size(); i++) {
+            Command command = commands.get(i);
+            if (joinedWritten || (leftWritten && left.contains(command.cn))) {
+                command.result.complete(results.get(i));
+            } else {
+                unwrittenCommands.add(command);
+            }
+        }
+        writeOneByOne(id, unwrittenCommands);
+    }
+
+
+    private void writeOneByOne(String id, List<Command> commands) {
+        for (Command command : commands) {
+            try (CausalSession session = CausalSessions.start(command.principal)) {
+                if (command.join) {
+                    command.result.complete(SeatUpdates.signUp(session, collection, command.cn, id));
+                } else {
+                    command.result.complete(SeatUpdates.leave(session, collection, command.cn, id));
+                }
+            }
+        }
+    }
+
+
+    private static Set<String> principalsOf(List<Command> commands) {
+        Set<String> principals = new HashSet<>();
+        for (Command command : commands) {
+            if (command.principal != null) {
+                principals.add(command.principal);
+            }
+        }
+        return principals;
+    }
+
+
+    private static void complete(List<Command> commands, boolean result) {
+        for (Command command : commands) {
+            command.result.complete(result);
+        }
+    }
+
+
+    private static ExecutorService createFlushExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(FLUSH_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "sign-up-flush-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+
+    static class Command {
+        private final boolean join;
+        private final String cn;
+        private final String principal;
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        Command(boolean join, String cn, String principal) {
+            this.join = join;
+            this.cn = cn;
+            this.principal = principal;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package de.fhws.fiw.pvs.exam.database.codec;
+
+import com.mongodb.MongoClientSettings;
+import org.bson.codecs.configuration.CodecRegistry;
+
+import static org.bson.codecs.configuration.CodecRegistries.fromCodecs;
+import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class CodecRegistryFactory {
+    // Built once for the whole application. Our own codecs come first so they win over the driver defaults
+    private static final CodecRegistry CODEC_REGISTRY = fromRegistries(
+            fromCodecs(new CourseCodec(), new EventCodec(), new CourseWithEventsCodec(),
+                    new ScoredCourseCodec()),
+            MongoClientSettings.getDefaultCodecRegistry());
+
+
+    // Return the codec registry that knows how to read and write courses and events
+    public static CodecRegistry getCodecRegistry() {
+        return CODEC_REGISTRY;
+    }
+}
@@ -0,0 +1,84 @@
+package de.fhws.fiw.pvs.exam.database.codec;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class CodecUtils {
+    // Read an id, older documents might still have an ObjectId instead of its hex string
+    public static String readId(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.OBJECT_ID) {
+            return reader.readObjectId().toHexString();
+        }
+        return reader.readString();
+    }
+
+
+    // Read a number that might have been stored as int32, int64 or double
+    public static int readInt(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case INT64:
+                return (int) reader.readInt64();
+            case DOUBLE:
+                return (int) reader.readDouble();
+            default:
+                return reader.readInt32();
+        }
+    }
+
+
+    // Read a number that might have been stored as int32, int64 or double
+    public static long readLong(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case INT32:
+                return reader.readInt32();
+            case DOUBLE:
+                return (long) reader.readDouble();
+            default:
+                return reader.readInt64();
+        }
+    }
+
+
+    // Read an array of strings into a set that is sized for the amount of elements right away, so the set never
+    // has to be rehashed while it gets filled. If the size is known beforehand (expectedSize > 0) the elements go
+    // straight into the set, otherwise they are collected first
+    public static Set<String> readStringSet(BsonReader reader, int expectedSize) {
+        if (expectedSize > 0) {
+            Set<String> set = new HashSet<>(capacityFor(expectedSize));
+            reader.readStartArray();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                set.add(reader.readString());
+            }
+            reader.readEndArray();
+            return set;
+        }
+
+        List<String> elements = new ArrayList<>();
+
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            elements.add(reader.readString());
+        }
+        reader.readEndArray();
+
+        Set<String> set = new HashSet<>(capacityFor(elements.size()));
+        set.addAll(elements);
+        return set;
+    }
+
+
+    // The initial capacity a HashSet needs to hold the given amount of elements without rehashing
+    public static int capacityFor(int amountOfElements) {
+        return Math.max((int) (amountOfElements / 0.75f) + 1, 16);
+    }
+}
@@ -0,0 +1,91 @@
+package de.fhws.fiw.pvs.exam.database.codec;
+
+import de.fhws.fiw.pvs.exam.resources.Course;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class CourseCodec implements Codec<Course> {
+    // Write the course field by field. The links are injected per request and never stored in the database
+    @Override
+    public void encode(BsonWriter writer, Course course, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writeFields(writer, course);
+        writer.writeEndDocument();
+    }
+
+
+    // Read the course by switching over the field names, unknown fields are skipped
+    @Override
+    public Course decode(BsonReader reader, DecoderContext decoderContext) {
+        Course course = new Course();
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String fieldName = reader.readName();
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+            } else if (!readField(fieldName, reader, course)) {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        return course;
+    }
+
+
+    @Override
+    public Class<Course> getEncoderClass() {
+        return Course.class;
+    }
+
+
+
+    // Additional methods:
+
+    // Write the stored fields of a course into an already started document
+    static void writeFields(BsonWriter writer, Course course) {
+        writer.writeString("_id", course.getHashId());
+        writer.writeInt64("version", course.getVersion());
+        if (course.getCourseName() != null) {
+            writer.writeString("courseName", course.getCourseName());
+        }
+        if (course.getCourseDescription() != null) {
+            writer.writeString("courseDescription", course.getCourseDescription());
+        }
+        writer.writeInt32("maximumStudents", course.getMaximumStudents());
+    }
+
+
+    // Read a single stored field of a course, returns false if the field is not part of a course
+    static boolean readField(String fieldName, BsonReader reader, Course course) {
+        switch (fieldName) {
+            case "_id":
+                course.setHashId(CodecUtils.readId(reader));
+                return true;
+            case "version":
+                course.setVersion(CodecUtils.readLong(reader));
+                return true;
+            case "courseName":
+                course.setCourseName(reader.readString());
+                return true;
+            case "courseDescription":
+                course.setCourseDescription(reader.readString());
+                return true;
+            case "maximumStudents":
+                course.setMaximumStudents(CodecUtils.readInt(reader));
+                return true;
+            default:
+                return false;
+        }
+    }
+}
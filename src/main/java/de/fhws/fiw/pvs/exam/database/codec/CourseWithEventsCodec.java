@@ -0,0 +1,77 @@
+package de.fhws.fiw.pvs.exam.database.codec;
+
+import de.fhws.fiw.pvs.exam.resources.CourseWithEvents;
+import de.fhws.fiw.pvs.exam.resources.Event;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class CourseWithEventsCodec implements Codec<CourseWithEvents> {
+    private final EventCodec eventCodec = new EventCodec();
+
+
+    @Override
+    public void encode(BsonWriter writer, CourseWithEvents course, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        CourseCodec.writeFields(writer, course);
+        writer.writeStartArray("events");
+        for (Event event : course.getEmbeddedEvents()) {
+            eventCodec.encode(writer, event, encoderContext);
+        }
+        writer.writeEndArray();
+        writer.writeEndDocument();
+    }
+
+
+    // Read a course together with the events that have been joined into its "events" field
+    @Override
+    public CourseWithEvents decode(BsonReader reader, DecoderContext decoderContext) {
+        CourseWithEvents course = new CourseWithEvents();
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String fieldName = reader.readName();
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+            } else if (fieldName.equals("events")) {
+                course.setEmbeddedEvents(readEvents(reader, decoderContext));
+            } else if (!CourseCodec.readField(fieldName, reader, course)) {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        return course;
+    }
+
+
+    @Override
+    public Class<CourseWithEvents> getEncoderClass() {
+        return CourseWithEvents.class;
+    }
+
+
+
+    // Additional methods:
+
+    private List<Event> readEvents(BsonReader reader, DecoderContext decoderContext) {
+        List<Event> events = new ArrayList<>();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            events.add(eventCodec.decode(reader, decoderContext));
+        }
+        reader.readEndArray();
+        return events;
+    }
+}
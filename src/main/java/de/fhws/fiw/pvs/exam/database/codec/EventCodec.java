@@ -0,0 +1,103 @@
+package de.fhws.fiw.pvs.exam.database.codec;
+
+import de.fhws.fiw.pvs.exam.resources.Event;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class EventCodec implements Codec<Event> {
+    // Write the event field by field. The links are injected per request and never stored in the database
+    @Override
+    public void encode(BsonWriter writer, Event event, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writer.writeString("_id", event.getHashId());
+        writer.writeInt64("version", event.getVersion());
+        if (event.getStartTime() != null) {
+            writer.writeString("startTime", event.getStartTime());
+        }
+        if (event.getEndTime() != null) {
+            writer.writeString("endTime", event.getEndTime());
+        }
+        if (event.getCourseId() != null) {
+            writer.writeString("courseId", event.getCourseId());
+        }
+        // The counter is written before the set, so the decoder knows how big the set will be
+        writer.writeInt32("signedUpCount", event.getSignedUpStudents() == null ? 0
+                : event.getSignedUpStudents().size());
+        writer.writeInt32("maximumStudents", event.getMaximumStudents());
+        if (event.getSignedUpStudents() != null) {
+            writer.writeStartArray("signedUpStudents");
+            for (String cn : event.getSignedUpStudents()) {
+                writer.writeString(cn);
+            }
+            writer.writeEndArray();
+        }
+        writer.writeEndDocument();
+    }
+
+
+    // Read the event by switching over the field names, unknown fields are skipped
+    @Override
+    public Event decode(BsonReader reader, DecoderContext decoderContext) {
+        Event event = new Event();
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String fieldName = reader.readName();
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                continue;
+            }
+
+            switch (fieldName) {
+                case "_id":
+                    event.setHashId(CodecUtils.readId(reader));
+                    break;
+                case "version":
+                    event.setVersion(CodecUtils.readLong(reader));
+                    break;
+                case "startTime":
+                    event.setStartTime(reader.readString());
+                    break;
+                case "endTime":
+                    event.setEndTime(reader.readString());
+                    break;
+                case "courseId":
+                    event.setCourseId(reader.readString());
+                    break;
+                case "signedUpCount":
+                    event.setSignedUpCount(CodecUtils.readInt(reader));
+                    break;
+                case "maximumStudents":
+                    event.setMaximumStudents(CodecUtils.readInt(reader));
+                    break;
+                case "signedUpStudents":
+                    event.setSignedUpStudents(CodecUtils.readStringSet(reader, event.getSignedUpCount()));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        // Documents written before the counter existed
+        if (event.getSignedUpCount() == 0 && event.getSignedUpStudents() != null) {
+            event.setSignedUpCount(event.getSignedUpStudents().size());
+        }
+        return event;
+    }
+
+
+    @Override
+    public Class<Event> getEncoderClass() {
+        return Event.class;
+    }
+}
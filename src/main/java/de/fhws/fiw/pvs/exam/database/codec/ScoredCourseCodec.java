@@ -0,0 +1,52 @@
+package de.fhws.fiw.pvs.exam.database.codec;
+
+import de.fhws.fiw.pvs.exam.resources.ScoredCourse;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class ScoredCourseCodec implements Codec<ScoredCourse> {
+    // The score only exists in search results, it is never stored with the course
+    @Override
+    public void encode(BsonWriter writer, ScoredCourse course, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        CourseCodec.writeFields(writer, course);
+        writer.writeEndDocument();
+    }
+
+
+    // Read a course together with the text score that the search has projected into its "score" field
+    @Override
+    public ScoredCourse decode(BsonReader reader, DecoderContext decoderContext) {
+        ScoredCourse course = new ScoredCourse();
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String fieldName = reader.readName();
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+            } else if (fieldName.equals("score")) {
+                course.setScore(reader.readDouble());
+            } else if (!CourseCodec.readField(fieldName, reader, course)) {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        return course;
+    }
+
+
+    @Override
+    public Class<ScoredCourse> getEncoderClass() {
+        return ScoredCourse.class;
+    }
+}
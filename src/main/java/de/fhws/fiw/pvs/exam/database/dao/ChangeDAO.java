@@ -0,0 +1,14 @@
+package de.fhws.fiw.pvs.exam.database.dao;
+
+import de.fhws.fiw.pvs.exam.resources.ChangeSet;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public interface ChangeDAO {
+    // Get up to size courses/events that have been created, updated or deleted after the token (null: all of them),
+    // oldest first, with the token to go on from
+    ChangeSet getChanges(String sinceToken, int size);
+}
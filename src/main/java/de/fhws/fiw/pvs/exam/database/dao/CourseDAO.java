@@ -1,6 +1,9 @@
 package de.fhws.fiw.pvs.exam.database.dao;
 
+import de.fhws.fiw.pvs.exam.database.ResultPage;
 import de.fhws.fiw.pvs.exam.resources.Course;
+import de.fhws.fiw.pvs.exam.resources.CourseWithEvents;
+import de.fhws.fiw.pvs.exam.resources.ScoredCourse;
 import java.util.List;
 
 /***
@@ -13,14 +16,28 @@ public interface CourseDAO {
     List<Course> getAll(int offset, int size);
     // Get all courses/a course by name
     List<Course> getByName(String courseName, int offset, int size);
+    // Get the courses whose name or description match the search query, the most relevant first
+    List<ScoredCourse> search(String query, int offset, int size);
+    // Get a page of all courses (empty name) or the courses by name that is read while it is written
+    ResultPage<Course> getPage(String courseName, int offset, int size);
+    // Same as search, but read while it is written
+    ResultPage<ScoredCourse> searchPage(String query, int offset, int size);
+    // Get every course ordered by id, only those after afterId if it is given
+    ResultPage<Course> getExport(String afterId);
+    // Get the courses with the given ids with one query, in the order of the ids (missing ones are left out)
+    List<Course> getByIds(List<String> ids);
     // Get a course by its id
     Course getById(String id);
+    // Get a course by its id together with its events, startTime/endTime can be null to get all of them
+    CourseWithEvents getByIdWithEvents(String id, String startTime, String endTime);
     // Insert a new course
     void insertInto(Course newCourse);
-    // Update a course
-    void update(Course updatedCourse, String id);
+    // Update a course if it has one of the expected versions (null: any version), returns the updated course or null
+    Course update(Course updatedCourse, String id, List<Long> expectedVersions);
     // Delete a course
     void delete(String id);
+    // Delete a course if it has one of the expected versions (null: any version), returns false if it hasn't
+    boolean delete(String id, List<Long> expectedVersions);
 
 
     // Additional utility methods:
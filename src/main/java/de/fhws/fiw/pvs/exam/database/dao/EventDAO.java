@@ -1,6 +1,8 @@
 package de.fhws.fiw.pvs.exam.database.dao;
 
+import de.fhws.fiw.pvs.exam.database.ResultPage;
 import de.fhws.fiw.pvs.exam.resources.Event;
+import java.util.Collection;
 import java.util.List;
 
 /***
@@ -11,6 +13,10 @@ import java.util.List;
 public interface EventDAO {
     // Get every event
     List<Event> getAll(int offset, int size);
+    // Get a page of events that is read while it is written, by startTime and/or endTime and courseId (all nullable)
+    ResultPage<Event> getPage(String startTime, String endTime, String courseId, int offset, int size);
+    // Get every event (only those in between startTime and endTime if given) ordered by id, after afterId if given
+    ResultPage<Event> getExport(String startTime, String endTime, String afterId);
     // Get an event by searching for its exact startTime
     List<Event> getByStartTime(String startTime, int offset, int size);
     // Get an event by searching for its exact endTime
@@ -21,18 +27,25 @@ public interface EventDAO {
     List<Event> getSameTimes(String startTime, String endTime, int offset, int size);
     // Filter a given list of events by a specific courseId
     List<Event> filterListForSpecificCourse(List<Event> allEvents, String courseId);
-    // Get an event by its id
+    // Get the events with the given ids (also archived ones), in the order of the ids (missing ones are left out)
+    List<Event> getByIds(List<String> ids);
+    // Get only the seats (id, courseId, signedUpCount, maximumStudents) of the given events and of the events of
+    // the given courses
+    List<Event> getSeats(Collection<String> eventIds, Collection<String> courseIds);
+    // Get an event by its id, also if it has been archived
     Event getById(String eventId);
     // Get an event that has a specific courseId
     Event getByIdWithSpecificCourse(String id, String courseId);
     // Insert a new event
     void insertInto(Event document);
-    // Update an event
-    void update(Event updatedDocument, String eventId);
-    // Sign a student up to an event by adding his cn
-    void signUp(String cn, String id);
+    // Update an event if it has one of the expected versions (null: any version), returns the updated event or null
+    Event update(Event updatedDocument, String eventId, List<Long> expectedVersions);
+    // Sign a student up to an event by adding his cn, returns false if there was no free seat left
+    boolean signUp(String cn, String id);
     // Delete an event
     void delete(String eventId);
+    // Delete an event if it has one of the expected versions (null: any version), returns false if it hasn't
+    boolean delete(String eventId, List<Long> expectedVersions);
     // Release a student from an event by delete his cn
     void leave(String cn, String id);
 
@@ -41,6 +54,11 @@ public interface EventDAO {
 
     // Check if an event is not in the database
     boolean isNotInDatabase(String eventId);
+    // Check if an event has no seat left for a student without loading its students: it has maximumStudents or more
+    // students signed up and the student isn't one of them
+    boolean isFullFor(String cn, String eventId, int maximumStudents);
+    // Check if an event has been moved to the archive (see EventArchiver), it can be read but not changed anymore
+    boolean isArchived(String eventId);
     // Check the start- and endTime if they are not in the proper format.
     boolean startIsAfterEndOrWrongFormat(String startTime, String endTime);
     // Check if start- or endTime is wrong
@@ -0,0 +1,159 @@
+package de.fhws.fiw.pvs.exam.database.daoimpl;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import de.fhws.fiw.pvs.exam.database.CausalSession;
+import de.fhws.fiw.pvs.exam.database.CausalSessions;
+import de.fhws.fiw.pvs.exam.database.DAOFactory;
+import de.fhws.fiw.pvs.exam.database.ModificationSequence;
+import de.fhws.fiw.pvs.exam.database.MongoConnection;
+import de.fhws.fiw.pvs.exam.database.ReadOperation;
+import de.fhws.fiw.pvs.exam.database.Tombstones;
+import de.fhws.fiw.pvs.exam.database.dao.ChangeDAO;
+import de.fhws.fiw.pvs.exam.resources.Change;
+import de.fhws.fiw.pvs.exam.resources.ChangeSet;
+import de.fhws.fiw.pvs.exam.resources.Course;
+import de.fhws.fiw.pvs.exam.resources.Event;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class ChangeDAOImpl implements ChangeDAO {
+    // Read from the primary, a secondary could still miss changes that are older than the token it hands out
+    protected MongoCollection<Course> courseCollection = MongoConnection.getCollection(DAOFactory.COURSE_COLLECTION,
+            Course.class, ReadOperation.SIGN_UP_CHECK);
+    protected MongoCollection<Event> eventCollection = MongoConnection.getCollection(DAOFactory.EVENT_COLLECTION,
+            Event.class, ReadOperation.SIGN_UP_CHECK);
+    protected MongoCollection<Document> tombstoneCollection = Tombstones.getCollection();
+
+
+    // READ
+    // Get the changes after the token. Only the ids and stamps are read by the modSeq index first, the resources
+    // that make it into the page are loaded afterwards with one $in query per type, so the work depends on the
+    // amount of changes and not on the size of the catalog
+    @Override
+    public ChangeSet getChanges(String sinceToken, int size) {
+        BsonTimestamp since = sinceToken == null ? new BsonTimestamp(0) : ModificationSequence.fromToken(sinceToken);
+        BsonTimestamp settledUntil = ModificationSequence.getSettledUntil();
+        Bson window = Filters.and(Filters.gt(ModificationSequence.FIELD, since),
+                Filters.lte(ModificationSequence.FIELD, settledUntil));
+
+        List<StampedChange> stampedChanges = new ArrayList<>();
+        try (CausalSession session = CausalSessions.start()) {
+            stampedChanges.addAll(findStamps(session, courseCollection.withDocumentClass(Document.class),
+                    Change.COURSE, window, size));
+            stampedChanges.addAll(findStamps(session, eventCollection.withDocumentClass(Document.class),
+                    Change.EVENT, window, size));
+            stampedChanges.addAll(findStamps(session, tombstoneCollection, null, window, size));
+        }
+        stampedChanges.sort(Comparator.comparing(stampedChange -> stampedChange.modSeq));
+
+        ChangeSet changeSet = new ChangeSet();
+        changeSet.setMoreAvailable(stampedChanges.size() > size);
+        if (changeSet.isMoreAvailable()) {
+            stampedChanges = stampedChanges.subList(0, size);
+        }
+
+        // Without more changes the token moves on to where the changes are complete, so an idle client doesn't
+        // read the same window again and again
+        BsonTimestamp token = changeSet.isMoreAvailable() ? stampedChanges.get(size - 1).modSeq
+                : since.compareTo(settledUntil) > 0 ? since : settledUntil;
+        changeSet.setToken(ModificationSequence.toToken(token));
+
+        for (StampedChange stampedChange : stampedChanges) {
+            changeSet.getChanges().add(stampedChange.change);
+        }
+        loadResources(changeSet.getChanges());
+        return changeSet;
+    }
+
+
+
+    // Additional methods:
+
+    // The ids and stamps of up to size + 1 changes of a collection, the one more tells if there are more changes.
+    // Without a type the collection holds tombstones, which know their type themselves
+    private List<StampedChange> findStamps(CausalSession session, MongoCollection<Document> collection, String type,
+                                           Bson window, int size) {
+        List<StampedChange> stampedChanges = new ArrayList<>();
+        for (Document document : session.find(collection, window)
+                .projection(Projections.include("_id", "type", ModificationSequence.FIELD))
+                .sort(Sorts.ascending(ModificationSequence.FIELD))
+                .limit(size + 1)) {
+            String id = String.valueOf(document.get("_id"));
+            Change change = type == null ? new Change(document.getString("type"), id, true)
+                    : new Change(type, id, false);
+            stampedChanges.add(new StampedChange(change, (BsonTimestamp) document.get(ModificationSequence.FIELD)));
+        }
+        return stampedChanges;
+    }
+
+
+    // Put the current courses and events into the changes. A resource that has been deleted in the meantime is
+    // left out, its tombstone comes with a later token
+    private void loadResources(List<Change> changes) {
+        Map<String, Course> courses = new HashMap<>();
+        Map<String, Event> events = new HashMap<>();
+        List<String> courseIds = new ArrayList<>();
+        List<String> eventIds = new ArrayList<>();
+        for (Change change : changes) {
+            if (!change.isDeleted()) {
+                (change.getType().equals(Change.COURSE) ? courseIds : eventIds).add(change.getId());
+            }
+        }
+
+        try (CausalSession session = CausalSessions.start()) {
+            if (!courseIds.isEmpty()) {
+                for (Course course : session.find(courseCollection, Filters.in("_id", courseIds))) {
+                    courses.put(course.getHashId(), course);
+                }
+            }
+            if (!eventIds.isEmpty()) {
+                for (Event event : session.find(eventCollection, Filters.in("_id", eventIds))) {
+                    events.put(event.getHashId(), event);
+                }
+            }
+        }
+
+        Iterator<Change> iterator = changes.iterator();
+        while (iterator.hasNext()) {
+            Change change = iterator.next();
+            if (change.isDeleted()) {
+                continue;
+            }
+            change.setCourse(courses.get(change.getId()));
+            change.setEvent(events.get(change.getId()));
+            if (change.getCourse() == null && change.getEvent() == null) {
+                iterator.remove();
+            }
+        }
+    }
+
+
+
+    // Additional classes:
+
+    private static class StampedChange {
+        private final Change change;
+        private final BsonTimestamp modSeq;
+
+        private StampedChange(Change change, BsonTimestamp modSeq) {
+            this.change = change;
+            this.modSeq = modSeq;
+        }
+    }
+}
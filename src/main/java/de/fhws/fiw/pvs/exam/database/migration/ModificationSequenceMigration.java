@@ -0,0 +1,22 @@
+package de.fhws.fiw.pvs.exam.database.migration;
+
+import com.mongodb.client.model.Filters;
+import de.fhws.fiw.pvs.exam.database.DAOFactory;
+import de.fhws.fiw.pvs.exam.database.ModificationSequence;
+import de.fhws.fiw.pvs.exam.database.MongoConnection;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class ModificationSequenceMigration {
+    // Stamp the courses and events that have been stored before the modification sequence existed, so they show up
+    // in GET /changes. Documents that are stamped already are not touched
+    public static void run() {
+        for (String collectionName : new String[]{DAOFactory.COURSE_COLLECTION, DAOFactory.EVENT_COLLECTION}) {
+            MongoConnection.getDatabase().getCollection(collectionName).updateMany(
+                    Filters.exists(ModificationSequence.FIELD, false), ModificationSequence.touch());
+        }
+    }
+}
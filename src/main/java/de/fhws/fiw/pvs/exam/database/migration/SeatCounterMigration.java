@@ -0,0 +1,46 @@
+package de.fhws.fiw.pvs.exam.database.migration;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Updates;
+import de.fhws.fiw.pvs.exam.database.DAOFactory;
+import de.fhws.fiw.pvs.exam.database.MongoConnection;
+import de.fhws.fiw.pvs.exam.database.ReadOperation;
+import de.fhws.fiw.pvs.exam.resources.Course;
+import de.fhws.fiw.pvs.exam.resources.Event;
+import org.bson.Document;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class SeatCounterMigration {
+    // Give events that have been stored before the seat counter existed their signedUpCount and maximumStudents.
+    // Events that already have them are not touched, so running this on every start is cheap
+    public static void run() {
+        MongoCollection<Event> events = MongoConnection.getCollection(DAOFactory.EVENT_COLLECTION, Event.class,
+                ReadOperation.SIGN_UP_CHECK);
+        MongoCollection<Course> courses = MongoConnection.getCollection(DAOFactory.COURSE_COLLECTION, Course.class,
+                ReadOperation.SIGN_UP_CHECK);
+
+        // signedUpCount = size of signedUpStudents, calculated by the database itself
+        events.updateMany(Filters.exists("signedUpCount", false), Collections.singletonList(
+                new Document("$set", new Document("signedUpCount", new Document("$size",
+                        new Document("$ifNull", Arrays.asList("$signedUpStudents", Collections.emptyList())))))));
+
+        // maximumStudents = copy of the maximumStudents of the course
+        if (events.countDocuments(Filters.exists("maximumStudents", false)) == 0) {
+            return;
+        }
+        for (Course course : courses.find().projection(Projections.include("maximumStudents"))) {
+            events.updateMany(Filters.and(Filters.eq("courseId", course.getHashId()),
+                    Filters.exists("maximumStudents", false)),
+                    Updates.set("maximumStudents", course.getMaximumStudents()));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package de.fhws.fiw.pvs.exam.etag;
+
+import de.fhws.fiw.pvs.exam.resources.Course;
+import de.fhws.fiw.pvs.exam.resources.CourseWithEvents;
+import de.fhws.fiw.pvs.exam.resources.Event;
+
+import javax.ws.rs.core.EntityTag;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class EntityTags {
+    // The strong ETag of a resource is its version
+    public static EntityTag of(long version) {
+        return new EntityTag(String.valueOf(version));
+    }
+
+
+    // The ETag of a page of courses is a hash over the ids and versions of the courses in their order, so it
+    // changes as soon as one of them changes or the page gets other courses
+    public static EntityTag ofCourses(Collection<? extends Course> courses) {
+        ListTag listTag = new ListTag();
+        for (Course course : courses) {
+            listTag.add(course.getHashId(), course.getVersion());
+        }
+        return listTag.toEntityTag();
+    }
+
+
+    // The ETag of a page of events, see ofCourses
+    public static EntityTag ofEvents(Collection<Event> events) {
+        ListTag listTag = new ListTag();
+        for (Event event : events) {
+            listTag.add(event.getHashId(), event.getVersion());
+        }
+        return listTag.toEntityTag();
+    }
+
+
+    // The ETag of a course with its embedded events covers the course and every one of the events
+    public static EntityTag of(CourseWithEvents course) {
+        ListTag listTag = new ListTag();
+        listTag.add(course.getHashId(), course.getVersion());
+        for (Event event : course.getEmbeddedEvents()) {
+            listTag.add(event.getHashId(), event.getVersion());
+        }
+        return listTag.toEntityTag();
+    }
+
+
+    // Get the versions an If-Match header asks for. Returns null if the header is missing or "*", so the write
+    // happens whatever the version is. Weak or malformed tags never match a strong ETag, so they are left out and
+    // the write fails with 412 if none is left
+    public static List<Long> versionsOf(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("") || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        List<Long> versions = new ArrayList<>();
+        for (String tag : ifMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+                continue;
+            }
+            try {
+                versions.add(Long.parseLong(tag.substring(1, tag.length() - 1)));
+            } catch (NumberFormatException e) {
+                // Not one of our ETags
+            }
+        }
+        return versions;
+    }
+
+
+
+    // Additional classes:
+
+    // Builds the ETag of a list element by element, so the list itself never has to be in memory
+    public static class ListTag {
+        private final MessageDigest digest;
+
+        public ListTag() {
+            try {
+                digest = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException e) {
+                // Every Java platform has to support SHA-1
+                throw new IllegalStateException(e);
+            }
+        }
+
+        public void add(String id, long version) {
+            digest.update((id + ':' + version + ';').getBytes(StandardCharsets.UTF_8));
+        }
+
+        public EntityTag toEntityTag() {
+            byte[] hash = digest.digest();
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return new EntityTag(hex.toString());
+        }
+    }
+}
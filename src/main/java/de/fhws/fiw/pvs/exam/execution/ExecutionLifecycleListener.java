@@ -0,0 +1,25 @@
+package de.fhws.fiw.pvs.exam.execution;
+
+import org.glassfish.jersey.server.spi.Container;
+import org.glassfish.jersey.server.spi.ContainerLifecycleListener;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class ExecutionLifecycleListener implements ContainerLifecycleListener {
+    @Override
+    public void onStartup(Container container) {
+    }
+
+    @Override
+    public void onReload(Container container) {
+    }
+
+    // Let the requests that are running finish, but don't take new ones
+    @Override
+    public void onShutdown(Container container) {
+        RequestExecutor.shutdown();
+    }
+}
@@ -0,0 +1,201 @@
+package de.fhws.fiw.pvs.exam.execution;
+
+import de.fhws.fiw.pvs.exam.configuration.Configuration;
+import de.fhws.fiw.pvs.exam.database.CausalSessions;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Runs the resource methods on a pool of its own instead of Tomcat's connector threads. The connector thread only
+// hands the request over, so a slow auth API or database can fill this pool and its queue, but Tomcat stays
+// responsive. A request that finds the queue full or waits longer than the timeout gets 503 with Retry-After. A
+// request whose handler has already started when the timeout hits gets 504 without Retry-After, as the handler goes
+// on and may still write, so repeating e.g. a POST could create the resource twice.
+// In the virtual-thread mode (see VirtualThreads) every request gets a virtual thread of its own instead, the
+// database and auth connection pools are the limit then and only a very high number of requests is turned away
+public class RequestExecutor {
+    private static final int THREADS = Configuration.getInt("softskills.requests.threads", 64);
+    private static final int QUEUE_SIZE = Configuration.getInt("softskills.requests.queueSize", 256);
+    private static final long TIMEOUT_SECONDS = Configuration.getLong("softskills.requests.timeoutSeconds", 30);
+    private static final int MAXIMUM_VIRTUAL_THREADS = Configuration.getInt(
+            "softskills.virtualThreads.maximumRequests", 10000);
+    private static final String RETRY_AFTER_SECONDS = "5";
+    private static final int QUEUED = 0;
+    private static final int STARTED = 1;
+    private static final int TIMED_OUT = 2;
+
+    private static final AtomicLong REJECTED_REQUESTS = new AtomicLong();
+    private static final AtomicLong TIMED_OUT_REQUESTS = new AtomicLong();
+    private static final AtomicLong COMPLETED_REQUESTS = new AtomicLong();
+    // Requests that have been handed over and are not answered yet, only limited in the virtual-thread mode
+    private static final Semaphore VIRTUAL_THREAD_PERMITS = new Semaphore(MAXIMUM_VIRTUAL_THREADS);
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+
+    // Answer the request with the response of the handler, which runs on the pool
+    public static void submit(AsyncResponse asyncResponse, Supplier<Response> handler) {
+        // Either the worker starts the handler or the timeout gives up on the queued request, never both
+        AtomicInteger state = new AtomicInteger(QUEUED);
+        asyncResponse.setTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        asyncResponse.setTimeoutHandler(timedOut -> {
+            TIMED_OUT_REQUESTS.incrementAndGet();
+            timedOut.resume(state.compareAndSet(QUEUED, TIMED_OUT) ? getUnavailableResponse()
+                    : Response.status(Response.Status.GATEWAY_TIMEOUT).build());
+        });
+
+        if (VirtualThreads.isEnabled() && !VIRTUAL_THREAD_PERMITS.tryAcquire()) {
+            rejectRequest(asyncResponse);
+            return;
+        }
+
+        try {
+            EXECUTOR.execute(() -> {
+                try {
+                    // Nobody waits for a request that has timed out in the queue
+                    if (state.compareAndSet(QUEUED, STARTED)) {
+                        asyncResponse.resume(handler.get());
+                    }
+                } catch (RuntimeException e) {
+                    asyncResponse.resume(e);
+                } finally {
+                    // The thread serves other users next
+                    CausalSessions.release();
+                    COMPLETED_REQUESTS.incrementAndGet();
+                    if (VirtualThreads.isEnabled()) {
+                        VIRTUAL_THREAD_PERMITS.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (VirtualThreads.isEnabled()) {
+                VIRTUAL_THREAD_PERMITS.release();
+            }
+            rejectRequest(asyncResponse);
+        }
+    }
+
+
+    public static void shutdown() {
+        EXECUTOR.shutdown();
+    }
+
+
+
+    // Additional methods:
+
+    private static void rejectRequest(AsyncResponse asyncResponse) {
+        REJECTED_REQUESTS.incrementAndGet();
+        asyncResponse.resume(getUnavailableResponse());
+    }
+
+
+    private static Response getUnavailableResponse() {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", RETRY_AFTER_SECONDS)
+                .build();
+    }
+
+
+    private static ExecutorService createExecutor() {
+        ExecutorService executor;
+        if (VirtualThreads.isEnabled()) {
+            executor = VirtualThreads.newThreadPerTaskExecutor();
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(QUEUE_SIZE), runnable -> {
+                Thread thread = new Thread(runnable, "request-worker-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+
+        // The queue depth and the counters can be watched with any JMX client (e.g. jconsole)
+        try {
+            ObjectName name = new ObjectName("de.fhws.fiw.pvs.exam:type=RequestExecutor");
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new Statistics(executor), name);
+            }
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+        return executor;
+    }
+
+
+
+    // Additional classes:
+
+    // The counters only cover the resource methods. A list that is streamed (ListStreamingOutput, e.g. the exports
+    // and pages bigger than softskills.streaming.maximumBufferedSize) runs its query while Jersey writes the body on
+    // the container thread, after the request has been counted as completed. That database work is neither limited
+    // by this pool and its timeout nor counted here
+    public interface StatisticsMXBean {
+        int getQueueDepth();
+        int getActiveThreads();
+        int getPoolSize();
+        long getCompletedRequests();
+        long getRejectedRequests();
+        long getTimedOutRequests();
+    }
+
+
+    private static class Statistics implements StatisticsMXBean {
+        private final ExecutorService executor;
+
+        Statistics(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public int getQueueDepth() {
+            return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getQueue().size() : 0;
+        }
+
+        @Override
+        public int getActiveThreads() {
+            return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getActiveCount()
+                    : MAXIMUM_VIRTUAL_THREADS - VIRTUAL_THREAD_PERMITS.availablePermits();
+        }
+
+        @Override
+        public int getPoolSize() {
+            return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getPoolSize()
+                    : getActiveThreads();
+        }
+
+        @Override
+        public long getCompletedRequests() {
+            return COMPLETED_REQUESTS.get();
+        }
+
+        @Override
+        public long getRejectedRequests() {
+            return REJECTED_REQUESTS.get();
+        }
+
+        @Override
+        public long getTimedOutRequests() {
+            return TIMED_OUT_REQUESTS.get();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package de.fhws.fiw.pvs.exam.execution;
+
+import de.fhws.fiw.pvs.exam.configuration.Configuration;
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.AbstractProtocol;
+
+import java.util.concurrent.ExecutorService;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// The virtual-thread mode (softskills.virtualThreads.enabled=true). The project is still built for Java 8, so the
+// virtual threads of Java 21+ are only reached by reflection. On an older JDK the mode logs a warning and the server
+// runs with platform threads as before
+public class VirtualThreads {
+    private static final boolean ENABLED = Configuration.getBoolean("softskills.virtualThreads.enabled", false);
+    private static final boolean AVAILABLE = ENABLED && checkAvailable();
+
+
+    // True if requests run on virtual threads
+    public static boolean isEnabled() {
+        return AVAILABLE;
+    }
+
+
+    // An executor that starts a new virtual thread for every task
+    public static ExecutorService newThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Class.forName("java.util.concurrent.Executors")
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads are not available", e);
+        }
+    }
+
+
+    // Let Tomcat handle every request of the connector on a virtual thread of its own instead of its thread pool
+    public static void useFor(Connector connector) {
+        if (AVAILABLE && connector.getProtocolHandler() instanceof AbstractProtocol) {
+            ((AbstractProtocol<?>) connector.getProtocolHandler()).setExecutor(newThreadPerTaskExecutor());
+        }
+    }
+
+
+
+    // Additional methods:
+
+    private static boolean checkAvailable() {
+        try {
+            Class.forName("java.util.concurrent.Executors").getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (ReflectiveOperationException e) {
+            System.err.println("softskills.virtualThreads.enabled is set, but this JDK has no virtual threads "
+                    + "(Java 21+ needed). Running on platform threads.");
+            return false;
+        }
+    }
+}
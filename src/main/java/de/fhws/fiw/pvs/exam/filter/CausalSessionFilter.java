@@ -0,0 +1,22 @@
+package de.fhws.fiw.pvs.exam.filter;
+
+import de.fhws.fiw.pvs.exam.database.CausalSessions;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.ext.Provider;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+@Provider
+public class CausalSessionFilter implements ContainerResponseFilter {
+    // The request has been answered, so the thread goes back to Tomcat without a bound principal
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        CausalSessions.release();
+    }
+}
@@ -0,0 +1,52 @@
+package de.fhws.fiw.pvs.exam.filter;
+
+import de.fhws.fiw.pvs.exam.linkconverter.LinkInjector;
+import de.fhws.fiw.pvs.exam.resources.Change;
+import de.fhws.fiw.pvs.exam.resources.ChangeSet;
+import de.fhws.fiw.pvs.exam.resources.CourseWithEvents;
+import de.fhws.fiw.pvs.exam.resources.Event;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.ext.Provider;
+import java.util.Collection;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Fills the @InjectLink fields of the resources in a response. The DeclarativeLinkingFeature did the same, but it
+// walks through every field of the entity by reflection, which for a streamed list means the whole StreamingOutput
+// and everything it references. A streamed list gets its links from the LinkInjector while it is written instead
+@Provider
+public class LinkInjectionFilter implements ContainerResponseFilter {
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object entity = responseContext.getEntity();
+        if (entity == null) {
+            return;
+        }
+
+        LinkInjector linkInjector = new LinkInjector(requestContext.getUriInfo().getBaseUri());
+        if (entity instanceof Collection) {
+            for (Object resource : (Collection<?>) entity) {
+                linkInjector.inject(resource);
+            }
+        } else {
+            linkInjector.inject(entity);
+            if (entity instanceof CourseWithEvents) {
+                for (Event event : ((CourseWithEvents) entity).getEmbeddedEvents()) {
+                    linkInjector.inject(event);
+                }
+            } else if (entity instanceof ChangeSet) {
+                // Only one of them is set, none for a delete
+                for (Change change : ((ChangeSet) entity).getChanges()) {
+                    if (change.getCourse() != null) linkInjector.inject(change.getCourse());
+                    if (change.getEvent() != null) linkInjector.inject(change.getEvent());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package de.fhws.fiw.pvs.exam.filter;
+
+import de.fhws.fiw.pvs.exam.configuration.Configuration;
+import de.fhws.fiw.pvs.exam.ratelimit.TokenBuckets;
+
+import javax.annotation.Priority;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Limits the requests per user, reads and writes each with a budget of their own. It runs before the request is
+// matched to a resource method, so a throttled request gets 429 with Retry-After before the auth API or the
+// database is asked anything. The user is the cn of Basic credentials together with the address or the token itself,
+// requests without any credentials are counted per address
+@Provider
+@PreMatching
+@Priority(Priorities.AUTHENTICATION - 100)
+public class RateLimitFilter implements ContainerRequestFilter {
+    private static final boolean ENABLED = Configuration.getBoolean("softskills.rateLimit.enabled", true);
+    private static final int MAXIMUM_USERS = Configuration.getInt("softskills.rateLimit.maximumUsers", 100000);
+    private static final TokenBuckets READS = new TokenBuckets(
+            Configuration.getLong("softskills.rateLimit.reads.perSecond", 20),
+            Configuration.getInt("softskills.rateLimit.reads.burst", 50), MAXIMUM_USERS);
+    private static final TokenBuckets WRITES = new TokenBuckets(
+            Configuration.getLong("softskills.rateLimit.writes.perSecond", 5),
+            Configuration.getInt("softskills.rateLimit.writes.burst", 10), MAXIMUM_USERS);
+
+    @Context
+    private HttpServletRequest servletRequest;
+
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!ENABLED) {
+            return;
+        }
+
+        String method = requestContext.getMethod();
+        boolean isRead = method.equals(HttpMethod.GET) || method.equals(HttpMethod.HEAD)
+                || method.equals(HttpMethod.OPTIONS);
+        long waitNanos = (isRead ? READS : WRITES).tryTake(
+                userOf(requestContext.getHeaderString(HttpHeaders.AUTHORIZATION)));
+
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)
+                    / TimeUnit.SECONDS.toNanos(1));
+            requestContext.abortWith(Response.status(Response.Status.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                    .build());
+        }
+    }
+
+
+
+    // Additional methods:
+
+    // The credentials are not checked here. Anybody can send the cn of somebody else, so the cn is only counted
+    // together with the address, a wrong password from another address doesn't use up the budget of the real user.
+    // A token has to be known to be used, it is counted on its own
+    private String userOf(String authorization) {
+        String address = servletRequest == null ? "" : servletRequest.getRemoteAddr();
+        if (authorization == null || authorization.isEmpty()) {
+            return "address:" + address;
+        }
+
+        if (authorization.regionMatches(true, 0, "Basic ", 0, 6)) {
+            try {
+                String credentials = new String(Base64.getDecoder().decode(authorization.substring(6).trim()),
+                        StandardCharsets.UTF_8);
+                int colon = credentials.indexOf(':');
+                return "cn:" + (colon < 0 ? credentials : credentials.substring(0, colon)) + "@" + address;
+            } catch (IllegalArgumentException e) {
+                // Not Base64, counted as a token
+            }
+        }
+        return "token:" + authorization;
+    }
+}
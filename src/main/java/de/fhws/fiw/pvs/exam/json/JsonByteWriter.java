@@ -0,0 +1,194 @@
+package de.fhws.fiw.pvs.exam.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Writes JSON as UTF-8 bytes into a buffer, with the same escaping as Genson: ", \ and the control characters, and
+// U+2028/U+2029 for JavaScript. Names and separators that never change are handed in as ready bytes (see name)
+public class JsonByteWriter {
+    private static final int BUFFER_SIZE = 2048;
+    // An escaped U+2028 takes 6 bytes, every other character less
+    private static final int MAXIMUM_BYTES_PER_CHAR = 6;
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    // The escape of every ASCII character, null if it is written as it is
+    private static final byte[][] ASCII_ESCAPES = new byte[128][];
+    private final OutputStream outputStream;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            ASCII_ESCAPES[c] = unicodeEscape(c);
+        }
+        ASCII_ESCAPES['\b'] = "\\b".getBytes(StandardCharsets.US_ASCII);
+        ASCII_ESCAPES['\t'] = "\\t".getBytes(StandardCharsets.US_ASCII);
+        ASCII_ESCAPES['\n'] = "\\n".getBytes(StandardCharsets.US_ASCII);
+        ASCII_ESCAPES['\f'] = "\\f".getBytes(StandardCharsets.US_ASCII);
+        ASCII_ESCAPES['\r'] = "\\r".getBytes(StandardCharsets.US_ASCII);
+        ASCII_ESCAPES['"'] = "\\\"".getBytes(StandardCharsets.US_ASCII);
+        ASCII_ESCAPES['\\'] = "\\\\".getBytes(StandardCharsets.US_ASCII);
+    }
+
+
+    public JsonByteWriter(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+
+    // The bytes of ,"name": (or {"name": for the first property) to write a property with one call
+    public static byte[] name(String prefix, String name) {
+        return (prefix + '"' + name + "\":").getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    public JsonByteWriter raw(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length - position) {
+            flushBuffer();
+            if (bytes.length > buffer.length) {
+                outputStream.write(bytes);
+                return this;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+        return this;
+    }
+
+
+    public JsonByteWriter raw(char c) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) c;
+        return this;
+    }
+
+
+    public JsonByteWriter nullValue() throws IOException {
+        return raw(NULL);
+    }
+
+
+    public JsonByteWriter number(long value) throws IOException {
+        // Long.MIN_VALUE can't be negated, it is rare enough to go through a String
+        if (value == Long.MIN_VALUE) {
+            return raw(String.valueOf(value).getBytes(StandardCharsets.US_ASCII));
+        }
+        if (20 > buffer.length - position) {
+            flushBuffer();
+        }
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int end = position + digitsOf(value);
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+        return this;
+    }
+
+
+    // A quoted and escaped string, or null
+    public JsonByteWriter string(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        raw('"');
+        // Long strings are escaped in parts that fit into the buffer
+        int partLength = buffer.length / MAXIMUM_BYTES_PER_CHAR - 1;
+        for (int start = 0; start < value.length(); ) {
+            int end = Math.min(start + partLength, value.length());
+            if (end < value.length() && Character.isHighSurrogate(value.charAt(end - 1))) {
+                end--;
+            }
+            if ((end - start) * MAXIMUM_BYTES_PER_CHAR > buffer.length - position) {
+                flushBuffer();
+            }
+            escape(value, start, end);
+            start = end;
+        }
+        return raw('"');
+    }
+
+
+    // Hand everything to the stream, the stream itself is not flushed or closed
+    public void flushBuffer() throws IOException {
+        outputStream.write(buffer, 0, position);
+        position = 0;
+    }
+
+
+
+    // Additional methods:
+
+    // Escape the characters into the buffer, there has to be room for MAXIMUM_BYTES_PER_CHAR per character
+    private void escape(String value, int start, int end) {
+        byte[] buffer = this.buffer;
+        int position = this.position;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                byte[] escape = ASCII_ESCAPES[c];
+                if (escape == null) {
+                    buffer[position++] = (byte) c;
+                } else {
+                    System.arraycopy(escape, 0, buffer, position, escape.length);
+                    position += escape.length;
+                }
+            } else if (c == 0x2028 || c == 0x2029) {
+                byte[] escape = unicodeEscape(c);
+                System.arraycopy(escape, 0, buffer, position, escape.length);
+                position += escape.length;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(value.charAt(i + 1))) {
+                position = putUtf8(buffer, position, Character.toCodePoint(c, value.charAt(++i)));
+            } else if (Character.isSurrogate(c)) {
+                // A broken surrogate pair, like the OutputStreamWriter of Genson does
+                buffer[position++] = '?';
+            } else {
+                position = putUtf8(buffer, position, c);
+            }
+        }
+        this.position = position;
+    }
+
+
+    private static int putUtf8(byte[] buffer, int position, int codePoint) {
+        if (codePoint < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (codePoint >> 6));
+        } else if (codePoint < 0x10000) {
+            buffer[position++] = (byte) (0xE0 | (codePoint >> 12));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        } else {
+            buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        }
+        buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        return position;
+    }
+
+
+    private static int digitsOf(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+
+    private static byte[] unicodeEscape(int c) {
+        return new byte[]{'\\', 'u', HEX[(c >> 12) & 0xF], HEX[(c >> 8) & 0xF], HEX[(c >> 4) & 0xF], HEX[c & 0xF]};
+    }
+}
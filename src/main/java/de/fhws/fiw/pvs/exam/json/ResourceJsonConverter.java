@@ -0,0 +1,312 @@
+package de.fhws.fiw.pvs.exam.json;
+
+import com.owlike.genson.JsonBindingException;
+import com.owlike.genson.stream.JsonReader;
+import com.owlike.genson.stream.JsonStreamException;
+import com.owlike.genson.stream.ObjectReader;
+import com.owlike.genson.stream.ValueType;
+import de.fhws.fiw.pvs.exam.linkconverter.TemplateLink;
+import de.fhws.fiw.pvs.exam.resources.Course;
+import de.fhws.fiw.pvs.exam.resources.Event;
+
+import javax.annotation.Priority;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Link;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// The JSON of Course and Event (and of lists of them) written and read by hand instead of by Genson's reflection:
+// the properties in a fixed order with their names as ready bytes and the links written inline. The JSON is the
+// same as Genson's (properties sorted by name, a link named by its rel). Every other type, e.g. CourseWithEvents or
+// ScoredCourse, is still written and read by Genson
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@Priority(Priorities.ENTITY_CODER)
+public class ResourceJsonConverter implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+    private static final byte[] COURSE_DESCRIPTION = JsonByteWriter.name("{", "courseDescription");
+    private static final byte[] COURSE_NAME = JsonByteWriter.name(",", "courseName");
+    private static final byte[] EVENTS = JsonByteWriter.name(",", "events");
+    private static final byte[] COURSE_ID = JsonByteWriter.name("{", "courseId");
+    private static final byte[] COURSE_LINK = JsonByteWriter.name(",", "courseLink");
+    private static final byte[] END_TIME = JsonByteWriter.name(",", "endTime");
+    private static final byte[] SIGNED_UP_COUNT = JsonByteWriter.name(",", "signedUpCount");
+    private static final byte[] SIGNED_UP_STUDENTS = JsonByteWriter.name(",", "signedUpStudents");
+    private static final byte[] START_TIME = JsonByteWriter.name(",", "startTime");
+    private static final byte[] HASH_ID = JsonByteWriter.name(",", "hashId");
+    private static final byte[] MAXIMUM_STUDENTS = JsonByteWriter.name(",", "maximumStudents");
+    private static final byte[] SELF = JsonByteWriter.name(",", "self");
+    private static final byte[] VERSION = JsonByteWriter.name(",", "version");
+    private static final byte[] HREF = JsonByteWriter.name("{", "href");
+    private static final byte[] REL = JsonByteWriter.name(",", "rel");
+    private static final byte[] TYPE = JsonByteWriter.name(",", "type");
+
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isUtf8(mediaType) && (isResourceClass(type)
+                || (Collection.class.isAssignableFrom(type) && isResourceClass(elementClassOf(genericType))));
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isUtf8(mediaType) && (isResourceClass(type)
+                || ((type == List.class || type == Collection.class) && isResourceClass(elementClassOf(genericType))));
+    }
+
+
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream outputStream)
+            throws IOException, WebApplicationException {
+        JsonByteWriter json = new JsonByteWriter(outputStream);
+        if (entity instanceof Collection) {
+            json.raw('[');
+            boolean first = true;
+            for (Object resource : (Collection<?>) entity) {
+                if (!first) {
+                    json.raw(',');
+                }
+                first = false;
+                writeResource(json, resource);
+            }
+            json.raw(']');
+        } else {
+            writeResource(json, entity);
+        }
+        json.flushBuffer();
+    }
+
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream inputStream)
+            throws IOException, WebApplicationException {
+        try {
+            ObjectReader reader = new JsonReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8), false,
+                    false);
+            if (isResourceClass(type)) {
+                return readResource(reader, type);
+            }
+
+            Class<?> elementClass = elementClassOf(genericType);
+            if (reader.getValueType() == ValueType.NULL) {
+                return null;
+            }
+            List<Object> resources = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                reader.next();
+                resources.add(readResource(reader, elementClass));
+            }
+            reader.endArray();
+            return resources;
+        } catch (JsonStreamException | JsonBindingException | NumberFormatException e) {
+            // Broken or wrong input is the fault of the client, like in the CBOR
+            throw new BadRequestException(e);
+        }
+    }
+
+
+
+    // Additional methods:
+
+    private static void writeResource(JsonByteWriter json, Object resource) throws IOException {
+        if (resource == null) {
+            json.nullValue();
+        } else if (resource instanceof Event) {
+            writeEvent(json, (Event) resource);
+        } else {
+            writeCourse(json, (Course) resource);
+        }
+    }
+
+
+    // The properties sorted by name like Genson does it
+    private static void writeCourse(JsonByteWriter json, Course course) throws IOException {
+        json.raw(COURSE_DESCRIPTION).string(course.getCourseDescription());
+        json.raw(COURSE_NAME).string(course.getCourseName());
+        writeLink(json, EVENTS, course.getEvents());
+        json.raw(HASH_ID).string(course.getHashId());
+        json.raw(MAXIMUM_STUDENTS).number(course.getMaximumStudents());
+        writeLink(json, SELF, course.getSelf());
+        json.raw(VERSION).number(course.getVersion());
+        json.raw('}');
+    }
+
+
+    private static void writeEvent(JsonByteWriter json, Event event) throws IOException {
+        json.raw(COURSE_ID).string(event.getCourseId());
+        writeLink(json, COURSE_LINK, event.getCourseLink());
+        json.raw(END_TIME).string(event.getEndTime());
+        json.raw(HASH_ID).string(event.getHashId());
+        json.raw(MAXIMUM_STUDENTS).number(event.getMaximumStudents());
+        writeLink(json, SELF, event.getSelf());
+        json.raw(SIGNED_UP_COUNT).number(event.getSignedUpCount());
+        json.raw(SIGNED_UP_STUDENTS);
+        if (event.getSignedUpStudents() == null) {
+            json.nullValue();
+        } else {
+            json.raw('[');
+            boolean first = true;
+            for (String student : event.getSignedUpStudents()) {
+                if (!first) {
+                    json.raw(',');
+                }
+                first = false;
+                json.string(student);
+            }
+            json.raw(']');
+        }
+        json.raw(START_TIME).string(event.getStartTime());
+        json.raw(VERSION).number(event.getVersion());
+        json.raw('}');
+    }
+
+
+    // Like the ServerLinkConverter: named by its rel, or by the property if there is no link
+    private static void writeLink(JsonByteWriter json, byte[] propertyName, Link link) throws IOException {
+        if (link == null) {
+            json.raw(propertyName).nullValue();
+            return;
+        }
+        json.raw(',').string(link.getRel()).raw(':');
+        json.raw(HREF).string(link instanceof TemplateLink ? ((TemplateLink) link).getHref()
+                : link.getUri().toASCIIString());
+        json.raw(REL).string(link.getRel());
+        if (link.getType() != null && !link.getType().isEmpty()) {
+            json.raw(TYPE).string(link.getType());
+        }
+        json.raw('}');
+    }
+
+
+    private static Object readResource(ObjectReader reader, Class<?> resourceClass) {
+        if (reader.getValueType() == ValueType.NULL) {
+            return null;
+        }
+        return resourceClass == Event.class ? readEvent(reader) : readCourse(reader);
+    }
+
+
+    // Unknown properties and the links (they have no setters) are skipped like Genson does
+    private static Course readCourse(ObjectReader reader) {
+        Course course = new Course();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            reader.next();
+            switch (reader.name()) {
+                case "hashId": course.setHashId(readString(reader)); break;
+                case "version": course.setVersion(readLong(reader)); break;
+                case "courseName": course.setCourseName(readString(reader)); break;
+                case "courseDescription": course.setCourseDescription(readString(reader)); break;
+                case "maximumStudents": course.setMaximumStudents(readInt(reader)); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return course;
+    }
+
+
+    private static Event readEvent(ObjectReader reader) {
+        Event event = new Event();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            reader.next();
+            switch (reader.name()) {
+                case "hashId": event.setHashId(readString(reader)); break;
+                case "version": event.setVersion(readLong(reader)); break;
+                case "startTime": event.setStartTime(readString(reader)); break;
+                case "endTime": event.setEndTime(readString(reader)); break;
+                case "courseId": event.setCourseId(readString(reader)); break;
+                case "signedUpStudents": event.setSignedUpStudents(readStrings(reader)); break;
+                case "signedUpCount": event.setSignedUpCount(readInt(reader)); break;
+                case "maximumStudents": event.setMaximumStudents(readInt(reader)); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return event;
+    }
+
+
+    private static String readString(ObjectReader reader) {
+        return reader.getValueType() == ValueType.NULL ? null : reader.valueAsString();
+    }
+
+
+    // null is 0 for the primitive properties
+    private static long readLong(ObjectReader reader) {
+        return reader.getValueType() == ValueType.NULL ? 0 : reader.valueAsLong();
+    }
+
+
+    private static int readInt(ObjectReader reader) {
+        return reader.getValueType() == ValueType.NULL ? 0 : reader.valueAsInt();
+    }
+
+
+    private static Set<String> readStrings(ObjectReader reader) {
+        if (reader.getValueType() == ValueType.NULL) {
+            return null;
+        }
+        Set<String> strings = new HashSet<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            reader.next();
+            strings.add(readString(reader));
+        }
+        reader.endArray();
+        return strings;
+    }
+
+
+    private static boolean isResourceClass(Class<?> type) {
+        return type == Course.class || type == Event.class;
+    }
+
+
+    // Other charsets are left to Genson
+    private static boolean isUtf8(MediaType mediaType) {
+        String charset = mediaType == null ? null : mediaType.getParameters().get(MediaType.CHARSET_PARAMETER);
+        return charset == null || charset.equalsIgnoreCase("UTF-8");
+    }
+
+
+    // The class of the elements of Collection<Course>, null if it isn't known
+    private static Class<?> elementClassOf(Type genericType) {
+        if (genericType instanceof ParameterizedType) {
+            Type[] typeArguments = ((ParameterizedType) genericType).getActualTypeArguments();
+            if (typeArguments.length == 1 && typeArguments[0] instanceof Class) {
+                return (Class<?>) typeArguments[0];
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,90 @@
+package de.fhws.fiw.pvs.exam.linkconverter;
+
+import org.glassfish.jersey.linking.InjectLink;
+
+import javax.ws.rs.core.Link;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Fills the @InjectLink fields of a resource (only ABSOLUTE links with ${instance.x} templates are used here). The
+// templates are compiled once per class (see precompile), filling a link only sets a TemplateLink that renders its
+// href when it is written
+public class LinkInjector {
+    // The compiled links of a class
+    private static final Map<Class<?>, List<InjectedLink>> LINKS_OF_CLASS = new ConcurrentHashMap<>();
+    private final String base;
+
+
+    public LinkInjector(URI baseUri) {
+        String baseUriString = baseUri.toString();
+        this.base = baseUriString.endsWith("/") ? baseUriString.substring(0, baseUriString.length() - 1)
+                : baseUriString;
+    }
+
+
+    // Compile the links of the resource classes at startup, so the first requests don't have to
+    public static void precompile(Class<?>... resourceClasses) {
+        for (Class<?> resourceClass : resourceClasses) {
+            LINKS_OF_CLASS.computeIfAbsent(resourceClass, LinkInjector::findLinks);
+        }
+    }
+
+
+    // Set every link of the resource
+    public void inject(Object resource) {
+        for (InjectedLink injectedLink : LINKS_OF_CLASS.computeIfAbsent(resource.getClass(),
+                LinkInjector::findLinks)) {
+            injectedLink.inject(resource, base);
+        }
+    }
+
+
+
+    // Additional methods:
+
+    private static List<InjectedLink> findLinks(Class<?> resourceClass) {
+        List<InjectedLink> injectedLinks = new ArrayList<>();
+        for (Class<?> c = resourceClass; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                InjectLink injectLink = field.getAnnotation(InjectLink.class);
+                if (injectLink != null && field.getType() == Link.class) {
+                    injectedLinks.add(new InjectedLink(field, new LinkTemplate(injectLink, resourceClass)));
+                }
+            }
+        }
+        return injectedLinks;
+    }
+
+
+
+    // Additional classes:
+
+    // One link field of a class with its compiled template
+    private static class InjectedLink {
+        private final Field field;
+        private final LinkTemplate template;
+
+        InjectedLink(Field field, LinkTemplate template) {
+            this.field = field;
+            this.field.setAccessible(true);
+            this.template = template;
+        }
+
+        void inject(Object resource, String base) {
+            try {
+                field.set(resource, new TemplateLink(template, base, resource));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Could not inject the link " + template.getRel(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package de.fhws.fiw.pvs.exam.linkconverter;
+
+import org.glassfish.jersey.linking.InjectLink;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// An @InjectLink template (only ${instance.x} expressions) compiled for one class: its fixed parts and a getter per
+// expression. The getters are generated as Functions, so rendering a link is plain string appending without any
+// reflection or UriBuilder
+public class LinkTemplate {
+    private static final Pattern INSTANCE_PROPERTY = Pattern.compile("\\$\\{instance\\.(\\w+)}");
+    private static final String UNRESERVED = "-._~!$&'()*+,;=:@";
+
+    private final String rel;
+    private final String type;
+    private final List<String> fixedParts = new ArrayList<>();
+    private final List<Function<Object, Object>> getters = new ArrayList<>();
+
+
+    LinkTemplate(InjectLink injectLink, Class<?> resourceClass) {
+        this.rel = injectLink.rel();
+        this.type = injectLink.type().isEmpty() ? null : injectLink.type();
+
+        String value = injectLink.value().startsWith("/") ? injectLink.value() : "/" + injectLink.value();
+        Matcher matcher = INSTANCE_PROPERTY.matcher(value);
+        int end = 0;
+        while (matcher.find()) {
+            fixedParts.add(value.substring(end, matcher.start()));
+            getters.add(compileGetter(resourceClass, matcher.group(1)));
+            end = matcher.end();
+        }
+        fixedParts.add(value.substring(end));
+    }
+
+
+    // The absolute href of the link of the resource. The base has to be without a trailing slash
+    public String render(String base, Object resource) {
+        StringBuilder href = new StringBuilder(base.length() + 48).append(base).append(fixedParts.get(0));
+        for (int i = 0; i < getters.size(); i++) {
+            appendPathSegment(href, String.valueOf(getters.get(i).apply(resource)));
+            href.append(fixedParts.get(i + 1));
+        }
+        return href.toString();
+    }
+
+
+    public String getRel() {
+        return rel;
+    }
+
+    // Null if the template has no type
+    public String getType() {
+        return type;
+    }
+
+
+
+    // Additional methods:
+
+    // Ids are hex strings and are appended as they are, anything else is percent-encoded like UriBuilder.path does
+    private static void appendPathSegment(StringBuilder href, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 128 && (Character.isLetterOrDigit(c) || UNRESERVED.indexOf(c) >= 0)) {
+                href.append(c);
+            } else {
+                for (byte b : String.valueOf(c).getBytes(StandardCharsets.UTF_8)) {
+                    href.append('%').append(Character.toUpperCase(Character.forDigit((b >> 4) & 0xF, 16)))
+                            .append(Character.toUpperCase(Character.forDigit(b & 0xF, 16)));
+                }
+            }
+        }
+    }
+
+
+    // Generate a Function that calls the getter of the property directly
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> compileGetter(Class<?> resourceClass, String property) {
+        Method getter = getterOf(resourceClass, property);
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflect(getter);
+            CallSite callSite = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class), handle, handle.type().wrap());
+            return (Function<Object, Object>) callSite.getTarget().invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not compile the getter of " + property, e);
+        }
+    }
+
+
+    private static Method getterOf(Class<?> resourceClass, String property) {
+        try {
+            for (PropertyDescriptor descriptor : Introspector.getBeanInfo(resourceClass).getPropertyDescriptors()) {
+                if (descriptor.getName().equals(property) && descriptor.getReadMethod() != null) {
+                    return descriptor.getReadMethod();
+                }
+            }
+        } catch (IntrospectionException e) {
+            throw new IllegalStateException(e);
+        }
+        throw new IllegalStateException("No getter for " + property + " in " + resourceClass.getName());
+    }
+}
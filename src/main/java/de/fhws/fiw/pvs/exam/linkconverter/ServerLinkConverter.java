@@ -17,7 +17,9 @@ public class ServerLinkConverter implements Converter<Link> {
     public void serialize(Link link, ObjectWriter objectWriter, Context context) {
         objectWriter.writeName(link.getRel());
         objectWriter.beginObject();
-        objectWriter.writeString("href", link.getUri().toASCIIString());
+        // A TemplateLink writes its href string directly, without building a URI first
+        objectWriter.writeString("href", link instanceof TemplateLink ? ((TemplateLink) link).getHref()
+                : link.getUri().toASCIIString());
         objectWriter.writeString("rel", link.getRel());
 
         if (link.getType() != null && !link.getType().isEmpty()) {
@@ -0,0 +1,94 @@
+package de.fhws.fiw.pvs.exam.linkconverter;
+
+import javax.ws.rs.core.Link;
+import javax.ws.rs.core.UriBuilder;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// A link of a resource that is only rendered from its template when it is written. The ServerLinkConverter writes
+// the href string as it is, the URI and a complete Link are only built if somebody asks for them
+public class TemplateLink extends Link {
+    private final LinkTemplate template;
+    private final String base;
+    private final Object resource;
+    private String href;
+    private Link link;
+
+
+    TemplateLink(LinkTemplate template, String base, Object resource) {
+        this.template = template;
+        this.base = base;
+        this.resource = resource;
+    }
+
+
+    // Rendered once, the resource doesn't change its id while it is written
+    public String getHref() {
+        if (href == null) {
+            href = template.render(base, resource);
+        }
+        return href;
+    }
+
+
+    @Override
+    public URI getUri() {
+        return URI.create(getHref());
+    }
+
+    @Override
+    public UriBuilder getUriBuilder() {
+        return UriBuilder.fromUri(getHref());
+    }
+
+    @Override
+    public String getRel() {
+        return template.getRel();
+    }
+
+    @Override
+    public List<String> getRels() {
+        return Collections.singletonList(template.getRel());
+    }
+
+    @Override
+    public String getTitle() {
+        return null;
+    }
+
+    @Override
+    public String getType() {
+        return template.getType();
+    }
+
+    @Override
+    public Map<String, String> getParams() {
+        Map<String, String> params = new HashMap<>();
+        params.put(REL, template.getRel());
+        if (template.getType() != null) {
+            params.put(TYPE, template.getType());
+        }
+        return params;
+    }
+
+    // The Link header form
+    @Override
+    public String toString() {
+        if (link == null) {
+            Link.Builder builder = Link.fromUri(getHref()).rel(template.getRel());
+            if (template.getType() != null) {
+                builder.type(template.getType());
+            }
+            link = builder.build();
+        }
+        return link.toString();
+    }
+}
@@ -1,6 +1,9 @@
 package de.fhws.fiw.pvs.exam.paging;
 
+import de.fhws.fiw.pvs.exam.configuration.Configuration;
+
 import javax.ws.rs.core.Link;
+import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
 /***
@@ -9,16 +12,34 @@ import javax.ws.rs.core.UriInfo;
 
 
 public class Pagination {
+    private static final int MAXIMUM_SIZE = Configuration.getInt("softskills.paging.maximumSize", 200);
+
+
+    public static int getMaximumSize() {
+        return MAXIMUM_SIZE;
+    }
+
+    // Cap the size a client asks for, no size (or 0) means the biggest page the server hands out
+    public static int limitSize(int size) {
+        return size <= 0 || size > MAXIMUM_SIZE ? MAXIMUM_SIZE : size;
+    }
+
     // Create the pagination which creates all links and returns an array of all the links
     public static Link[] createPagination(UriInfo uriInfo, int size, int offset, int amountOfResources, String name,
                                           Link linkForPost) {
+        return createPagination(uriInfo, size, offset, amountOfResources, "name", name, linkForPost);
+    }
+
+    // Same as above, but the value is carried along in the query parameter queryParamName (e.g. "q" of a search)
+    public static Link[] createPagination(UriInfo uriInfo, int size, int offset, int amountOfResources,
+                                          String queryParamName, String name, Link linkForPost) {
         size = checkSize(size);
         offset = checkOffset(offset, amountOfResources);
 
 
-        Link previousPage = createPreviousPage(uriInfo, name, offset, size);
-        Link thisPage = createThisPage(uriInfo, name, offset, size);
-        Link nextPage = createNextPage(uriInfo, name, offset, size, amountOfResources);
+        Link previousPage = createPreviousPage(uriInfo, queryParamName, name, offset, size);
+        Link thisPage = createThisPage(uriInfo, queryParamName, name, offset, size);
+        Link nextPage = createNextPage(uriInfo, queryParamName, name, offset, size, amountOfResources);
 
         return getLinkArray(linkForPost, previousPage, thisPage, nextPage);
     }
@@ -38,49 +59,51 @@ public class Pagination {
 
 
     // Create the header link for the previous page
-    private static Link createPreviousPage(UriInfo uriInfo, String name, int offset, int size) {
+    private static Link createPreviousPage(UriInfo uriInfo, String queryParamName, String name, int offset,
+                                           int size) {
         if (offset == 0 || size == 0) {
             return null;
         } else if ((offset - size) <= 0){
-            return createLink(uriInfo, "previousPage", name, 0, offset);
+            return createLink(uriInfo, "previousPage", queryParamName, name, 0, offset);
         } else {
-            return createLink(uriInfo, "previousPage", name, (offset - size), size);
+            return createLink(uriInfo, "previousPage", queryParamName, name, (offset - size), size);
         }
     }
 
 
     // Create the header link for the self page
-    private static Link createThisPage(UriInfo uriInfo, String name, int offset, int size) {
-        return createLink(uriInfo, "selfPage", name, offset, size);
+    private static Link createThisPage(UriInfo uriInfo, String queryParamName, String name, int offset, int size) {
+        return createLink(uriInfo, "selfPage", queryParamName, name, offset, size);
     }
 
 
     // Create the header link for the next page
-    private static Link createNextPage(UriInfo uriInfo, String name, int offset, int size,
+    private static Link createNextPage(UriInfo uriInfo, String queryParamName, String name, int offset, int size,
                                        int amountOfResources) {
         if ((offset + size) >= amountOfResources) {
             return null;
         } else if ((offset + size * 2) > amountOfResources) {
-            return createLink(uriInfo, "nextPage", name, (offset + size), (amountOfResources - (offset + size)));
+            return createLink(uriInfo, "nextPage", queryParamName, name, (offset + size),
+                    (amountOfResources - (offset + size)));
         } else {
-            return createLink(uriInfo, "nextPage", name, (offset + size), size);
+            return createLink(uriInfo, "nextPage", queryParamName, name, (offset + size), size);
         }
     }
 
 
-    // Template to create a link
-    private static Link createLink(UriInfo uriInfo, String rel, String name, int offset, int size) {
-        if (name.equals("")) {
-            return Link.fromUri(uriInfo.getAbsolutePath() + "?offset=" + offset + "&size=" + size)
-                    .rel(rel)
-                    .type("application/json")
-                    .build();
-        } else {
-            return Link.fromUri(uriInfo.getAbsolutePath() + "?name=" + name + "&offset=" + offset + "&size=" + size)
-                    .rel(rel)
-                    .type("application/json")
-                    .build();
+    // Template to create a link. The value is passed as the value of a template parameter, so the builder encodes
+    // all of it. Passed to queryParam itself a "{" of a search query would be taken as a template and a "%" would be
+    // left as it is
+    private static Link createLink(UriInfo uriInfo, String rel, String queryParamName, String name, int offset,
+                                   int size) {
+        UriBuilder uriBuilder = UriBuilder.fromUri(uriInfo.getAbsolutePath());
+        if (!name.equals("")) {
+            uriBuilder.queryParam(queryParamName, "{value}");
         }
+        return Link.fromUri(uriBuilder.queryParam("offset", offset).queryParam("size", size).build(name))
+                .rel(rel)
+                .type("application/json")
+                .build();
     }
 
 
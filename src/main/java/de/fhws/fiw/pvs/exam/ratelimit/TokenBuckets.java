@@ -0,0 +1,72 @@
+package de.fhws.fiw.pvs.exam.ratelimit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// One token bucket per key (e.g. per user) that refills at a fixed rate up to its capacity. A bucket is a single
+// AtomicLong: the time at which it will be full again. Taking a token moves that time one refill interval further,
+// and if it would then lie more than the whole capacity in the future the bucket is empty. So taking a token is one
+// compareAndSet without any lock. The buckets are spread over stripes by the hash of their key, a stripe that has
+// too many buckets drops the ones that are full (they are the same as a new bucket)
+public class TokenBuckets {
+    private static final int STRIPES = 64;
+
+    private final long nanosPerToken;
+    private final long capacityNanos;
+    private final int maximumBucketsPerStripe;
+    private final List<ConcurrentHashMap<String, AtomicLong>> stripes = new ArrayList<>(STRIPES);
+
+
+    public TokenBuckets(double tokensPerSecond, int capacity, int maximumBuckets) {
+        this.nanosPerToken = (long) (1_000_000_000L / Math.max(tokensPerSecond, 0.001));
+        this.capacityNanos = nanosPerToken * Math.max(capacity, 1);
+        this.maximumBucketsPerStripe = Math.max(maximumBuckets / STRIPES, 1);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes.add(new ConcurrentHashMap<>());
+        }
+    }
+
+
+    // Take a token from the bucket of the key. Returns 0 if there was one, otherwise the nanoseconds until there is
+    public long tryTake(String key) {
+        long now = System.nanoTime();
+        ConcurrentHashMap<String, AtomicLong> stripe = stripes.get((key.hashCode() & Integer.MAX_VALUE) % STRIPES);
+
+        AtomicLong fullAt = stripe.get(key);
+        if (fullAt == null) {
+            if (stripe.size() >= maximumBucketsPerStripe) {
+                dropFullBuckets(stripe, now);
+            }
+            fullAt = stripe.computeIfAbsent(key, newKey -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long current = fullAt.get();
+            // A bucket that has been full for a while is just full, it doesn't save up tokens
+            long next = (current - now > 0 ? current : now) + nanosPerToken;
+            long overdrawn = next - now - capacityNanos;
+            if (overdrawn > 0) {
+                return overdrawn;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+
+
+    // Additional methods:
+
+    // A bucket that is being dropped while a request takes from it only costs that request's token
+    private static void dropFullBuckets(ConcurrentHashMap<String, AtomicLong> stripe, long now) {
+        stripe.values().removeIf(fullAt -> fullAt.get() - now <= 0);
+    }
+}
@@ -0,0 +1,78 @@
+package de.fhws.fiw.pvs.exam.resources;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// A course or event that has been created, updated or deleted, see GET /changes
+@XmlRootElement
+public class Change {
+    public static final String COURSE = "course";
+    public static final String EVENT = "event";
+
+    // "course" or "event"
+    private String type;
+    private String id;
+    // A tombstone: the resource is gone, course and event are null
+    private boolean deleted;
+    // The resource as it is now, only the one that matches the type is set
+    private Course course;
+    private Event event;
+
+
+    public Change() {}
+
+    public Change(String type, String id, boolean deleted) {
+        this.type = type;
+        this.id = id;
+        this.deleted = deleted;
+    }
+
+    // Getter: Type
+    public String getType() {
+        return type;
+    }
+    // Setter: Type
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    // Getter: Id
+    public String getId() {
+        return id;
+    }
+    // Setter: Id
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    // Getter: Deleted
+    public boolean isDeleted() {
+        return deleted;
+    }
+    // Setter: Deleted
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    // Getter: Course
+    public Course getCourse() {
+        return course;
+    }
+    // Setter: Course
+    public void setCourse(Course course) {
+        this.course = course;
+    }
+
+    // Getter: Event
+    public Event getEvent() {
+        return event;
+    }
+    // Setter: Event
+    public void setEvent(Event event) {
+        this.event = event;
+    }
+}
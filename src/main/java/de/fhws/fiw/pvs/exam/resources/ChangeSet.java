@@ -0,0 +1,49 @@
+package de.fhws.fiw.pvs.exam.resources;
+
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// The changes since a token, oldest first, and the token to ask for the next ones
+@XmlRootElement
+public class ChangeSet {
+    private List<Change> changes = new ArrayList<>();
+    private String token;
+    // There are more changes after this token already, ask again right away
+    private boolean moreAvailable;
+
+
+    public ChangeSet() {}
+
+    // Getter: Changes
+    public List<Change> getChanges() {
+        return changes;
+    }
+    // Setter: Changes
+    public void setChanges(List<Change> changes) {
+        this.changes = changes;
+    }
+
+    // Getter: Token
+    public String getToken() {
+        return token;
+    }
+    // Setter: Token
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    // Getter: MoreAvailable
+    public boolean isMoreAvailable() {
+        return moreAvailable;
+    }
+    // Setter: MoreAvailable
+    public void setMoreAvailable(boolean moreAvailable) {
+        this.moreAvailable = moreAvailable;
+    }
+}
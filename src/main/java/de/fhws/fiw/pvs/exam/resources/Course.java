@@ -17,6 +17,8 @@ import javax.xml.bind.annotation.XmlRootElement;
 public class Course {
     @BsonId
     private String hashId;
+    // Increased by every write, it is the ETag of the resource
+    private long version;
     private String courseName;
     private String courseDescription;
     private int maximumStudents;
@@ -49,6 +51,15 @@ public class Course {
         this.hashId = hashId;
     }
 
+    // Getter: Version
+    public long getVersion() {
+        return version;
+    }
+    // Setter: Version
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     // Getter: CourseName
     public String getCourseName() {
         return courseName;
@@ -0,0 +1,27 @@
+package de.fhws.fiw.pvs.exam.resources;
+
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+@XmlRootElement
+public class CourseWithEvents extends Course {
+    private List<Event> embeddedEvents = new ArrayList<>();
+
+
+    public CourseWithEvents() {}
+
+    // Getter: EmbeddedEvents
+    public List<Event> getEmbeddedEvents() {
+        return embeddedEvents;
+    }
+    // Setter: EmbeddedEvents
+    public void setEmbeddedEvents(List<Event> embeddedEvents) {
+        this.embeddedEvents = embeddedEvents;
+    }
+}
@@ -19,12 +19,17 @@ import java.util.Set;
 public class Event {
     @BsonId
     private String hashId;
+    // Increased by every write, it is the ETag of the resource
+    private long version;
     // Time formatting: yyyy-MM-dd--HH-mm-ss
     private String startTime;
     // Time formatting: yyyy-MM-dd--HH-mm-ss
     private String endTime;
     private String courseId;
     private Set<String> signedUpStudents;
+    // Copies kept next to the set, so a capacity check never has to load the whole set or the course
+    private int signedUpCount;
+    private int maximumStudents;
     @InjectLink(style = InjectLink.Style.ABSOLUTE, value = "/courses/${instance.courseId}", rel = "courseLink",
             type = "application/json")
     private Link courseLink;
@@ -53,6 +58,15 @@ public class Event {
         this.hashId = hashId;
     }
 
+    // Getter: Version
+    public long getVersion() {
+        return version;
+    }
+    // Setter: Version
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     // Getter: StartTime
     public String getStartTime() {
         return startTime;
@@ -89,6 +103,24 @@ public class Event {
         this.signedUpStudents = signedUpStudents;
     }
 
+    // Getter: SignedUpCount
+    public int getSignedUpCount() {
+        return signedUpCount;
+    }
+    // Setter: SignedUpCount
+    public void setSignedUpCount(int signedUpCount) {
+        this.signedUpCount = signedUpCount;
+    }
+
+    // Getter: MaximumStudents
+    public int getMaximumStudents() {
+        return maximumStudents;
+    }
+    // Setter: MaximumStudents
+    public void setMaximumStudents(int maximumStudents) {
+        this.maximumStudents = maximumStudents;
+    }
+
     // Sign up a student by his cn
     public void joinEvent(String cn) {
         this.signedUpStudents.add(cn);
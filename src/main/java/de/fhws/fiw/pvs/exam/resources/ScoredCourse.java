@@ -0,0 +1,26 @@
+package de.fhws.fiw.pvs.exam.resources;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+@XmlRootElement
+public class ScoredCourse extends Course {
+    // Relevance of the course for a search, the higher the better
+    private double score;
+
+
+    public ScoredCourse() {}
+
+    // Getter: Score
+    public double getScore() {
+        return score;
+    }
+    // Setter: Score
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
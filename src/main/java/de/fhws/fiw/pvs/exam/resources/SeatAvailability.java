@@ -0,0 +1,71 @@
+package de.fhws.fiw.pvs.exam.resources;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// The seats of an event as they are pushed to the clients of the seat streams
+@XmlRootElement
+public class SeatAvailability {
+    private String eventId;
+    private String courseId;
+    private int signedUpCount;
+    private int maximumStudents;
+
+
+    public SeatAvailability() {}
+
+    public SeatAvailability(Event event) {
+        this.eventId = event.getHashId();
+        this.courseId = event.getCourseId();
+        this.signedUpCount = event.getSignedUpCount();
+        this.maximumStudents = event.getMaximumStudents();
+    }
+
+    // Getter: EventId
+    public String getEventId() {
+        return eventId;
+    }
+    // Setter: EventId
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    // Getter: CourseId
+    public String getCourseId() {
+        return courseId;
+    }
+    // Setter: CourseId
+    public void setCourseId(String courseId) {
+        this.courseId = courseId;
+    }
+
+    // Getter: SignedUpCount
+    public int getSignedUpCount() {
+        return signedUpCount;
+    }
+    // Setter: SignedUpCount
+    public void setSignedUpCount(int signedUpCount) {
+        this.signedUpCount = signedUpCount;
+    }
+
+    // Getter: MaximumStudents
+    public int getMaximumStudents() {
+        return maximumStudents;
+    }
+    // Setter: MaximumStudents
+    public void setMaximumStudents(int maximumStudents) {
+        this.maximumStudents = maximumStudents;
+    }
+
+    // Getter: FreeSeats
+    public int getFreeSeats() {
+        return Math.max(maximumStudents - signedUpCount, 0);
+    }
+    // Setter: FreeSeats, only there for the JSON/XML readers, the free seats are always computed
+    public void setFreeSeats(int freeSeats) {
+    }
+}
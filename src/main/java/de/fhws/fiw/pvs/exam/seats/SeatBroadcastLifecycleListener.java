@@ -0,0 +1,25 @@
+package de.fhws.fiw.pvs.exam.seats;
+
+import org.glassfish.jersey.server.spi.Container;
+import org.glassfish.jersey.server.spi.ContainerLifecycleListener;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class SeatBroadcastLifecycleListener implements ContainerLifecycleListener {
+    @Override
+    public void onStartup(Container container) {
+    }
+
+    @Override
+    public void onReload(Container container) {
+    }
+
+    // End the seat streams, they would keep the server from stopping otherwise
+    @Override
+    public void onShutdown(Container container) {
+        SeatBroadcasts.shutdown();
+    }
+}
@@ -0,0 +1,226 @@
+package de.fhws.fiw.pvs.exam.seats;
+
+import de.fhws.fiw.pvs.exam.configuration.Configuration;
+import de.fhws.fiw.pvs.exam.database.DAOFactory;
+import de.fhws.fiw.pvs.exam.database.dao.EventDAO;
+import de.fhws.fiw.pvs.exam.resources.Event;
+import de.fhws.fiw.pvs.exam.resources.SeatAvailability;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Pushes the seats of events to the clients of the seat streams. There is one channel per event and per course, no
+// matter how many clients listen to it. A sign-up or leave only marks its event as changed, the changes are sent
+// at most once per interval: a burst of sign-ups is read from the database once and reaches every client as one
+// update per event
+public class SeatBroadcasts {
+    public static final String EVENT_NAME = "seats";
+    private static final long MINIMUM_INTERVAL_MILLIS = Configuration.getLong(
+            "softskills.seats.stream.minimumIntervalMillis", 1000);
+    // Clients that have gone away are only noticed when something is written to them
+    private static final long HEARTBEAT_SECONDS = Configuration.getLong("softskills.seats.stream.heartbeatSeconds",
+            30);
+    private static final String EVENT_CHANNEL = "events/";
+    private static final String COURSE_CHANNEL = "courses/";
+
+    private static final Map<String, SeatChannel> CHANNELS = new ConcurrentHashMap<>();
+    private static final Set<String> CHANGED_EVENTS = ConcurrentHashMap.newKeySet();
+    private static final Set<String> CHANGED_COURSES = ConcurrentHashMap.newKeySet();
+    private static final AtomicBoolean FLUSH_SCHEDULED = new AtomicBoolean();
+    private static volatile long lastFlushAt = 0;
+    private static volatile Sse sse;
+    // The flushes and the first updates of new clients run one after the other, so a client never gets an older
+    // state after a newer one
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "seat-broadcasts");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        SCHEDULER.scheduleAtFixedRate(SeatBroadcasts::sendHeartbeats, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+
+    // Stream the seats of an event to the client, starting with the current ones
+    public static void subscribeToEvent(Sse sse, SseEventSink sink, String eventId) {
+        subscribe(sse, sink, EVENT_CHANNEL + eventId,
+                () -> Database.EVENTS.getSeats(Collections.singleton(eventId), Collections.emptySet()));
+    }
+
+
+    // Stream the seats of every event of a course to the client, starting with the current ones
+    public static void subscribeToCourse(Sse sse, SseEventSink sink, String courseId) {
+        subscribe(sse, sink, COURSE_CHANNEL + courseId,
+                () -> Database.EVENTS.getSeats(Collections.emptySet(), Collections.singleton(courseId)));
+    }
+
+
+    // The seats of an event have (maybe) changed. Called after the write, nothing happens without any clients
+    public static void eventChanged(String eventId) {
+        if (!CHANNELS.isEmpty()) {
+            CHANGED_EVENTS.add(eventId);
+            scheduleFlush();
+        }
+    }
+
+
+    // The capacity of the events of a course has changed
+    public static void courseChanged(String courseId) {
+        if (!CHANNELS.isEmpty()) {
+            CHANGED_COURSES.add(courseId);
+            scheduleFlush();
+        }
+    }
+
+
+    // The streams of a deleted event end, a client that reconnects gets 404
+    public static void eventDeleted(String eventId) {
+        close(EVENT_CHANNEL + eventId);
+    }
+
+
+    public static void courseDeleted(String courseId) {
+        close(COURSE_CHANNEL + courseId);
+    }
+
+
+    // End every stream, the clients reconnect to another server instance
+    public static void shutdown() {
+        SCHEDULER.shutdownNow();
+        for (String key : CHANNELS.keySet()) {
+            close(key);
+        }
+    }
+
+
+
+    // Additional methods:
+
+    private static void subscribe(Sse sse, SseEventSink sink, String key, Supplier<List<Event>> currentSeats) {
+        SeatBroadcasts.sse = sse;
+        CHANNELS.compute(key, (channelKey, channel) -> {
+            SeatChannel subscribedChannel = channel == null ? new SeatChannel(sse) : channel;
+            subscribedChannel.subscribe(sink);
+            return subscribedChannel;
+        });
+
+        SCHEDULER.execute(() -> {
+            try {
+                for (Event event : currentSeats.get()) {
+                    sink.send(seatsEvent(event));
+                }
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+
+    // The next flush runs when the interval since the last one is over, the changes until then go into it as well
+    private static void scheduleFlush() {
+        if (FLUSH_SCHEDULED.compareAndSet(false, true)) {
+            long delay = Math.max(0, lastFlushAt + MINIMUM_INTERVAL_MILLIS - System.currentTimeMillis());
+            SCHEDULER.schedule(SeatBroadcasts::flush, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+
+    // Read the seats of all changed events with one query and send each of them to its event and course channel
+    private static void flush() {
+        FLUSH_SCHEDULED.set(false);
+        lastFlushAt = System.currentTimeMillis();
+        Set<String> eventIds = drain(CHANGED_EVENTS);
+        Set<String> courseIds = drain(CHANGED_COURSES);
+        if (eventIds.isEmpty() && courseIds.isEmpty()) {
+            return;
+        }
+
+        try {
+            for (Event event : Database.EVENTS.getSeats(eventIds, courseIds)) {
+                OutboundSseEvent seatsEvent = seatsEvent(event);
+                broadcast(EVENT_CHANNEL + event.getHashId(), seatsEvent);
+                broadcast(COURSE_CHANNEL + event.getCourseId(), seatsEvent);
+            }
+        } catch (RuntimeException e) {
+            // The database is not reachable, the next change sends the current seats again
+            e.printStackTrace();
+        }
+    }
+
+
+    // Channels without clients are closed, the others get a comment to find out about the clients that are gone
+    private static void sendHeartbeats() {
+        for (String key : CHANNELS.keySet()) {
+            SeatChannel remainingChannel = CHANNELS.computeIfPresent(key,
+                    (channelKey, channel) -> channel.hasSubscribers() ? channel : null);
+            if (remainingChannel != null) {
+                remainingChannel.broadcast(sse.newEventBuilder().comment("heartbeat").build());
+            }
+        }
+    }
+
+
+    private static void broadcast(String key, OutboundSseEvent event) {
+        SeatChannel channel = CHANNELS.get(key);
+        if (channel != null) {
+            channel.broadcast(event);
+        }
+    }
+
+
+    private static void close(String key) {
+        SeatChannel channel = CHANNELS.remove(key);
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+
+    private static OutboundSseEvent seatsEvent(Event event) {
+        return sse.newEventBuilder()
+                .name(EVENT_NAME)
+                .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                .data(SeatAvailability.class, new SeatAvailability(event))
+                .build();
+    }
+
+
+    private static Set<String> drain(Set<String> changed) {
+        Set<String> drained = new HashSet<>();
+        for (String id : changed) {
+            if (changed.remove(id)) {
+                drained.add(id);
+            }
+        }
+        return drained;
+    }
+
+
+
+    // Additional classes:
+
+    // The DAO is only created with the first stream, the DAOs themselves call into this class
+    private static class Database {
+        private static final EventDAO EVENTS = DAOFactory.createEventDAO();
+    }
+}
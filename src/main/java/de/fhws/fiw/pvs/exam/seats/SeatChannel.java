@@ -0,0 +1,55 @@
+package de.fhws.fiw.pvs.exam.seats;
+
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseBroadcaster;
+import javax.ws.rs.sse.SseEventSink;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// The clients of one seat stream (an event or a course). Every update is written once into the broadcaster, which
+// hands it to all of them
+class SeatChannel {
+    private final SseBroadcaster broadcaster;
+    private final Set<SseEventSink> sinks = ConcurrentHashMap.newKeySet();
+
+
+    SeatChannel(Sse sse) {
+        this.broadcaster = sse.newBroadcaster();
+        this.broadcaster.onClose(sinks::remove);
+        this.broadcaster.onError((sink, throwable) -> sinks.remove(sink));
+    }
+
+
+    void subscribe(SseEventSink sink) {
+        sinks.add(sink);
+        broadcaster.register(sink);
+    }
+
+
+    void broadcast(OutboundSseEvent event) {
+        broadcaster.broadcast(event);
+    }
+
+
+    // Clients that have gone away are only noticed when something is written to them, see the heartbeats
+    boolean hasSubscribers() {
+        sinks.removeIf(SseEventSink::isClosed);
+        return !sinks.isEmpty();
+    }
+
+
+    // Ends the stream of every client
+    void close() {
+        broadcaster.close();
+        for (SseEventSink sink : sinks) {
+            sink.close();
+        }
+        sinks.clear();
+    }
+}
@@ -0,0 +1,77 @@
+package de.fhws.fiw.pvs.exam.service;
+
+import de.fhws.fiw.pvs.exam.authorization.Authorization;
+import de.fhws.fiw.pvs.exam.cbor.CborConverter;
+import de.fhws.fiw.pvs.exam.database.DAOFactory;
+import de.fhws.fiw.pvs.exam.database.ModificationSequence;
+import de.fhws.fiw.pvs.exam.database.dao.ChangeDAO;
+import de.fhws.fiw.pvs.exam.execution.RequestExecutor;
+import de.fhws.fiw.pvs.exam.paging.Pagination;
+import de.fhws.fiw.pvs.exam.resources.ChangeSet;
+import org.bson.BsonTimestamp;
+
+import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.*;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Delta sync for mirrors of the catalog: the courses and events that have been created, updated or deleted since
+// the token of the last sync. Without a token all of them are returned, page by page, so a new mirror starts
+// the same way
+@Path("changes")
+public class ChangeService {
+    protected ChangeDAO changeDatabase = DAOFactory.createChangeDAO();
+
+
+    // Get the changes since a token
+    @GET
+    @Produces({MediaType.APPLICATION_JSON, CborConverter.APPLICATION_CBOR, MediaType.APPLICATION_XML})
+    public void getChanges(@Suspended AsyncResponse asyncResponse,
+                           @QueryParam("since") @DefaultValue("") String since,
+                           @QueryParam("size") @DefaultValue("100") int size,
+                           @HeaderParam("Authorization") @DefaultValue("") String authBody) {
+        RequestExecutor.submit(asyncResponse, () -> {
+            // Check for authorization
+            String[] tokenAndRole = EventService.authorizeUser(authBody);
+
+            // Exit with WWW-Authenticate if wrong creds have been sent or exit with Forbidden if user is student
+            if (tokenAndRole[0].equals("401")) {
+                return Authorization.getWWWAuthenticateResponse("api/softskills/changes");
+            } else if (tokenAndRole[1].equals("student")) {
+                return Authorization.getWrongRoleResponse();
+            }
+
+            // Check for wrong input
+            BsonTimestamp sinceModSeq = since.equals("") ? null : ModificationSequence.fromToken(since);
+            if (!since.equals("") && sinceModSeq == null) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .header("Authorization", "Bearer " + tokenAndRole[0])
+                        .build();
+            }
+
+            // The tombstones of the deletes since then may be gone, the mirror has to start over without a token
+            if (sinceModSeq != null && ModificationSequence.isExpired(sinceModSeq)) {
+                return Response.status(Response.Status.GONE)
+                        .header("Authorization", "Bearer " + tokenAndRole[0])
+                        .build();
+            }
+
+            ChangeSet changeSet = changeDatabase.getChanges(since.equals("") ? null : since,
+                    Pagination.limitSize(size));
+
+            CacheControl cacheControl = new CacheControl();
+            cacheControl.setPrivate(true);
+            cacheControl.setNoStore(true);
+
+            return Response.ok(changeSet)
+                    .header("Authorization", "Bearer " + tokenAndRole[0])
+                    .cacheControl(cacheControl)
+                    .build();
+        });
+    }
+}
@@ -1,21 +1,44 @@
 package de.fhws.fiw.pvs.exam.service;
 
 import de.fhws.fiw.pvs.exam.authorization.Authorization;
+import de.fhws.fiw.pvs.exam.cache.CacheRegion;
+import de.fhws.fiw.pvs.exam.cache.CachedResponse;
+import de.fhws.fiw.pvs.exam.cache.ResponseCache;
+import de.fhws.fiw.pvs.exam.cbor.CborConverter;
+import de.fhws.fiw.pvs.exam.database.CausalSessions;
 import de.fhws.fiw.pvs.exam.database.DAOFactory;
+import de.fhws.fiw.pvs.exam.database.PageManifest;
+import de.fhws.fiw.pvs.exam.database.ResultPage;
 import de.fhws.fiw.pvs.exam.database.dao.EventDAO;
+import de.fhws.fiw.pvs.exam.etag.EntityTags;
+import de.fhws.fiw.pvs.exam.execution.RequestExecutor;
+import de.fhws.fiw.pvs.exam.linkconverter.LinkInjector;
 import de.fhws.fiw.pvs.exam.paging.Pagination;
 import de.fhws.fiw.pvs.exam.database.dao.CourseDAO;
+import org.apache.commons.lang.StringUtils;
 import org.bson.types.ObjectId;
 import de.fhws.fiw.pvs.exam.resources.Course;
+import de.fhws.fiw.pvs.exam.streaming.ListStreamingOutput;
+import de.fhws.fiw.pvs.exam.resources.CourseWithEvents;
 import de.fhws.fiw.pvs.exam.resources.Event;
+import de.fhws.fiw.pvs.exam.resources.ScoredCourse;
+import de.fhws.fiw.pvs.exam.seats.SeatBroadcasts;
 
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.*;
+import javax.ws.rs.ext.Providers;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
 import java.io.IOException;
 import java.net.URI;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 /***
@@ -27,349 +50,601 @@ import java.util.List;
 public class CourseService {
     @Context
     protected UriInfo uriInfo;
+    @Context
+    protected ContainerRequestContext requestContext;
+    @Context
+    protected Providers providers;
     protected CourseDAO courseDatabase = DAOFactory.createCourseDAO();
     protected EventDAO eventDatabase = DAOFactory.createEventDAO();
 
 
-    // Get all courses in the database
+    // Get all courses in the database. With ?q=... the courses are searched by their name and description and come
+    // with a score, sorted by relevance
     @GET
-    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
-    public Response getAllCourses(@QueryParam("courseName") @DefaultValue("") String name,
-                                  @QueryParam("offset") @DefaultValue("0") int offset,
-                                  @QueryParam("size") @DefaultValue("10") int size,
-                                  @HeaderParam("Authorization") @DefaultValue("") String authBody) {
-        // Check for authorization
-        String[] tokenAndRole = authorizeUser(authBody);
-
-        // Exit with WWW-Authenticate if wrong creds have been sent
-        if (tokenAndRole[0].equals("401")) {
-            return Authorization.getWWWAuthenticateResponse("api/softskills/courses");
-        }
-
-        // Get all courses or all courses by specific name from the database
-        List<Course> allCourses;
-        if (name.equals("")) allCourses = courseDatabase.getAll(offset, size);
-        else allCourses = courseDatabase.getByName(name, offset, size);
-
-        // If the offset is bigger than the amount of courses, return an empty list
-        if (offset > allCourses.size()) {
-            allCourses = new ArrayList<>();
-        }
-
-        CacheControl cacheControl = new CacheControl();
-        cacheControl.setMaxAge(86400);
-        cacheControl.setPrivate(true);
-        cacheControl.setNoStore(true);
-
-        // Create the POST and Pagination links
-        Link linkForPost = Link.fromUri(uriInfo.getAbsolutePath())
-                .rel("createNewCourse").type("application/json")
-                .build();
-        Link[] linksForPaginationAndPost = Pagination.createPagination(uriInfo, size, offset, allCourses.size(), name,
-                linkForPost);
+    @Produces({MediaType.APPLICATION_JSON, CborConverter.APPLICATION_CBOR, MediaType.APPLICATION_XML})
+    public void getAllCourses(@Suspended AsyncResponse asyncResponse,
+                              @Context Request request,
+                              @QueryParam("courseName") @DefaultValue("") String name,
+                              @QueryParam("q") @DefaultValue("") String query,
+                              @QueryParam("offset") @DefaultValue("0") int offset,
+                              @QueryParam("size") @DefaultValue("10") int size,
+                              @QueryParam("ids") @DefaultValue("") String ids,
+                              @HeaderParam("Authorization") @DefaultValue("") String authBody) {
+        RequestExecutor.submit(asyncResponse, () -> {
+            // Check for authorization
+            String[] tokenAndRole = authorizeUser(authBody);
+
+            // Exit with WWW-Authenticate if wrong creds have been sent
+            if (tokenAndRole[0].equals("401")) {
+                return Authorization.getWWWAuthenticateResponse("api/softskills/courses");
+            }
+
+            // Serve the response from the cache if nothing has been written since it has been built
+            CachedResponse cachedResponse = ResponseCache.lookup(requestContext, tokenAndRole[1], CacheRegion.COURSES);
+            if (cachedResponse != null) {
+                return cachedResponse.toResponse(request)
+                        .header("Authorization", "Bearer " + tokenAndRole[0])
+                        .build();
+            }
+
+            // Get specific courses by their ids (e.g. a timetable) with one request instead of one per course
+            if (!ids.trim().equals("")) {
+                return getCoursesByIds(request, ids, tokenAndRole);
+            }
+
+            // Search the courses, a search can't be combined with the courseName
+            String trimmedQuery = query.trim();
+            if (!trimmedQuery.equals("")) {
+                return searchCourses(request, trimmedQuery, offset, size, tokenAndRole);
+            }
+
+            // Get all courses or all courses by specific name from the database. A page that is too big to be kept
+            // in memory is only counted here and read again while it is written to the client
+            ResultPage<Course> allCourses = courseDatabase.getPage(name, offset, Pagination.limitSize(size));
+            PageManifest manifest = allCourses.getManifest(Course::getHashId, Course::getVersion);
+
+            // If the offset is bigger than the amount of courses, return an empty list
+            if (offset > manifest.getAmountOfResources()) {
+                allCourses = ResultPage.empty();
+                manifest = PageManifest.empty();
+            }
+
+            CacheControl cacheControl = new CacheControl();
+            cacheControl.setMaxAge(86400);
+            cacheControl.setPrivate(true);
+            cacheControl.setNoStore(true);
+
+            // Answer 304 without a body if the client already has this version (If-None-Match)
+            EntityTag entityTag = manifest.getEntityTag();
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+            if (notModified != null) {
+                return notModified.cacheControl(cacheControl)
+                        .header("Authorization", "Bearer " + tokenAndRole[0])
+                        .build();
+            }
+
+            // Create the POST and Pagination links
+            Link linkForPost = Link.fromUri(uriInfo.getAbsolutePath())
+                    .rel("createNewCourse").type("application/json")
+                    .build();
+            Link[] linksForPaginationAndPost = Pagination.createPagination(uriInfo, Pagination.limitSize(size), offset,
+                    manifest.getAmountOfResources(), name, linkForPost);
 
-        return Response.ok(new GenericEntity<Collection<Course>>(allCourses) {})
-                .links(linksForPaginationAndPost)
-                .header("X-totalAmountOfCourses", allCourses.size())
-                .header("Authorization", "Bearer " + tokenAndRole[0])
-                .cacheControl(cacheControl)
-                .build();
+            return streamList(allCourses, Course.class)
+                    .tag(entityTag)
+                    .links(linksForPaginationAndPost)
+                    .header("X-totalAmountOfCourses", manifest.getAmountOfResources())
+                    .header("Authorization", "Bearer " + tokenAndRole[0])
+                    .cacheControl(cacheControl)
+                    .build();
+        });
     }
 
 
-    // Get specific course by hash-value
+    // Get specific course by hash-value. With ?embed=events the events of the course (optionally only the ones of
+    // from and to, like /courses/{id}/events selects them) are part of the response, so no second request to
+    // /courses/{id}/events is needed
     @GET
     @Path("{courseId}")
-    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
-    public Response getCourseById(@Context Request request,
-                                  @PathParam("courseId") String courseId,
-                                  @HeaderParam("Authorization") @DefaultValue("") String authBody) {
-        // Check for authorization
-        String[] tokenAndRole = authorizeUser(authBody);
-
-        // Exit with WWW-Authenticate if wrong creds have been sent
-        if (tokenAndRole[0].equals("401")) {
-            return Authorization.getWWWAuthenticateResponse("api/softskills/courses");
-        }
+    @Produces({MediaType.APPLICATION_JSON, CborConverter.APPLICATION_CBOR, MediaType.APPLICATION_XML})
+    public void getCourseById(@Suspended AsyncResponse asyncResponse,
+                              @Context Request request,
+                              @PathParam("courseId") String courseId,
+                              @QueryParam("embed") @DefaultValue("") String embed,
+                              @QueryParam("from") @DefaultValue("") String startTime,
+                              @QueryParam("to") @DefaultValue("") String endTime,
+                              @HeaderParam("Authorization") @DefaultValue("") String authBody) {
+        RequestExecutor.submit(asyncResponse, () -> {
+            // Check for authorization
+            String[] tokenAndRole = authorizeUser(authBody);
+
+            // Exit with WWW-Authenticate if wrong creds have been sent
+            if (tokenAndRole[0].equals("401")) {
+                return Authorization.getWWWAuthenticateResponse("api/softskills/courses");
+            }
+
+            // Get the course (and its events if they should be embedded) from the database
+            Course course;
+            if (embed.equals("events")) {
+                String from = StringUtils.trimToNull(startTime);
+                String to = StringUtils.trimToNull(endTime);
+
+                // Check for wrong times
+                boolean deliberateWrongTimesGiven = eventDatabase.timeInWrongFormat(from, null)
+                        || eventDatabase.timeInWrongFormat(null, to)
+                        || eventDatabase.startIsAfterEndOrWrongFormat(from, to);
+                if (deliberateWrongTimesGiven) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .header("Authorization", "Bearer " + tokenAndRole[0])
+                            .build();
+                }
+
+                course = courseDatabase.getByIdWithEvents(courseId, from, to);
+            } else {
+                course = courseDatabase.getById(courseId);
+            }
+
+            // If no course has been found by that id return 404
+            if (course == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .header("Authorization", "Bearer " + tokenAndRole[0])
+                        .build();
+            }
+
+            CacheControl cacheControl = new CacheControl();
+            cacheControl.setMaxAge(86400);
+            cacheControl.setPrivate(true);
+
+            // Answer 304 without a body if the client already has this version (If-None-Match)
+            EntityTag entityTag = course instanceof CourseWithEvents ? EntityTags.of((CourseWithEvents) course)
+                    : EntityTags.of(course.getVersion());
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+            if (notModified != null) {
+                return notModified.cacheControl(cacheControl)
+                        .header("Authorization", "Bearer " + tokenAndRole[0])
+                        .build();
+            }
+
+            // Create the PUT, DELETE and GET links
+            Link linkToPut = Link.fromUri(uriInfo.getAbsolutePath())
+                    .rel("updateSingleCourse").type("application/json")
+                    .build();
+            Link linkToDelete = Link.fromUri(uriInfo.getAbsolutePath())
+                    .rel("deleteSingleCourse").type("application/json")
+                    .build();
+            Link linkToGetAll = Link.fromUri(uriInfo.getBaseUri() + "courses")
+                    .rel("getAllCourses").type("application/json")
+                    .build();
 
-        // If no course has been found by that id return 404
-        if (courseDatabase.isNotInDatabase(courseId)) {
-            return Response.status(Response.Status.NOT_FOUND)
+            return Response.ok(course).links(linkToPut, linkToDelete, linkToGetAll)
+                    .tag(entityTag)
                     .header("Authorization", "Bearer " + tokenAndRole[0])
+                    .cacheControl(cacheControl)
                     .build();
-        }
-
-        // Get the course from the database
-        Course course = courseDatabase.getById(courseId);
-
-        CacheControl cacheControl = new CacheControl();
-        cacheControl.setMaxAge(86400);
-        cacheControl.setPrivate(true);
-
-        // Create the PUT, DELETE and GET links
-        Link linkToPut = Link.fromUri(uriInfo.getAbsolutePath())
-                .rel("updateSingleCourse").type("application/json")
-                .build();
-        Link linkToDelete = Link.fromUri(uriInfo.getAbsolutePath())
-                .rel("deleteSingleCourse").type("application/json")
-                .build();
-        Link linkToGetAll = Link.fromUri(uriInfo.getBaseUri() + "courses")
-                .rel("getAllCourses").type("application/json")
-                .build();
-
-        return Response.ok(course).links(linkToPut, linkToDelete, linkToGetAll)
-                .header("Authorization", "Bearer " + tokenAndRole[0])
-                .cacheControl(cacheControl)
-                .build();
+        });
     }
 
 
     // Get events of a specific course
     @GET
     @Path("{courseId}/events")
-    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
-    public Response getAllEventsOfSpecificCourse(@PathParam("courseId") String courseId,
-                                                 @QueryParam("from") @DefaultValue("") String startTime,
-                                                 @QueryParam("to") @DefaultValue("") String endTime,
-                                                 @QueryParam("offset") @DefaultValue("0") int offset,
-                                                 @QueryParam("size") @DefaultValue("10") int size,
-                                                 @HeaderParam("Authorization") @DefaultValue("") String authBody) {
-        // Check for authorization
-        String[] tokenAndRole = authorizeUser(authBody);
-
-        // Exit with WWW-Authenticate if wrong creds have been sent
-        if (tokenAndRole[0].equals("401")) {
-            return Authorization.getWWWAuthenticateResponse("api/softskills/courses");
-        }
-
-        // Get all courses in the timeFrame
-        List<Event> allEvents;
-        if (startTime.equals("") && endTime.equals("")) {
-            allEvents = eventDatabase.getAll(offset, size);
-        } else if (eventDatabase.startIsAfterEndOrWrongFormat(startTime, endTime)) {
-            allEvents = new ArrayList<>();
-        } else if (startTime.equals("")) {
-            allEvents = eventDatabase.getByEndTime(endTime, offset, size);
-        } else if (endTime.equals("")) {
-            allEvents = eventDatabase.getByStartTime(startTime, offset, size);
-        } else {
-            allEvents = eventDatabase.getByTimeframe(startTime, endTime, offset, size);
-        }
-
-        // Only include events with the specific course
-        List<Event> allEventsWithSpecificCourse = eventDatabase.filterListForSpecificCourse(allEvents,
-                courseId);
+    @Produces({MediaType.APPLICATION_JSON, CborConverter.APPLICATION_CBOR, MediaType.APPLICATION_XML})
+    public void getAllEventsOfSpecificCourse(@Suspended AsyncResponse asyncResponse,
+                                             @Context Request request,
+                                             @PathParam("courseId") String courseId,
+                                             @QueryParam("from") @DefaultValue("") String startTime,
+                                             @QueryParam("to") @DefaultValue("") String endTime,
+                                             @QueryParam("offset") @DefaultValue("0") int offset,
+                                             @QueryParam("size") @DefaultValue("10") int size,
+                                             @HeaderParam("Authorization") @DefaultValue("") String authBody) {
+        RequestExecutor.submit(asyncResponse, () -> {
+            // Check for authorization
+            String[] tokenAndRole = authorizeUser(authBody);
+
+            // Exit with WWW-Authenticate if wrong creds have been sent
+            if (tokenAndRole[0].equals("401")) {
+                return Authorization.getWWWAuthenticateResponse("api/softskills/courses");
+            }
+
+            // Serve the response from the cache if nothing has been written since it has been built
+            CachedResponse cachedResponse = ResponseCache.lookup(requestContext, tokenAndRole[1], CacheRegion.EVENTS);
+            if (cachedResponse != null) {
+                return cachedResponse.toResponse(request)
+                        .header("Authorization", "Bearer " + tokenAndRole[0])
+                        .build();
+            }
+
+            // Get the events of the course in the timeFrame. The database filters by the course, so the page is a
+            // page of the events of this course
+            ResultPage<Event> allEventsWithSpecificCourse = eventDatabase.getPage(
+                    StringUtils.defaultIfEmpty(startTime, null), StringUtils.defaultIfEmpty(endTime, null), courseId,
+                    offset, Pagination.limitSize(size));
+            PageManifest manifest = allEventsWithSpecificCourse.getManifest(Event::getHashId,
+                    Event::getVersion);
+
+            // If the offset is bigger than the amount of events, return an empty list
+            if (offset > manifest.getAmountOfResources()) {
+                allEventsWithSpecificCourse = ResultPage.empty();
+                manifest = PageManifest.empty();
+            }
+
+            CacheControl cacheControl = new CacheControl();
+            cacheControl.setMaxAge(86400);
+            cacheControl.setPrivate(true);
+
+            // Answer 304 without a body if the client already has this version (If-None-Match)
+            EntityTag entityTag = manifest.getEntityTag();
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+            if (notModified != null) {
+                return notModified.cacheControl(cacheControl)
+                        .header("Authorization", "Bearer " + tokenAndRole[0])
+                        .build();
+            }
+
+            // Create the POST and Pagination links
+            Link linkForPost = Link.fromUri(uriInfo.getBaseUri() + "events")
+                    .rel("createNewEvent").type("application/json")
+                    .build();
+            Link[] linksForPaginationAndPost = Pagination.createPagination(uriInfo, Pagination.limitSize(size), offset,
+                    manifest.getAmountOfResources(), "", linkForPost);
 
-        // If the offset is bigger than the amount of events, return an empty list
-        if (offset > allEventsWithSpecificCourse.size()) {
-            allEventsWithSpecificCourse = new ArrayList<>();
-        }
+            return streamList(allEventsWithSpecificCourse, Event.class)
+                    .tag(entityTag)
+                    .links(linksForPaginationAndPost)
+                    .header("X-totalAmountOfEvents", manifest.getAmountOfResources())
+                    .header("Authorization", "Bearer " + tokenAndRole[0])
+                    .cacheControl(cacheControl)
+                    .build();
+        });
+    }
 
-        CacheControl cacheControl = new CacheControl();
-        cacheControl.setMaxAge(86400);
-        cacheControl.setPrivate(true);
 
-        // Create the POST and Pagination links
-        Link linkForPost = Link.fromUri(uriInfo.getBaseUri() + "events")
-                .rel("createNewEvent").type("application/json")
-                .build();
-        Link[] linksForPaginationAndPost = Pagination.createPagination(uriInfo, size, offset,
-                allEventsWithSpecificCourse.size(), "", linkForPost);
+    // Get specific event by hash-value
+    @GET
+    @Path("/{courseId}/events/{eventId}")
+    @Produces({MediaType.APPLICATION_JSON, CborConverter.APPLICATION_CBOR, MediaType.APPLICATION_XML})
+    public void getSpecificEventFromSpecificCourse(@Suspended AsyncResponse asyncResponse,
+                                                   @Context Request request,
+                                                   @PathParam("eventId") String eventId,
+                                                   @PathParam("courseId") String courseId,
+                                                   @HeaderParam("Authorization") @DefaultValue("") String authBody) {
+        RequestExecutor.submit(asyncResponse, () -> {
+            // Check for authorization
+            String[] tokenAndRole = authorizeUser(authBody);
+
+            // Exit with WWW-Authenticate if wrong creds have been sent
+            if (tokenAndRole[0].equals("401")) {
+                return Authorization.getWWWAuthenticateResponse("api/softskills/courses");
+            }
+
+            // Get the event from the database
+            Event event = eventDatabase.getByIdWithSpecificCourse(eventId, courseId);
+
+            // If no event has been found return 404
+            if (event == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .header("Authorization", "Bearer " + tokenAndRole[0])
+                        .build();
+            }
+
+            CacheControl cacheControl = new CacheControl();
+            cacheControl.setMaxAge(86400);
+            cacheControl.setPrivate(true);
+
+            // Answer 304 without a body if the client already has this version (If-None-Match)
+            EntityTag entityTag = EntityTags.of(event.getVersion());
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+            if (notModified != null) {
+                return notModified.cacheControl(cacheControl)
+                        .header("Authorization", "Bearer " + tokenAndRole[0])
+                        .build();
+            }
+
+            // Create PUT, DELETE and GET links
+            Link linkToPut = Link.fromUri(uriInfo.getBaseUri() + "events/" + event.getHashId())
+                    .rel("updateSingleEvent").type("application/json")
+                    .build();
+            Link linkToDelete = Link.fromUri(uriInfo.getBaseUri() + "events/" + event.getHashId())
+                    .rel("deleteSingleEvent").type("application/json")
+                    .build();
+            Link linkToGetAll = Link.fromUri(uriInfo.getBaseUri() + "events")
+                    .rel("getAllEvents").type("application/json")
+                    .build();
 
-        return Response.ok(new GenericEntity<Collection<Event>>(allEventsWithSpecificCourse) {})
-                .links(linksForPaginationAndPost)
-                .header("X-totalAmountOfEvents", allEventsWithSpecificCourse.size())
-                .header("Authorization", "Bearer " + tokenAndRole[0])
-                .cacheControl(cacheControl)
-                .build();
+            return Response.ok(event).links(linkToPut, linkToDelete, linkToGetAll)
+                    .tag(entityTag)
+                    .header("Authorization", "Bearer " + tokenAndRole[0])
+                    .cacheControl(cacheControl)
+                    .build();
+        });
     }
 
 
-    // Get specific event by hash-value
+    // Stream the seats of every event of a course as server-sent events, like /events/{id}/seats/stream
     @GET
-    @Path("/{courseId}/events/{eventId}")
-    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
-    public Response getSpecificEventFromSpecificCourse(@Context Request request,
-                                                       @PathParam("eventId") String eventId,
-                                                       @PathParam("courseId") String courseId,
-                                                       @HeaderParam("Authorization") @DefaultValue("") String authBody) {
+    @Path("{courseId}/seats/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void streamSeatsOfCourse(@Context SseEventSink sink,
+                                    @Context Sse sse,
+                                    @PathParam("courseId") String courseId,
+                                    @HeaderParam("Authorization") @DefaultValue("") String authBody) {
         // Check for authorization
         String[] tokenAndRole = authorizeUser(authBody);
 
-        // Exit with WWW-Authenticate if wrong creds have been sent
+        // Exit with WWW-Authenticate if wrong creds have been sent, nothing has been written to the stream yet
         if (tokenAndRole[0].equals("401")) {
-            return Authorization.getWWWAuthenticateResponse("api/softskills/courses");
+            throw new WebApplicationException(Authorization.getWWWAuthenticateResponse("api/softskills/courses"));
         }
 
-        // Get the event from the database
-        Event event = eventDatabase.getByIdWithSpecificCourse(eventId, courseId);
-
-        // If no event has been found return 404
-        if (event == null) {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .header("Authorization", "Bearer " + tokenAndRole[0])
-                    .build();
+        if (courseDatabase.isNotInDatabase(courseId)) {
+            throw new NotFoundException();
         }
 
-        CacheControl cacheControl = new CacheControl();
-        cacheControl.setMaxAge(86400);
-        cacheControl.setPrivate(true);
-
-        // Create PUT, DELETE and GET links
-        Link linkToPut = Link.fromUri(uriInfo.getBaseUri() + "events/" + event.getHashId())
-                .rel("updateSingleEvent").type("application/json")
-                .build();
-        Link linkToDelete = Link.fromUri(uriInfo.getBaseUri() + "events/" + event.getHashId())
-                .rel("deleteSingleEvent").type("application/json")
-                .build();
-        Link linkToGetAll = Link.fromUri(uriInfo.getBaseUri() + "events")
-                .rel("getAllEvents").type("application/json")
-                .build();
-
-        return Response.ok(event).links(linkToPut, linkToDelete, linkToGetAll)
-                .header("Authorization", "Bearer " + tokenAndRole[0])
-                .cacheControl(cacheControl)
-                .build();
+        SeatBroadcasts.subscribeToCourse(sse, sink, courseId);
     }
 
 
     // Create a new course
     @POST
-    @Consumes({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
-    public Response createCourse(Course newCourse,
-                                 @HeaderParam("Authorization") @DefaultValue("") String authBody) {
-        // Check for authorization
-        String[] tokenAndRole = authorizeUser(authBody);
+    @Consumes({MediaType.APPLICATION_JSON, CborConverter.APPLICATION_CBOR, MediaType.APPLICATION_XML})
+    public void createCourse(@Suspended AsyncResponse asyncResponse,
+                             Course newCourse,
+                             @HeaderParam("Authorization") @DefaultValue("") String authBody) {
+        RequestExecutor.submit(asyncResponse, () -> {
+            // Check for authorization
+            String[] tokenAndRole = authorizeUser(authBody);
+
+            // Exit with WWW-Authenticate if wrong creds have been sent or exit with Forbidden if user is student
+            if (tokenAndRole[0].equals("401")) {
+                return Authorization.getWWWAuthenticateResponse("api/softskills/courses");
+            } else if (tokenAndRole[1].equals("student")) {
+                return Authorization.getWrongRoleResponse();
+            }
+
+            // The version is kept by the server, whatever the client has sent
+            newCourse.setVersion(0);
+
+            // Check for wrong input
+            boolean wrongHashIdSet = !ObjectId.isValid(newCourse.getHashId());
+            boolean noInputGiven = newCourse.getCourseName() == null || newCourse.getCourseDescription() == null
+                    || newCourse.getMaximumStudents() == 0;
+            boolean deliberateEmptyCourseNameGiven = newCourse.getCourseName() != null
+                    && newCourse.getCourseName().equals("");
+            boolean deliberateEmptyCourseDescrGiven = newCourse.getCourseDescription() != null
+                    && newCourse.getCourseDescription().equals("");
+            boolean deliberateWrongMaximumStudents = newCourse.getMaximumStudents() < 0;
+
+            if (wrongHashIdSet || noInputGiven || deliberateEmptyCourseNameGiven || deliberateEmptyCourseDescrGiven
+                    || deliberateWrongMaximumStudents) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .header("Authorization", "Bearer " + tokenAndRole[0])
+                        .build();
+            }
+
+            // Insert the course into the database
+            courseDatabase.insertInto(newCourse);
+
+            // Create the header "Location" link
+            URI locationURI = uriInfo.getAbsolutePathBuilder().path(newCourse.getHashId()).build();
+
+            return Response.created(locationURI)
+                    .tag(EntityTags.of(newCourse.getVersion()))
+                    .header("Authorization", "Bearer " + tokenAndRole[0])
+                    .build();
+        });
+    }
 
-        // Exit with WWW-Authenticate if wrong creds have been sent or exit with Forbidden if user is student
-        if (tokenAndRole[0].equals("401")) {
-            return Authorization.getWWWAuthenticateResponse("api/softskills/courses");
-        } else if (tokenAndRole[1].equals("student")) {
-            return Authorization.getWrongRoleResponse();
-        }
 
-        // Check for wrong input
-        boolean wrongHashIdSet = !ObjectId.isValid(newCourse.getHashId());
-        boolean noInputGiven = newCourse.getCourseName() == null || newCourse.getCourseDescription() == null
-                || newCourse.getMaximumStudents() == 0;
-        boolean deliberateEmptyCourseNameGiven = newCourse.getCourseName() != null
-                && newCourse.getCourseName().equals("");
-        boolean deliberateEmptyCourseDescrGiven = newCourse.getCourseDescription() != null
-                && newCourse.getCourseDescription().equals("");
-        boolean deliberateWrongMaximumStudents = newCourse.getMaximumStudents() < 0;
-
-        if (wrongHashIdSet || noInputGiven || deliberateEmptyCourseNameGiven || deliberateEmptyCourseDescrGiven
-                || deliberateWrongMaximumStudents) {
-            return Response.status(Response.Status.BAD_REQUEST)
+    // Update a specific course
+    @PUT
+    @Path("{courseId}")
+    @Consumes({MediaType.APPLICATION_JSON, CborConverter.APPLICATION_CBOR, MediaType.APPLICATION_XML})
+    public void updateCourse(@Suspended AsyncResponse asyncResponse,
+                             @Context Request request,
+                             @PathParam ("courseId") String courseId, Course updatedCourse,
+                             @HeaderParam("If-Match") @DefaultValue("") String ifMatch,
+                             @HeaderParam("Authorization") @DefaultValue("") String authBody) {
+        RequestExecutor.submit(asyncResponse, () -> {
+            // Check for authorization
+            String[] tokenAndRole = authorizeUser(authBody);
+
+            // Exit with WWW-Authenticate if wrong creds have been sent or exit with Forbidden if user is student
+            if (tokenAndRole[0].equals("401")) {
+                return Authorization.getWWWAuthenticateResponse("api/softskills/courses");
+            } else if (tokenAndRole[1].equals("student")) {
+                return Authorization.getWrongRoleResponse();
+            }
+
+            // The version is kept by the server, whatever the client has sent
+            updatedCourse.setVersion(0);
+
+            // Check for wrong input
+            boolean noInputGiven = updatedCourse.getCourseName() == null
+                    && updatedCourse.getCourseDescription() == null && updatedCourse.getMaximumStudents() == 0;
+            boolean deliberateEmptyCourseNameGiven = updatedCourse.getCourseName() != null
+                    && updatedCourse.getCourseName().equals("");
+            boolean deliberateEmptyCourseDescrGiven = updatedCourse.getCourseDescription() != null
+                    && updatedCourse.getCourseDescription().equals("");
+            boolean deliberateWrongMaximumStudents = updatedCourse.getMaximumStudents() < 0;
+
+            if (noInputGiven || deliberateEmptyCourseNameGiven || deliberateEmptyCourseDescrGiven
+                    || deliberateWrongMaximumStudents) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .header("Authorization", "Bearer " + tokenAndRole[0])
+                        .build();
+            } else if (courseDatabase.isNotInDatabase(courseId)) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .header("Authorization", "Bearer " + tokenAndRole[0])
+                        .build();
+            }
+
+            // Update the course in the database. With If-Match only if nobody else has changed it in the meantime
+            Course course = courseDatabase.update(updatedCourse, courseId, EntityTags.versionsOf(ifMatch));
+            if (course == null) {
+                return getFailedWriteResponse(courseId, tokenAndRole);
+            }
+
+            // Create the GET link
+            Link linkToGet = Link.fromUri(uriInfo.getAbsolutePath())
+                    .rel("getSingleCourse").type("application/json")
+                    .build();
+
+            return Response.noContent().links(linkToGet)
+                    .tag(EntityTags.of(course.getVersion()))
                     .header("Authorization", "Bearer " + tokenAndRole[0])
                     .build();
-        }
+        });
+    }
+
 
-        // Insert the course into the database
-        courseDatabase.insertInto(newCourse);
+    // Delete a specific course
+    @DELETE
+    @Path("{courseId}")
+    public void deleteCourse(@Suspended AsyncResponse asyncResponse,
+                             @PathParam ("courseId") String courseId,
+                             @HeaderParam("If-Match") @DefaultValue("") String ifMatch,
+                             @HeaderParam("Authorization") @DefaultValue("") String authBody) {
+        RequestExecutor.submit(asyncResponse, () -> {
+            // Check for authorization
+            String[] tokenAndRole = authorizeUser(authBody);
+
+            // Exit with WWW-Authenticate if wrong creds have been sent
+            if (tokenAndRole[0].equals("401")) {
+                return Authorization.getWWWAuthenticateResponse("api/softskills/courses");
+            } else if (tokenAndRole[1].equals("student")) {
+                return Authorization.getWrongRoleResponse();
+            }
+
+            // If the course can't be found return 404
+            if (courseDatabase.isNotInDatabase(courseId)) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .header("Authorization", "Bearer " + tokenAndRole[0])
+                        .build();
+            }
+
+            // Delete the course from the database. With If-Match only if nobody else has changed it in the meantime
+            if (!courseDatabase.delete(courseId, EntityTags.versionsOf(ifMatch))) {
+                return getFailedWriteResponse(courseId, tokenAndRole);
+            }
+
+            // Create the GET link
+            Link linkToGetAll = Link.fromUri(uriInfo.getBaseUri() + "courses")
+                    .rel("getAllCourses").type("application/json")
+                    .build();
+
+            return Response.noContent().links(linkToGetAll)
+                    .header("Authorization", "Bearer " + tokenAndRole[0])
+                    .build();
+        });
+    }
 
-        // Create the header "Location" link
-        URI locationURI = uriInfo.getAbsolutePathBuilder().path(newCourse.getHashId()).build();
 
-        return Response.created(locationURI)
+    // A write that changed nothing: either the course has been deleted since it was checked (404) or If-Match was
+    // given and somebody else has changed it in the meantime (412)
+    private Response getFailedWriteResponse(String courseId, String[] tokenAndRole) {
+        return Response.status(courseDatabase.isNotInDatabase(courseId) ? Response.Status.NOT_FOUND
+                        : Response.Status.PRECONDITION_FAILED)
                 .header("Authorization", "Bearer " + tokenAndRole[0])
                 .build();
     }
 
 
-    // Update a specific course
-    @PUT
-    @Path("{courseId}")
-    @Consumes({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
-    public Response updateCourse(@Context Request request,
-                                 @PathParam ("courseId") String courseId, Course updatedCourse,
-                                 @HeaderParam("Authorization") @DefaultValue("") String authBody) {
-        // Check for authorization
-        String[] tokenAndRole = authorizeUser(authBody);
+    // Search the courses by the text index and return a page of them, the most relevant first
+    private Response searchCourses(Request request, String query, int offset, int size, String[] tokenAndRole) {
+        ResultPage<ScoredCourse> foundCourses = courseDatabase.searchPage(query, offset, Pagination.limitSize(size));
+        PageManifest manifest = foundCourses.getManifest(Course::getHashId, Course::getVersion);
 
-        // Exit with WWW-Authenticate if wrong creds have been sent or exit with Forbidden if user is student
-        if (tokenAndRole[0].equals("401")) {
-            return Authorization.getWWWAuthenticateResponse("api/softskills/courses");
-        } else if (tokenAndRole[1].equals("student")) {
-            return Authorization.getWrongRoleResponse();
-        }
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setMaxAge(86400);
+        cacheControl.setPrivate(true);
+        cacheControl.setNoStore(true);
 
-        // Check for wrong input
-        boolean noInputGiven = updatedCourse.getCourseName() == null
-                && updatedCourse.getCourseDescription() == null && updatedCourse.getMaximumStudents() == 0;
-        boolean deliberateEmptyCourseNameGiven = updatedCourse.getCourseName() != null
-                && updatedCourse.getCourseName().equals("");
-        boolean deliberateEmptyCourseDescrGiven = updatedCourse.getCourseDescription() != null
-                && updatedCourse.getCourseDescription().equals("");
-        boolean deliberateWrongMaximumStudents = updatedCourse.getMaximumStudents() < 0;
-
-        if (noInputGiven || deliberateEmptyCourseNameGiven || deliberateEmptyCourseDescrGiven
-                || deliberateWrongMaximumStudents) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                    .header("Authorization", "Bearer " + tokenAndRole[0])
-                    .build();
-        } else if (courseDatabase.isNotInDatabase(courseId)) {
-            return Response.status(Response.Status.NOT_FOUND)
+        // Answer 304 without a body if the client already has this version (If-None-Match)
+        EntityTag entityTag = manifest.getEntityTag();
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+        if (notModified != null) {
+            return notModified.cacheControl(cacheControl)
                     .header("Authorization", "Bearer " + tokenAndRole[0])
                     .build();
         }
 
-        // Update the course in the database
-        courseDatabase.update(updatedCourse, courseId);
-
-        // I would love to do a conditional PUT with eTags here, but as mongodb inserts and extracts the POJO's from
-        // the database the hashvalues change. I can't verify the eTags as they are not consistent.
-
-        // Create the GET link
-        Link linkToGet = Link.fromUri(uriInfo.getAbsolutePath())
-                .rel("getSingleCourse").type("application/json")
+        // Create the POST and Pagination links, the pages keep the query
+        Link linkForPost = Link.fromUri(uriInfo.getAbsolutePath())
+                .rel("createNewCourse").type("application/json")
                 .build();
+        Link[] linksForPaginationAndPost = Pagination.createPagination(uriInfo, Pagination.limitSize(size), offset,
+                manifest.getAmountOfResources(), "q", query, linkForPost);
 
-        return Response.noContent().links(linkToGet)
+        return streamList(foundCourses, ScoredCourse.class)
+                .tag(entityTag)
+                .links(linksForPaginationAndPost)
+                .header("X-totalAmountOfCourses", manifest.getAmountOfResources())
                 .header("Authorization", "Bearer " + tokenAndRole[0])
+                .cacheControl(cacheControl)
                 .build();
     }
 
 
-    // Delete a specific course
-    @DELETE
-    @Path("{courseId}")
-    public Response deleteCourse(@PathParam ("courseId") String courseId,
-                                 @HeaderParam("Authorization") @DefaultValue("") String authBody) {
-        // Check for authorization
-        String[] tokenAndRole = authorizeUser(authBody);
+    // Get the courses with the given ids in the order of the ids with one query. The ids that don't exist are listed
+    // in the X-missingIds header
+    private Response getCoursesByIds(Request request, String ids, String[] tokenAndRole) {
+        List<String> requestedIds = new ArrayList<>(new LinkedHashSet<>(Arrays.asList(StringUtils.split(ids, ", "))));
+        if (requestedIds.size() > Pagination.getMaximumSize()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .header("Authorization", "Bearer " + tokenAndRole[0])
+                    .build();
+        }
 
-        // Exit with WWW-Authenticate if wrong creds have been sent
-        if (tokenAndRole[0].equals("401")) {
-            return Authorization.getWWWAuthenticateResponse("api/softskills/courses");
-        } else if (tokenAndRole[1].equals("student")) {
-            return Authorization.getWrongRoleResponse();
+        List<Course> foundCourses = courseDatabase.getByIds(requestedIds);
+        List<String> missingIds = new ArrayList<>(requestedIds);
+        for (Course course : foundCourses) {
+            missingIds.remove(course.getHashId());
         }
 
-        // If the course can't be found return 404
-        if (courseDatabase.isNotInDatabase(courseId)) {
-            return Response.status(Response.Status.NOT_FOUND)
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setMaxAge(86400);
+        cacheControl.setPrivate(true);
+        cacheControl.setNoStore(true);
+
+        // Answer 304 without a body if the client already has this version (If-None-Match)
+        EntityTag entityTag = EntityTags.ofCourses(foundCourses);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+        if (notModified != null) {
+            return notModified.cacheControl(cacheControl)
                     .header("Authorization", "Bearer " + tokenAndRole[0])
                     .build();
         }
 
-        // Delete the course from the database
-        courseDatabase.delete(courseId);
+        Response.ResponseBuilder response = Response.ok(new GenericEntity<Collection<Course>>(foundCourses) {})
+                .tag(entityTag)
+                .header("X-totalAmountOfCourses", foundCourses.size())
+                .header("Authorization", "Bearer " + tokenAndRole[0])
+                .cacheControl(cacheControl);
+        if (!missingIds.isEmpty()) {
+            response.header("X-missingIds", String.join(",", missingIds));
+        }
+        return response.build();
+    }
 
-        // Create the GET link
-        Link linkToGetAll = Link.fromUri(uriInfo.getBaseUri() + "courses")
-                .rel("getAllCourses").type("application/json")
-                .build();
 
-        return Response.noContent().links(linkToGetAll)
-                .header("Authorization", "Bearer " + tokenAndRole[0])
-                .build();
+    // Write a page of resources to the client while it is read from the database, as JSON or XML like the client
+    // accepts it
+    private <T> Response.ResponseBuilder streamList(ResultPage<T> page, Class<T> resourceClass) {
+        MediaType mediaType = ListStreamingOutput.negotiateMediaType(requestContext.getAcceptableMediaTypes());
+        return Response.ok(new ListStreamingOutput<>(page, resourceClass, mediaType, providers,
+                new LinkInjector(uriInfo.getBaseUri())), mediaType);
     }
 
 
     public static String[] authorizeUser(String authBody) {
         try {
-            return Authorization.authorizeUser(authBody);
+            String[] tokenAndRole = Authorization.authorizeUser(authBody);
+            // Pin the database operations of this request to the causally consistent session of the caller, so
+            // he sees his own writes even if the reads are served by a secondary
+            if (!"401".equals(tokenAndRole[0])) {
+                CausalSessions.bind(tokenAndRole[2]);
+            }
+            return tokenAndRole;
         } catch (IOException e) {
             e.printStackTrace();
         }
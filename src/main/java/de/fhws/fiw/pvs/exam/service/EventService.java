@@ -1,22 +1,43 @@
 package de.fhws.fiw.pvs.exam.service;
 
 import de.fhws.fiw.pvs.exam.authorization.Authorization;
+import de.fhws.fiw.pvs.exam.cache.CacheRegion;
+import de.fhws.fiw.pvs.exam.cache.CachedResponse;
+import de.fhws.fiw.pvs.exam.cache.ResponseCache;
+import de.fhws.fiw.pvs.exam.cbor.CborConverter;
+import de.fhws.fiw.pvs.exam.database.CausalSessions;
 import de.fhws.fiw.pvs.exam.database.DAOFactory;
+import de.fhws.fiw.pvs.exam.database.PageManifest;
+import de.fhws.fiw.pvs.exam.database.ResultPage;
 import de.fhws.fiw.pvs.exam.database.dao.CourseDAO;
 import de.fhws.fiw.pvs.exam.database.dao.EventDAO;
+import de.fhws.fiw.pvs.exam.etag.EntityTags;
+import de.fhws.fiw.pvs.exam.execution.RequestExecutor;
+import de.fhws.fiw.pvs.exam.linkconverter.LinkInjector;
 import de.fhws.fiw.pvs.exam.paging.Pagination;
 import de.fhws.fiw.pvs.exam.resources.Course;
+import de.fhws.fiw.pvs.exam.seats.SeatBroadcasts;
+import de.fhws.fiw.pvs.exam.streaming.ListStreamingOutput;
+import org.apache.commons.lang.StringUtils;
 import org.bson.types.ObjectId;
 import de.fhws.fiw.pvs.exam.resources.Event;
 
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.*;
+import javax.ws.rs.ext.Providers;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
 import java.io.IOException;
 import java.net.URI;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 /***
@@ -28,278 +49,435 @@ import java.util.List;
 public class EventService {
     @Context
     protected UriInfo uriInfo;
+    @Context
+    protected ContainerRequestContext requestContext;
+    @Context
+    protected Providers providers;
     protected EventDAO eventDatabase = DAOFactory.createEventDAO();
     protected CourseDAO courseDatabase = DAOFactory.createCourseDAO();
 
 
     // Get all events in the database
     @GET
-    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
-    public Response getAllEvents(@QueryParam("from") @DefaultValue("") String startTime,
-                                 @QueryParam("to") @DefaultValue("") String endTime,
-                                 @QueryParam("offset") @DefaultValue("0") int offset,
-                                 @QueryParam("size") @DefaultValue("10") int size,
-                                 @HeaderParam("Authorization") @DefaultValue("") String authBody) {
-        // Check for authorization
-        String[] tokenAndRole = authorizeUser(authBody);
+    @Produces({MediaType.APPLICATION_JSON, CborConverter.APPLICATION_CBOR, MediaType.APPLICATION_XML})
+    public void getAllEvents(@Suspended AsyncResponse asyncResponse,
+                             @Context Request request,
+                             @QueryParam("from") @DefaultValue("") String startTime,
+                             @QueryParam("to") @DefaultValue("") String endTime,
+                             @QueryParam("offset") @DefaultValue("0") int offset,
+                             @QueryParam("size") @DefaultValue("10") int size,
+                             @QueryParam("ids") @DefaultValue("") String ids,
+                             @HeaderParam("Authorization") @DefaultValue("") String authBody) {
+        RequestExecutor.submit(asyncResponse, () -> {
+            // Check for authorization
+            String[] tokenAndRole = authorizeUser(authBody);
+
+            // Exit with WWW-Authenticate if wrong creds have been sent
+            if (tokenAndRole[0].equals("401")) {
+                return Authorization.getWWWAuthenticateResponse("api/softskills/events");
+            }
 
-        // Exit with WWW-Authenticate if wrong creds have been sent
-        if (tokenAndRole[0].equals("401")) {
-            return Authorization.getWWWAuthenticateResponse("api/softskills/events");
-        }
+            // Serve the response from the cache if nothing has been written since it has been built
+            CachedResponse cachedResponse = ResponseCache.lookup(requestContext, tokenAndRole[1], CacheRegion.EVENTS);
+            if (cachedResponse != null) {
+                return cachedResponse.toResponse(request).build();
+            }
 
-        List<Event> allEvents;
-        if (startTime.equals("") && endTime.equals("")) {
-            allEvents = eventDatabase.getAll(offset, size);
-        } else if (eventDatabase.startIsAfterEndOrWrongFormat(startTime, endTime)) {
-            allEvents = new ArrayList<>();
-        } else if (startTime.equals("")) {
-            allEvents = eventDatabase.getByEndTime(endTime, offset, size);
-        } else if (endTime.equals("")) {
-            allEvents = eventDatabase.getByStartTime(startTime, offset, size);
-        } else {
-            allEvents = eventDatabase.getByTimeframe(startTime, endTime, offset, size);
-        }
+            // Get specific events by their ids (e.g. a timetable) with one request instead of one per event
+            if (!ids.trim().equals("")) {
+                return getEventsByIds(request, ids, tokenAndRole);
+            }
 
-        // If the offset is bigger than the amount of events, return an empty list
-        if (offset > allEvents.size()) {
-            allEvents = new ArrayList<>();
-        }
+            // A page that is too big to be kept in memory is only counted here and read again while it is written
+            ResultPage<Event> allEvents = eventDatabase.getPage(StringUtils.defaultIfEmpty(startTime, null),
+                    StringUtils.defaultIfEmpty(endTime, null), null, offset, Pagination.limitSize(size));
+            PageManifest manifest = allEvents.getManifest(Event::getHashId, Event::getVersion);
 
-        CacheControl cacheControl = new CacheControl();
-        cacheControl.setMaxAge(60);
-        cacheControl.setPrivate(true);
+            // If the offset is bigger than the amount of events, return an empty list
+            if (offset > manifest.getAmountOfResources()) {
+                allEvents = ResultPage.empty();
+                manifest = PageManifest.empty();
+            }
 
-        // Create POST and Pagination links
-        Link linkForPost = Link.fromUri(uriInfo.getAbsolutePath())
-                .rel("createNewEvent").type("application/json")
-                .build();
+            CacheControl cacheControl = new CacheControl();
+            cacheControl.setMaxAge(60);
+            cacheControl.setPrivate(true);
 
-        Link[] linksForPaginationAndPost = Pagination.createPagination(uriInfo, size, offset, allEvents.size(),
-                "", linkForPost);
+            // Answer 304 without a body if the client already has this version (If-None-Match)
+            EntityTag entityTag = manifest.getEntityTag();
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+            if (notModified != null) {
+                return notModified.cacheControl(cacheControl)
+                        .build();
+            }
 
+            // Create POST and Pagination links
+            Link linkForPost = Link.fromUri(uriInfo.getAbsolutePath())
+                    .rel("createNewEvent").type("application/json")
+                    .build();
 
-        return Response.ok(new GenericEntity<Collection<Event>>(allEvents) {})
-                .links(linksForPaginationAndPost)
-                .header("X-totalAmountOfEvents", allEvents.size())
-                .cacheControl(cacheControl)
-                .build();
+            Link[] linksForPaginationAndPost = Pagination.createPagination(uriInfo, Pagination.limitSize(size), offset,
+                    manifest.getAmountOfResources(), "", linkForPost);
+
+
+            return streamList(allEvents, Event.class)
+                    .tag(entityTag)
+                    .links(linksForPaginationAndPost)
+                    .header("X-totalAmountOfEvents", manifest.getAmountOfResources())
+                    .cacheControl(cacheControl)
+                    .build();
+        });
     }
 
 
     // Get specific event by hash-value
     @GET
     @Path("{id}")
-    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
-    public Response getEventById(@Context Request request,
-                                 @PathParam("id") String eventId,
-                                 @HeaderParam("Authorization") @DefaultValue("") String authBody) {
+    @Produces({MediaType.APPLICATION_JSON, CborConverter.APPLICATION_CBOR, MediaType.APPLICATION_XML})
+    public void getEventById(@Suspended AsyncResponse asyncResponse,
+                             @Context Request request,
+                             @PathParam("id") String eventId,
+                             @HeaderParam("Authorization") @DefaultValue("") String authBody) {
+        RequestExecutor.submit(asyncResponse, () -> {
+            // Check for authorization
+            String[] tokenAndRole = authorizeUser(authBody);
+
+            // Exit with WWW-Authenticate if wrong creds have been sent
+            if (tokenAndRole[0].equals("401")) {
+                return Authorization.getWWWAuthenticateResponse("api/softskills/events");
+            }
+
+            // Get the event from the database
+            Event event = eventDatabase.getById(eventId);
+
+            // If no event has been found by that id return 404
+            if (event == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .header("Authorization", "Bearer " + tokenAndRole[0])
+                        .build();
+            }
+
+            CacheControl cacheControl = new CacheControl();
+            cacheControl.setMaxAge(60);
+            cacheControl.setPrivate(true);
+
+            // Answer 304 without a body if the client already has this version (If-None-Match)
+            EntityTag entityTag = EntityTags.of(event.getVersion());
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+            if (notModified != null) {
+                return notModified.cacheControl(cacheControl)
+                        .header("Authorization", "Bearer " + tokenAndRole[0])
+                        .build();
+            }
+
+            // Create PUT, DELETE and GET links
+            Link linkToPut = Link.fromUri(uriInfo.getAbsolutePath())
+                    .rel("updateSingleEvent").type("application/json")
+                    .build();
+            Link linkToDelete = Link.fromUri(uriInfo.getAbsolutePath())
+                    .rel("deleteSingleEvent").type("application/json")
+                    .build();
+            Link linkToGetAll = Link.fromUri(uriInfo.getBaseUri() + "events")
+                    .rel("getAllEvents").type("application/json")
+                    .build();
+
+            return Response.ok(event).links(linkToPut, linkToDelete, linkToGetAll)
+                    .tag(entityTag)
+                    .header("Authorization", "Bearer " + tokenAndRole[0])
+                    .cacheControl(cacheControl)
+                    .build();
+        });
+    }
+
+
+    // Stream the seats of an event as server-sent events: the current seats first, then an update whenever students
+    // sign up or leave. The stream isn't run by the RequestExecutor, it is written by the shared broadcaster of the
+    // event
+    @GET
+    @Path("{id}/seats/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void streamSeatsOfEvent(@Context SseEventSink sink,
+                                   @Context Sse sse,
+                                   @PathParam("id") String eventId,
+                                   @HeaderParam("Authorization") @DefaultValue("") String authBody) {
         // Check for authorization
         String[] tokenAndRole = authorizeUser(authBody);
 
-        // Exit with WWW-Authenticate if wrong creds have been sent
+        // Exit with WWW-Authenticate if wrong creds have been sent, nothing has been written to the stream yet
         if (tokenAndRole[0].equals("401")) {
-            return Authorization.getWWWAuthenticateResponse("api/softskills/events");
+            throw new WebApplicationException(Authorization.getWWWAuthenticateResponse("api/softskills/events"));
         }
 
-        // Get the event from the database
-        Event event = eventDatabase.getById(eventId);
-
-        // If no event has been found by that id return 404
         if (eventDatabase.isNotInDatabase(eventId)) {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .header("Authorization", "Bearer " + tokenAndRole[0])
-                    .build();
+            throw new NotFoundException();
         }
 
-        CacheControl cacheControl = new CacheControl();
-        cacheControl.setMaxAge(60);
-        cacheControl.setPrivate(true);
-
-        // Create PUT, DELETE and GET links
-        Link linkToPut = Link.fromUri(uriInfo.getAbsolutePath())
-                .rel("updateSingleEvent").type("application/json")
-                .build();
-        Link linkToDelete = Link.fromUri(uriInfo.getAbsolutePath())
-                .rel("deleteSingleEvent").type("application/json")
-                .build();
-        Link linkToGetAll = Link.fromUri(uriInfo.getBaseUri() + "events")
-                .rel("getAllEvents").type("application/json")
-                .build();
-
-        return Response.ok(event).links(linkToPut, linkToDelete, linkToGetAll)
-                .header("Authorization", "Bearer " + tokenAndRole[0])
-                .cacheControl(cacheControl)
-                .build();
+        SeatBroadcasts.subscribeToEvent(sse, sink, eventId);
     }
 
 
     // Create a new event
     @POST
-    @Consumes({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
-    public Response createEvent(Event newEvent,
-                                @HeaderParam("Authorization") @DefaultValue("") String authBody) {
-        // Check for authorization
-        String[] tokenAndRole = authorizeUser(authBody);
+    @Consumes({MediaType.APPLICATION_JSON, CborConverter.APPLICATION_CBOR, MediaType.APPLICATION_XML})
+    public void createEvent(@Suspended AsyncResponse asyncResponse,
+                            Event newEvent,
+                            @HeaderParam("Authorization") @DefaultValue("") String authBody) {
+        RequestExecutor.submit(asyncResponse, () -> {
+            // Check for authorization
+            String[] tokenAndRole = authorizeUser(authBody);
+
+            // Exit with WWW-Authenticate if wrong creds have been sent
+            if (tokenAndRole[0].equals("401")) {
+                return Authorization.getWWWAuthenticateResponse("api/softskills/events");
+            } else if (tokenAndRole[1].equals("student")) {
+                return Authorization.getWrongRoleResponse();
+            }
 
-        // Exit with WWW-Authenticate if wrong creds have been sent
-        if (tokenAndRole[0].equals("401")) {
-            return Authorization.getWWWAuthenticateResponse("api/softskills/events");
-        } else if (tokenAndRole[1].equals("student")) {
-            return Authorization.getWrongRoleResponse();
-        }
+            // The version and the seat counters are kept by the server, whatever the client has sent
+            ignoreServerFields(newEvent);
 
-        // Load the specified course
-        Course course = courseDatabase.getById(newEvent.getCourseId());
+            // Load the specified course
+            Course course = courseDatabase.getById(newEvent.getCourseId());
 
-        // If the signedUpStudents list is not set, create an empty list
-        if (newEvent.getSignedUpStudents() == null) {
-            newEvent.setSignedUpStudents(new HashSet<>());
-        }
+            // If the signedUpStudents list is not set, create an empty list
+            if (newEvent.getSignedUpStudents() == null) {
+                newEvent.setSignedUpStudents(new HashSet<>());
+            }
 
-        // Check for wrong input
-        boolean wrongHashIdSet = !ObjectId.isValid(newEvent.getHashId());
-        boolean courseDoesNotExistOrNoCourseIdGiven = course == null;
-        boolean noInputGiven = newEvent.getStartTime() == null || newEvent.getEndTime() == null;
-        boolean deliberateWrongTimesGiven = eventDatabase.startIsAfterEndOrWrongFormat(newEvent.getStartTime(),
-                newEvent.getEndTime());
-        boolean signedUpStudentsTooBig = course != null &&
-                newEvent.getSignedUpStudents().size() > course.getMaximumStudents();
-
-        if (wrongHashIdSet || courseDoesNotExistOrNoCourseIdGiven || noInputGiven || deliberateWrongTimesGiven
-                || signedUpStudentsTooBig) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                    .header("Authorization", "Bearer " + tokenAndRole[0])
-                    .build();
-        }
+            // Check for wrong input
+            boolean wrongHashIdSet = !ObjectId.isValid(newEvent.getHashId());
+            boolean courseDoesNotExistOrNoCourseIdGiven = course == null;
+            boolean noInputGiven = newEvent.getStartTime() == null || newEvent.getEndTime() == null;
+            boolean deliberateWrongTimesGiven = eventDatabase.startIsAfterEndOrWrongFormat(newEvent.getStartTime(),
+                    newEvent.getEndTime());
+            boolean signedUpStudentsTooBig = course != null &&
+                    newEvent.getSignedUpStudents().size() > course.getMaximumStudents();
+
+            if (wrongHashIdSet || courseDoesNotExistOrNoCourseIdGiven || noInputGiven || deliberateWrongTimesGiven
+                    || signedUpStudentsTooBig) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .header("Authorization", "Bearer " + tokenAndRole[0])
+                        .build();
+            }
 
-        // Insert the event into the database
-        eventDatabase.insertInto(newEvent);
+            // Insert the event into the database
+            eventDatabase.insertInto(newEvent);
 
-        // Create the header "Location" link
-        URI locationURI = uriInfo.getAbsolutePathBuilder().path(newEvent.getHashId()).build();
+            // Create the header "Location" link
+            URI locationURI = uriInfo.getAbsolutePathBuilder().path(newEvent.getHashId()).build();
 
-        return Response.created(locationURI)
-                .header("Authorization", "Bearer " + tokenAndRole[0])
-                .build();
+            return Response.created(locationURI)
+                    .tag(EntityTags.of(newEvent.getVersion()))
+                    .header("Authorization", "Bearer " + tokenAndRole[0])
+                    .build();
+        });
     }
 
 
     // Update a specific event
     @PUT
     @Path("{id}")
-    @Consumes({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
-    public Response updateEvent(@Context Request request,
-                                @PathParam("id") String eventId, Event updatedEvent,
-                                @HeaderParam("Authorization") @DefaultValue("") String authBody) {
-        // Check for authorization
-        String[] tokenAndRole = authorizeUser(authBody);
+    @Consumes({MediaType.APPLICATION_JSON, CborConverter.APPLICATION_CBOR, MediaType.APPLICATION_XML})
+    public void updateEvent(@Suspended AsyncResponse asyncResponse,
+                            @Context Request request,
+                            @PathParam("id") String eventId, Event updatedEvent,
+                            @HeaderParam("If-Match") @DefaultValue("") String ifMatch,
+                            @HeaderParam("Authorization") @DefaultValue("") String authBody) {
+        RequestExecutor.submit(asyncResponse, () -> {
+            // Check for authorization
+            String[] tokenAndRole = authorizeUser(authBody);
+
+            // Exit with WWW-Authenticate if wrong creds have been sent
+            if (tokenAndRole[0].equals("401")) {
+                return Authorization.getWWWAuthenticateResponse("api/softskills/events");
+            }
 
-        // Exit with WWW-Authenticate if wrong creds have been sent
-        if (tokenAndRole[0].equals("401")) {
-            return Authorization.getWWWAuthenticateResponse("api/softskills/events");
-        }
+            // If the event to be updated can't be found return 404. An archived event is over and can only be read
+            if (eventDatabase.isNotInDatabase(eventId)) {
+                return Response.status(eventDatabase.isArchived(eventId) ? Response.Status.CONFLICT
+                                : Response.Status.NOT_FOUND)
+                        .header("Authorization", "Bearer " + tokenAndRole[0])
+                        .build();
+            }
 
-        // If the event to be updated can't be found return 404
-        if (eventDatabase.isNotInDatabase(eventId)) {
-            return Response.status(Response.Status.NOT_FOUND)
+            // if client is a student, sign him up with his cn. A sign-up is a single atomic update anyway, so If-Match
+            // only applies to the update of the event itself. The seat counter of the event is checked and increased
+            // in one step by the database, so neither the course nor the list of students has to be loaded for that
+            EntityTag entityTag = null;
+            if (tokenAndRole[1].equals("student")) {
+                if (!eventDatabase.signUp(tokenAndRole[2], eventId)) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .header("Authorization", "Bearer " + tokenAndRole[0])
+                            .build();
+                }
+            // not student: Update the event
+            } else {
+                // The version and the seat counters are kept by the server, whatever the client has sent
+                ignoreServerFields(updatedEvent);
+
+                // Load the specified course from database. Of the old event only its seats are checked there
+                Course course = courseDatabase.getById(updatedEvent.getCourseId());
+
+                // Check for wrong input
+                boolean courseDoesNotExistOrNoCourseIsGiven = course == null;
+                boolean noInputGiven = updatedEvent.getStartTime() == null && updatedEvent.getEndTime() == null
+                        && updatedEvent.getSignedUpStudents() == null;
+                boolean deliberateWrongTimesGiven = eventDatabase.timeInWrongFormat(updatedEvent.getStartTime(),
+                        updatedEvent.getEndTime());
+                boolean signedUpStudentsTooBig = course != null && updatedEvent.getSignedUpStudents() != null &&
+                        updatedEvent.getSignedUpStudents().size() > course.getMaximumStudents();
+                boolean newStudentWouldMakeListTooBig = course != null
+                        && eventDatabase.isFullFor(tokenAndRole[2], eventId, course.getMaximumStudents());
+
+                if (courseDoesNotExistOrNoCourseIsGiven || noInputGiven || deliberateWrongTimesGiven
+                        || signedUpStudentsTooBig || newStudentWouldMakeListTooBig) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .header("Authorization", "Bearer " + tokenAndRole[0])
+                            .build();
+                }
+                // Update the event in the database. With If-Match only if nobody else has changed it in the meantime
+                Event event = eventDatabase.update(updatedEvent, eventId, EntityTags.versionsOf(ifMatch));
+                if (event == null) {
+                    return getFailedWriteResponse(eventId, tokenAndRole);
+                }
+                entityTag = EntityTags.of(event.getVersion());
+            }
+
+            // Create the GET link
+            Link link = Link.fromUri(uriInfo.getAbsolutePath())
+                    .rel("getSingleEvent").type("application/json")
+                    .build();
+
+            return Response.noContent().links(link)
+                    .tag(entityTag)
                     .header("Authorization", "Bearer " + tokenAndRole[0])
                     .build();
-        }
+        });
+    }
 
-        // Load the specified course and the old Event from database
-        Event oldEvent = eventDatabase.getById(eventId);
-        Course course = courseDatabase.getById(updatedEvent.getCourseId());
-
-        // Check for wrong input
-        boolean courseDoesNotExistOrNoCourseIsGiven = course == null;
-        boolean noInputGiven = updatedEvent.getStartTime() == null && updatedEvent.getEndTime() == null
-                && updatedEvent.getSignedUpStudents() == null;
-        boolean deliberateWrongTimesGiven = eventDatabase.timeInWrongFormat(updatedEvent.getStartTime(),
-                updatedEvent.getEndTime());
-        boolean signedUpStudentsTooBig = course != null && updatedEvent.getSignedUpStudents() != null &&
-                updatedEvent.getSignedUpStudents().size() > course.getMaximumStudents();
-        boolean newStudentWouldMakeListTooBig = course != null
-                && !oldEvent.getSignedUpStudents().contains(tokenAndRole[2])
-                && oldEvent.getSignedUpStudents().size() == course.getMaximumStudents();
-
-        // if client is a student, sign him up with his cn
-        if (tokenAndRole[1].equals("student")) {
-            if (newStudentWouldMakeListTooBig) {
-                return Response.status(Response.Status.BAD_REQUEST)
-                        .header("Authorization", "Bearer " + tokenAndRole[0])
-                        .build();
-            } else {
-                eventDatabase.signUp(tokenAndRole[2], eventId);
+
+    // Delete a specific event
+    @DELETE
+    @Path("{id}")
+    public void deleteEvent(@Suspended AsyncResponse asyncResponse,
+                            @PathParam("id") String eventId,
+                            @HeaderParam("If-Match") @DefaultValue("") String ifMatch,
+                            @HeaderParam("Authorization") @DefaultValue("") String authBody) {
+        RequestExecutor.submit(asyncResponse, () -> {
+            // Check for authorization
+            String[] tokenAndRole = authorizeUser(authBody);
+
+            // Exit with WWW-Authenticate if wrong creds have been sent
+            if (tokenAndRole[0].equals("401")) {
+                return Authorization.getWWWAuthenticateResponse("api/softskills/events");
             }
-        // not student: Update the event
-        } else {
-            if (courseDoesNotExistOrNoCourseIsGiven || noInputGiven || deliberateWrongTimesGiven
-                    || signedUpStudentsTooBig || newStudentWouldMakeListTooBig) {
-                return Response.status(Response.Status.BAD_REQUEST)
+
+            // If the event can't be found return 404. An archived event is over and can't be deleted anymore
+            if (eventDatabase.isNotInDatabase(eventId)) {
+                return Response.status(eventDatabase.isArchived(eventId) ? Response.Status.CONFLICT
+                                : Response.Status.NOT_FOUND)
                         .header("Authorization", "Bearer " + tokenAndRole[0])
                         .build();
             }
-            // Update the event in the database
-            eventDatabase.update(updatedEvent, eventId);
-        }
 
-        // I would love to do a conditional PUT with eTags here, but as mongodb inserts and extracts the POJO's from
-        // the database the hashvalues change. I can't verify the eTags as they are not consistent.
+            // if client is a student, remove his cn from the event
+            if (tokenAndRole[1].equals("student")) {
+                eventDatabase.leave(tokenAndRole[2], eventId);
+            } else if (!eventDatabase.delete(eventId, EntityTags.versionsOf(ifMatch))) {
+                return getFailedWriteResponse(eventId, tokenAndRole);
+            }
 
-        // Create the GET link
-        Link link = Link.fromUri(uriInfo.getAbsolutePath())
-                .rel("getSingleEvent").type("application/json")
-                .build();
+            // Create the GET link
+            Link link = Link.fromUri(uriInfo.getBaseUri() + "events")
+                    .rel("getAllEvents").type("application/json")
+                    .build();
 
-        return Response.noContent().links(link)
+            return Response.noContent().links(link)
+                    .header("Authorization", "Bearer " + tokenAndRole[0])
+                    .build();
+        });
+    }
+
+
+    // The version changes with every write, signedUpCount follows the signed up students and maximumStudents the
+    // course. A client can't set them
+    private static void ignoreServerFields(Event event) {
+        event.setVersion(0);
+        event.setSignedUpCount(0);
+        event.setMaximumStudents(0);
+    }
+
+
+    // A write that changed nothing: either the event has been deleted (404) or archived (409) since it was checked,
+    // or If-Match was given and somebody else has changed it in the meantime (412)
+    private Response getFailedWriteResponse(String eventId, String[] tokenAndRole) {
+        Response.Status status = Response.Status.PRECONDITION_FAILED;
+        if (eventDatabase.isNotInDatabase(eventId)) {
+            status = eventDatabase.isArchived(eventId) ? Response.Status.CONFLICT : Response.Status.NOT_FOUND;
+        }
+        return Response.status(status)
                 .header("Authorization", "Bearer " + tokenAndRole[0])
                 .build();
     }
 
 
-    // Delete a specific event
-    @DELETE
-    @Path("{id}")
-    public Response deleteEvent(@PathParam("id") String eventId,
-                                @HeaderParam("Authorization") @DefaultValue("") String authBody) {
-        // Check for authorization
-        String[] tokenAndRole = authorizeUser(authBody);
+    // Get the events with the given ids in the order of the ids with one query. The ids that don't exist are listed
+    // in the X-missingIds header
+    private Response getEventsByIds(Request request, String ids, String[] tokenAndRole) {
+        List<String> requestedIds = new ArrayList<>(new LinkedHashSet<>(Arrays.asList(StringUtils.split(ids, ", "))));
+        if (requestedIds.size() > Pagination.getMaximumSize()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .header("Authorization", "Bearer " + tokenAndRole[0])
+                    .build();
+        }
 
-        // Exit with WWW-Authenticate if wrong creds have been sent
-        if (tokenAndRole[0].equals("401")) {
-            return Authorization.getWWWAuthenticateResponse("api/softskills/events");
+        List<Event> foundEvents = eventDatabase.getByIds(requestedIds);
+        List<String> missingIds = new ArrayList<>(requestedIds);
+        for (Event event : foundEvents) {
+            missingIds.remove(event.getHashId());
         }
 
-        // If the event can't be found return 404
-        if (eventDatabase.isNotInDatabase(eventId)) {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .header("Authorization", "Bearer " + tokenAndRole[0])
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setMaxAge(60);
+        cacheControl.setPrivate(true);
+
+        // Answer 304 without a body if the client already has this version (If-None-Match)
+        EntityTag entityTag = EntityTags.ofEvents(foundEvents);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+        if (notModified != null) {
+            return notModified.cacheControl(cacheControl)
                     .build();
         }
 
-        // if client is a student, remove his cn from the event
-        if (tokenAndRole[1].equals("student")) {
-            eventDatabase.leave(tokenAndRole[2], eventId);
-        } else {
-            // Delete the event from the database
-            eventDatabase.delete(eventId);
+        Response.ResponseBuilder response = Response.ok(new GenericEntity<Collection<Event>>(foundEvents) {})
+                .tag(entityTag)
+                .header("X-totalAmountOfEvents", foundEvents.size())
+                .cacheControl(cacheControl);
+        if (!missingIds.isEmpty()) {
+            response.header("X-missingIds", String.join(",", missingIds));
         }
+        return response.build();
+    }
 
-        // Create the GET link
-        Link link = Link.fromUri(uriInfo.getBaseUri() + "events")
-                .rel("getAllEvents").type("application/json")
-                .build();
 
-        return Response.noContent().links(link)
-                .header("Authorization", "Bearer " + tokenAndRole[0])
-                .build();
+    // Write a page of resources to the client while it is read from the database, as JSON or XML like the client
+    // accepts it
+    private <T> Response.ResponseBuilder streamList(ResultPage<T> page, Class<T> resourceClass) {
+        MediaType mediaType = ListStreamingOutput.negotiateMediaType(requestContext.getAcceptableMediaTypes());
+        return Response.ok(new ListStreamingOutput<>(page, resourceClass, mediaType, providers,
+                new LinkInjector(uriInfo.getBaseUri())), mediaType);
     }
 
 
     public static String[] authorizeUser(String authBody) {
         try {
-            return Authorization.authorizeUser(authBody);
+            String[] tokenAndRole = Authorization.authorizeUser(authBody);
+            // Pin the database operations of this request to the causally consistent session of the caller, so
+            // he sees his own writes even if the reads are served by a secondary
+            if (!"401".equals(tokenAndRole[0])) {
+                CausalSessions.bind(tokenAndRole[2]);
+            }
+            return tokenAndRole;
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,118 @@
+package de.fhws.fiw.pvs.exam.service;
+
+import de.fhws.fiw.pvs.exam.authorization.Authorization;
+import de.fhws.fiw.pvs.exam.database.DAOFactory;
+import de.fhws.fiw.pvs.exam.database.ResultPage;
+import de.fhws.fiw.pvs.exam.database.dao.CourseDAO;
+import de.fhws.fiw.pvs.exam.database.dao.EventDAO;
+import de.fhws.fiw.pvs.exam.linkconverter.LinkInjector;
+import de.fhws.fiw.pvs.exam.resources.Course;
+import de.fhws.fiw.pvs.exam.resources.Event;
+import de.fhws.fiw.pvs.exam.streaming.ListStreamingOutput;
+import org.apache.commons.lang.StringUtils;
+import org.bson.types.ObjectId;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.*;
+import javax.ws.rs.ext.Providers;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Exports for reporting jobs: a whole collection in one response over one database cursor instead of thousands of
+// pages. Every line is one resource as JSON, ordered by id. An export that broke off goes on with ?after=<last id>
+@Path("export")
+public class ExportService {
+    @Context
+    protected UriInfo uriInfo;
+    @Context
+    protected Providers providers;
+    protected CourseDAO courseDatabase = DAOFactory.createCourseDAO();
+    protected EventDAO eventDatabase = DAOFactory.createEventDAO();
+
+
+    // Export all events, only those in between from and to if they are given
+    @GET
+    @Path("events")
+    @Produces(ListStreamingOutput.APPLICATION_NDJSON)
+    public Response exportEvents(@QueryParam("from") @DefaultValue("") String startTime,
+                                 @QueryParam("to") @DefaultValue("") String endTime,
+                                 @QueryParam("after") @DefaultValue("") String afterId,
+                                 @HeaderParam("Authorization") @DefaultValue("") String authBody) {
+        // Check for authorization
+        String[] tokenAndRole = EventService.authorizeUser(authBody);
+
+        // Exit with WWW-Authenticate if wrong creds have been sent or exit with Forbidden if user is student
+        if (tokenAndRole[0].equals("401")) {
+            return Authorization.getWWWAuthenticateResponse("api/softskills/export/events");
+        } else if (tokenAndRole[1].equals("student")) {
+            return Authorization.getWrongRoleResponse();
+        }
+
+        // Check for wrong input
+        boolean wrongAfterIdGiven = !afterId.equals("") && !ObjectId.isValid(afterId);
+        boolean wrongTimesGiven = eventDatabase.timeInWrongFormat(StringUtils.defaultIfEmpty(startTime, null), null)
+                || eventDatabase.timeInWrongFormat(null, StringUtils.defaultIfEmpty(endTime, null))
+                || eventDatabase.startIsAfterEndOrWrongFormat(StringUtils.defaultIfEmpty(startTime, null),
+                StringUtils.defaultIfEmpty(endTime, null));
+
+        if (wrongAfterIdGiven || wrongTimesGiven) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .header("Authorization", "Bearer " + tokenAndRole[0])
+                    .build();
+        }
+
+        ResultPage<Event> allEvents = eventDatabase.getExport(StringUtils.defaultIfEmpty(startTime, null),
+                StringUtils.defaultIfEmpty(endTime, null), StringUtils.defaultIfEmpty(afterId, null));
+
+        return exportResponse(allEvents, Event.class, tokenAndRole);
+    }
+
+
+    // Export all courses
+    @GET
+    @Path("courses")
+    @Produces(ListStreamingOutput.APPLICATION_NDJSON)
+    public Response exportCourses(@QueryParam("after") @DefaultValue("") String afterId,
+                                  @HeaderParam("Authorization") @DefaultValue("") String authBody) {
+        // Check for authorization
+        String[] tokenAndRole = CourseService.authorizeUser(authBody);
+
+        // Exit with WWW-Authenticate if wrong creds have been sent or exit with Forbidden if user is student
+        if (tokenAndRole[0].equals("401")) {
+            return Authorization.getWWWAuthenticateResponse("api/softskills/export/courses");
+        } else if (tokenAndRole[1].equals("student")) {
+            return Authorization.getWrongRoleResponse();
+        }
+
+        // Check for wrong input
+        if (!afterId.equals("") && !ObjectId.isValid(afterId)) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .header("Authorization", "Bearer " + tokenAndRole[0])
+                    .build();
+        }
+
+        ResultPage<Course> allCourses = courseDatabase.getExport(StringUtils.defaultIfEmpty(afterId, null));
+
+        return exportResponse(allCourses, Course.class, tokenAndRole);
+    }
+
+
+
+    // Additional methods:
+
+    // The export is written while it is read, it is never cached as it changes with every write
+    private <T> Response exportResponse(ResultPage<T> export, Class<T> resourceClass, String[] tokenAndRole) {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setPrivate(true);
+        cacheControl.setNoStore(true);
+
+        return Response.ok(new ListStreamingOutput<>(export, resourceClass, ListStreamingOutput.APPLICATION_NDJSON_TYPE,
+                providers, new LinkInjector(uriInfo.getBaseUri())), ListStreamingOutput.APPLICATION_NDJSON_TYPE)
+                .header("Authorization", "Bearer " + tokenAndRole[0])
+                .cacheControl(cacheControl)
+                .build();
+    }
+}
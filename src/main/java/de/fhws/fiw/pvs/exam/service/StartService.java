@@ -1,8 +1,11 @@
 package de.fhws.fiw.pvs.exam.service;
 
 import de.fhws.fiw.pvs.exam.authorization.Authorization;
+import de.fhws.fiw.pvs.exam.execution.RequestExecutor;
 
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.*;
 import java.io.IOException;
 
@@ -18,28 +21,31 @@ public class StartService {
 
     @GET
     @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
-    public Response getDispatcher(@HeaderParam("Authorization") @DefaultValue("") String authBody) {
-        // Check for authorization
-        String[] tokenAndRole = new String[3];
-        try {
-            tokenAndRole = Authorization.authorizeUser(authBody);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
-        Link linkToCourses = Link.fromUri(uriInfo.getAbsolutePath() + "/courses")
-                .rel("getAllCourses").type("application/json")
-                .build();
-        Link linkToEvents = Link.fromUri(uriInfo.getAbsolutePath() + "/events")
-                .rel("getAllEvents").type("application/json")
-                .build();
-
-        if (tokenAndRole[0].equals("401")) {
-            return Authorization.getWWWAuthenticateResponse("api/softskills/");
-        }
-
-        return Response.noContent().links(linkToCourses, linkToEvents)
-                .header("Authorization", "Bearer " + tokenAndRole[0])
-                .build();
+    public void getDispatcher(@Suspended AsyncResponse asyncResponse,
+                              @HeaderParam("Authorization") @DefaultValue("") String authBody) {
+        RequestExecutor.submit(asyncResponse, () -> {
+            // Check for authorization
+            String[] tokenAndRole = new String[3];
+            try {
+                tokenAndRole = Authorization.authorizeUser(authBody);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+
+            Link linkToCourses = Link.fromUri(uriInfo.getAbsolutePath() + "/courses")
+                    .rel("getAllCourses").type("application/json")
+                    .build();
+            Link linkToEvents = Link.fromUri(uriInfo.getAbsolutePath() + "/events")
+                    .rel("getAllEvents").type("application/json")
+                    .build();
+
+            if (tokenAndRole[0].equals("401")) {
+                return Authorization.getWWWAuthenticateResponse("api/softskills/");
+            }
+
+            return Response.noContent().links(linkToCourses, linkToEvents)
+                    .header("Authorization", "Bearer " + tokenAndRole[0])
+                    .build();
+        });
     }
 }
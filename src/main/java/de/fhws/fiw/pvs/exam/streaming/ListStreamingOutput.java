@@ -0,0 +1,166 @@
+package de.fhws.fiw.pvs.exam.streaming;
+
+import de.fhws.fiw.pvs.exam.cbor.CborConverter;
+import de.fhws.fiw.pvs.exam.database.ResultPage;
+import de.fhws.fiw.pvs.exam.linkconverter.LinkInjector;
+import de.fhws.fiw.pvs.exam.xml.XmlListStream;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Providers;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.util.List;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Writes a list of resources while it is read from the database, one resource after the other. The JSON, CBOR and
+// XML look the same as a list that Jersey writes as a whole, but only one batch of the cursor is in memory at a time
+public class ListStreamingOutput<T> implements StreamingOutput {
+    // One JSON resource per line, for exports that are read line by line
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+    public static final MediaType APPLICATION_NDJSON_TYPE = MediaType.valueOf(APPLICATION_NDJSON);
+    private final ResultPage<T> page;
+    private final Class<T> resourceClass;
+    private final MediaType mediaType;
+    private final Providers providers;
+    private final LinkInjector linkInjector;
+
+
+    public ListStreamingOutput(ResultPage<T> page, Class<T> resourceClass, MediaType mediaType, Providers providers,
+                               LinkInjector linkInjector) {
+        this.page = page;
+        this.resourceClass = resourceClass;
+        this.mediaType = mediaType;
+        this.providers = providers;
+        this.linkInjector = linkInjector;
+    }
+
+
+    // The list endpoints produce JSON (preferred, as it comes first in their @Produces), CBOR or XML
+    public static MediaType negotiateMediaType(List<MediaType> acceptableMediaTypes) {
+        for (MediaType acceptable : acceptableMediaTypes) {
+            if (acceptable.isCompatible(MediaType.APPLICATION_JSON_TYPE)) {
+                return MediaType.APPLICATION_JSON_TYPE;
+            } else if (acceptable.isCompatible(CborConverter.APPLICATION_CBOR_TYPE)) {
+                return CborConverter.APPLICATION_CBOR_TYPE;
+            } else if (acceptable.isCompatible(MediaType.APPLICATION_XML_TYPE)) {
+                return MediaType.APPLICATION_XML_TYPE;
+            }
+        }
+        return MediaType.APPLICATION_JSON_TYPE;
+    }
+
+
+    @Override
+    public void write(OutputStream outputStream) throws IOException, WebApplicationException {
+        try {
+            if (mediaType.isCompatible(MediaType.APPLICATION_XML_TYPE)) {
+                writeXml(outputStream);
+            } else if (mediaType.isCompatible(APPLICATION_NDJSON_TYPE)) {
+                writeNdjson(outputStream);
+            } else if (mediaType.isCompatible(CborConverter.APPLICATION_CBOR_TYPE)) {
+                writeCbor(outputStream);
+            } else {
+                writeJson(outputStream);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+
+
+    // Additional methods:
+
+    // [resource,resource,...] with every resource written by the JSON provider (Genson)
+    private void writeJson(OutputStream outputStream) throws IOException {
+        MessageBodyWriter<T> writer = jsonWriter();
+        // The provider may close the stream after every resource, the stream of the container has to stay open
+        OutputStream resourceStream = new NonClosingOutputStream(outputStream);
+        boolean[] first = {true};
+
+        outputStream.write('[');
+        page.forEach(resource -> {
+            try {
+                if (!first[0]) {
+                    outputStream.write(',');
+                }
+                first[0] = false;
+                writeJsonResource(writer, resource, resourceStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        outputStream.write(']');
+    }
+
+
+    // resource\nresource\n... so a client can process (and resume) an export line by line
+    private void writeNdjson(OutputStream outputStream) {
+        MessageBodyWriter<T> writer = jsonWriter();
+        OutputStream resourceStream = new NonClosingOutputStream(outputStream);
+
+        page.forEach(resource -> {
+            try {
+                writeJsonResource(writer, resource, resourceStream);
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+
+    // An array of indefinite length (0x9F resource resource ... 0xFF), as the amount isn't known while writing
+    private void writeCbor(OutputStream outputStream) throws IOException {
+        MessageBodyWriter<T> writer = providers.getMessageBodyWriter(resourceClass, resourceClass, new Annotation[0],
+                CborConverter.APPLICATION_CBOR_TYPE);
+        OutputStream resourceStream = new NonClosingOutputStream(outputStream);
+
+        outputStream.write(0x9F);
+        page.forEach(resource -> {
+            linkInjector.inject(resource);
+            try {
+                writer.writeTo(resource, resourceClass, resourceClass, new Annotation[0],
+                        CborConverter.APPLICATION_CBOR_TYPE, new MultivaluedHashMap<>(), resourceStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        outputStream.write(0xFF);
+    }
+
+
+    private MessageBodyWriter<T> jsonWriter() {
+        return providers.getMessageBodyWriter(resourceClass, resourceClass, new Annotation[0],
+                MediaType.APPLICATION_JSON_TYPE);
+    }
+
+
+    private void writeJsonResource(MessageBodyWriter<T> writer, T resource, OutputStream resourceStream)
+            throws IOException {
+        linkInjector.inject(resource);
+        writer.writeTo(resource, resourceClass, resourceClass, new Annotation[0], MediaType.APPLICATION_JSON_TYPE,
+                new MultivaluedHashMap<>(), resourceStream);
+    }
+
+
+    // <courses><course>...</course>...</courses> like Jersey writes a list, through one marshaller
+    private void writeXml(OutputStream outputStream) throws IOException {
+        XmlListStream<T> list = new XmlListStream<>(outputStream, resourceClass);
+        page.forEach(resource -> {
+            linkInjector.inject(resource);
+            list.write(resource);
+        });
+        list.finish();
+    }
+}
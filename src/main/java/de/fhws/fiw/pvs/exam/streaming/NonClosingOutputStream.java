@@ -0,0 +1,43 @@
+package de.fhws.fiw.pvs.exam.streaming;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Lets a writer close its stream (which finishes it) without closing the stream of the container
+public class NonClosingOutputStream extends OutputStream {
+    private final OutputStream outputStream;
+
+
+    public NonClosingOutputStream(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+
+    @Override
+    public void write(int b) throws IOException {
+        outputStream.write(b);
+    }
+
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        outputStream.write(bytes, offset, length);
+    }
+
+
+    @Override
+    public void flush() throws IOException {
+        outputStream.flush();
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        outputStream.flush();
+    }
+}
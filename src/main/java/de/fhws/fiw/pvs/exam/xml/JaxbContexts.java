@@ -0,0 +1,48 @@
+package de.fhws.fiw.pvs.exam.xml;
+
+import javax.ws.rs.WebApplicationException;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Creating a JAXBContext is expensive (it inspects the whole class), one per class is enough. The contexts are
+// thread-safe, the marshallers aren't, so every response creates its own
+public class JaxbContexts {
+    private static final Map<Class<?>, JAXBContext> CONTEXTS = new ConcurrentHashMap<>();
+
+
+    public static JAXBContext of(Class<?> resourceClass) {
+        return CONTEXTS.computeIfAbsent(resourceClass, JaxbContexts::create);
+    }
+
+
+    // A marshaller that writes the resource as an element without an XML declaration, e.g. inside a list
+    public static Marshaller createFragmentMarshaller(Class<?> resourceClass) {
+        try {
+            Marshaller marshaller = of(resourceClass).createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+            return marshaller;
+        } catch (JAXBException e) {
+            throw new WebApplicationException(e);
+        }
+    }
+
+
+
+    // Additional methods:
+
+    private static JAXBContext create(Class<?> resourceClass) {
+        try {
+            return JAXBContext.newInstance(resourceClass);
+        } catch (JAXBException e) {
+            throw new WebApplicationException(e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package de.fhws.fiw.pvs.exam.xml;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Writes the XML of the resources (@XmlRootElement) and of lists of them (e.g. a GenericEntity<Collection<Course>>)
+// instead of Jersey's JAXB providers: the JAXBContexts are only created once per class and lists are written
+// resource by resource like the JSON
+@Provider
+@Produces(MediaType.APPLICATION_XML)
+public class JaxbXmlWriter implements MessageBodyWriter<Object> {
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        if (Collection.class.isAssignableFrom(type)) {
+            Class<?> elementClass = elementClassOf(genericType);
+            return elementClass != null && elementClass.isAnnotationPresent(XmlRootElement.class);
+        }
+        return type.isAnnotationPresent(XmlRootElement.class);
+    }
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream outputStream)
+            throws IOException, WebApplicationException {
+        try {
+            if (entity instanceof Collection) {
+                XmlListStream<Object> list = new XmlListStream<>(outputStream,
+                        (Class<Object>) elementClassOf(genericType));
+                for (Object resource : (Collection<?>) entity) {
+                    list.write(resource);
+                }
+                list.finish();
+            } else {
+                Marshaller marshaller = JaxbContexts.of(type).createMarshaller();
+                marshaller.marshal(entity, outputStream);
+            }
+        } catch (JAXBException e) {
+            throw new WebApplicationException(e);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+
+
+    // Additional methods:
+
+    // The class of the elements of Collection<Course>, null if it isn't known
+    private static Class<?> elementClassOf(Type genericType) {
+        if (genericType instanceof ParameterizedType) {
+            Type[] typeArguments = ((ParameterizedType) genericType).getActualTypeArguments();
+            if (typeArguments.length == 1 && typeArguments[0] instanceof Class) {
+                return (Class<?>) typeArguments[0];
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,63 @@
+package de.fhws.fiw.pvs.exam.xml;
+
+import javax.ws.rs.WebApplicationException;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import java.beans.Introspector;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Writes a list of resources as XML one resource after the other: <courses><course>...</course>...</courses> like
+// Jersey writes a list. All resources go through one fragment marshaller straight into the stream (JAXB's own UTF-8
+// output, a StAX writer in between costs four times as much), and nothing but the current resource is kept in memory
+public class XmlListStream<T> {
+    private static final byte[] XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+            .getBytes(StandardCharsets.UTF_8);
+    private final OutputStream outputStream;
+    private final Marshaller marshaller;
+    private final byte[] endTag;
+
+
+    // Write the declaration and the start of the list
+    public XmlListStream(OutputStream outputStream, Class<T> resourceClass) throws IOException {
+        this.outputStream = outputStream;
+        this.marshaller = JaxbContexts.createFragmentMarshaller(resourceClass);
+        String rootElement = rootElementOf(resourceClass);
+        this.endTag = ("</" + rootElement + ">").getBytes(StandardCharsets.UTF_8);
+        outputStream.write(XML_DECLARATION);
+        outputStream.write(("<" + rootElement + ">").getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    // <courses> for Course, <events> for Event
+    public static String rootElementOf(Class<?> resourceClass) {
+        return Introspector.decapitalize(resourceClass.getSimpleName()) + "s";
+    }
+
+
+    public void write(T resource) {
+        try {
+            marshaller.marshal(resource, outputStream);
+        } catch (JAXBException e) {
+            // A client that has gone away is an IOException, like with the JSON
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            throw new WebApplicationException(e);
+        }
+    }
+
+
+    // Close the list, the stream itself stays open
+    public void finish() throws IOException {
+        outputStream.write(endTag);
+        outputStream.flush();
+    }
+}
@@ -0,0 +1,51 @@
+package de.fhws.fiw.pvs.exam.benchmark;
+
+import de.fhws.fiw.pvs.exam.linkconverter.LinkInjector;
+import de.fhws.fiw.pvs.exam.resources.Event;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// The data set of the benchmarks: events like the README's example, each with its own id and a cn per signed up
+// student. It is generated the same way on every run, so the numbers of two runs can be compared
+class BenchmarkData {
+    static final URI BASE_URI = URI.create("http://localhost:8080/api/softskills/");
+
+
+    static Event createEvent(int number, int signedUpStudents) {
+        Event event = new Event(String.format("2020-07-%02d--18:00:00", number % 28 + 1),
+                String.format("2020-07-%02d--20:00:00", number % 28 + 1));
+        event.setHashId(String.format("5f1a2b3c4d5e6f7a%08x", number));
+        event.setCourseId("5f0b776b1b0edf0238c0f502");
+        event.setVersion(3);
+        event.setMaximumStudents(50);
+        Set<String> cns = new LinkedHashSet<>();
+        for (int i = 0; i < signedUpStudents; i++) {
+            cns.add(String.format("k%05d", 10000 + i));
+        }
+        event.setSignedUpStudents(cns);
+        event.setSignedUpCount(cns.size());
+        return event;
+    }
+
+
+    // A page of events with their links, like a list response has them
+    static List<Event> createEvents(int amountOfEvents, int signedUpStudents) {
+        LinkInjector linkInjector = new LinkInjector(BASE_URI);
+        List<Event> events = new ArrayList<>(amountOfEvents);
+        for (int i = 0; i < amountOfEvents; i++) {
+            Event event = createEvent(i, signedUpStudents);
+            linkInjector.inject(event);
+            events.add(event);
+        }
+        return events;
+    }
+}
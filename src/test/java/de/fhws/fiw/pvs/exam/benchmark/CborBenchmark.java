@@ -0,0 +1,88 @@
+package de.fhws.fiw.pvs.exam.benchmark;
+
+import de.fhws.fiw.pvs.exam.cbor.CborConverter;
+import de.fhws.fiw.pvs.exam.json.ResourceJsonConverter;
+import de.fhws.fiw.pvs.exam.resources.Event;
+import org.openjdk.jmh.annotations.*;
+
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Writing and reading a list of events as application/cbor against application/json, both through their message
+// body providers like Jersey calls them. The sizes of the two bodies are printed once per fork
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CborBenchmark {
+    @SuppressWarnings("unchecked")
+    private static final Class<Object> LIST = (Class<Object>) (Class<?>) List.class;
+    private static final Type EVENT_LIST = new GenericType<List<Event>>() {}.getType();
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+    @Param({"10", "100", "1000"})
+    private int amountOfEvents;
+
+    private final CborConverter cborConverter = new CborConverter(null);
+    private final ResourceJsonConverter jsonConverter = new ResourceJsonConverter();
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private List<Event> events;
+    private byte[] cbor;
+    private byte[] json;
+
+
+    @Setup
+    public void setUp() throws IOException {
+        events = BenchmarkData.createEvents(amountOfEvents, 5);
+        cbor = writeCbor();
+        json = writeJson();
+        System.out.println(amountOfEvents + " events: " + cbor.length + " bytes CBOR, " + json.length
+                + " bytes JSON");
+    }
+
+
+    @Benchmark
+    public byte[] writeCbor() throws IOException {
+        outputStream.reset();
+        cborConverter.writeTo(events, List.class, EVENT_LIST, NO_ANNOTATIONS, CborConverter.APPLICATION_CBOR_TYPE,
+                null, outputStream);
+        return outputStream.toByteArray();
+    }
+
+
+    @Benchmark
+    public byte[] writeJson() throws IOException {
+        outputStream.reset();
+        jsonConverter.writeTo(events, List.class, EVENT_LIST, NO_ANNOTATIONS, MediaType.APPLICATION_JSON_TYPE, null,
+                outputStream);
+        return outputStream.toByteArray();
+    }
+
+
+    @Benchmark
+    public Object readCbor() throws IOException {
+        return cborConverter.readFrom(LIST, EVENT_LIST, NO_ANNOTATIONS, CborConverter.APPLICATION_CBOR_TYPE,
+                null, new ByteArrayInputStream(cbor));
+    }
+
+
+    @Benchmark
+    public Object readJson() throws IOException {
+        return jsonConverter.readFrom(LIST, EVENT_LIST, NO_ANNOTATIONS, MediaType.APPLICATION_JSON_TYPE, null,
+                new ByteArrayInputStream(json));
+    }
+}
@@ -0,0 +1,93 @@
+package de.fhws.fiw.pvs.exam.benchmark;
+
+import com.mongodb.MongoClientSettings;
+import de.fhws.fiw.pvs.exam.database.codec.CodecRegistryFactory;
+import de.fhws.fiw.pvs.exam.resources.Event;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.pojo.PojoCodecProvider;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.bson.codecs.configuration.CodecRegistries.fromProviders;
+import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Encoding and decoding an event with the hand-written EventCodec against the automatic POJO codec the DAOs used
+// before. The event is encoded like the database stores it
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodecBenchmark {
+    @Param({"5", "50"})
+    private int signedUpStudents;
+
+    private final Codec<Event> pojoCodec = fromRegistries(MongoClientSettings.getDefaultCodecRegistry(),
+            fromProviders(PojoCodecProvider.builder().automatic(true).build())).get(Event.class);
+    private final Codec<Event> eventCodec = CodecRegistryFactory.getCodecRegistry().get(Event.class);
+    private Event event;
+    private byte[] document;
+
+
+    @Setup
+    public void setUp() {
+        event = BenchmarkData.createEvent(0, signedUpStudents);
+        document = encode(eventCodec);
+    }
+
+
+    @Benchmark
+    public byte[] encodePojoCodec() {
+        return encode(pojoCodec);
+    }
+
+
+    @Benchmark
+    public byte[] encodeEventCodec() {
+        return encode(eventCodec);
+    }
+
+
+    @Benchmark
+    public Event decodePojoCodec() {
+        return decode(pojoCodec);
+    }
+
+
+    @Benchmark
+    public Event decodeEventCodec() {
+        return decode(eventCodec);
+    }
+
+
+
+    // Additional methods:
+
+    private byte[] encode(Codec<Event> codec) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            codec.encode(writer, event, EncoderContext.builder().build());
+        }
+        return buffer.toByteArray();
+    }
+
+
+    private Event decode(Codec<Event> codec) {
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(document))) {
+            return codec.decode(reader, DecoderContext.builder().build());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package de.fhws.fiw.pvs.exam.benchmark;
+
+import de.fhws.fiw.pvs.exam.execution.VirtualThreads;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// A burst of 256 requests that each wait 10 ms for the database or the auth API, handled by a pool like the one of
+// RequestExecutor (64 threads, a queue of 256, the defaults) against a virtual thread per request. The score is the
+// time until the last request of the burst is done. "virtualThreads" needs Java 21+, on an older JDK its setup fails
+// and only "pool" is measured
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutorBenchmark {
+    private static final int REQUESTS = 256;
+    private static final long WAIT_MILLIS = 10;
+
+    @Param({"pool", "virtualThreads"})
+    private String executorType;
+
+    private ExecutorService executor;
+
+
+    @Setup
+    public void setUp() {
+        executor = executorType.equals("pool")
+                ? new ThreadPoolExecutor(64, 64, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(256))
+                : VirtualThreads.newThreadPerTaskExecutor();
+    }
+
+
+    @Benchmark
+    public void burst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            executor.execute(() -> {
+                try {
+                    Thread.sleep(WAIT_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+    }
+
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,89 @@
+package de.fhws.fiw.pvs.exam.benchmark;
+
+import com.owlike.genson.ext.jaxrs.GensonJsonConverter;
+import de.fhws.fiw.pvs.exam.json.ResourceJsonConverter;
+import de.fhws.fiw.pvs.exam.resources.Event;
+import org.openjdk.jmh.annotations.*;
+
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Writing and reading a list of events as JSON with the hand-written ResourceJsonConverter against Genson's JSON
+// provider, which wrote and read them before. Both are called like Jersey calls them and write the same bytes
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+    @SuppressWarnings("unchecked")
+    private static final Class<Object> LIST = (Class<Object>) (Class<?>) List.class;
+    private static final Type EVENT_LIST = new GenericType<List<Event>>() {}.getType();
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+    @Param({"10", "100", "1000"})
+    private int amountOfEvents;
+
+    private final GensonJsonConverter gensonConverter = new GensonJsonConverter();
+    private final ResourceJsonConverter resourceConverter = new ResourceJsonConverter();
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private List<Event> events;
+    private byte[] json;
+
+
+    @Setup
+    public void setUp() throws IOException {
+        events = BenchmarkData.createEvents(amountOfEvents, 5);
+        json = writeResourceJsonConverter();
+        if (!Arrays.equals(json, writeGenson())) {
+            throw new IllegalStateException("ResourceJsonConverter and Genson write different JSON");
+        }
+    }
+
+
+    @Benchmark
+    public byte[] writeGenson() throws IOException {
+        outputStream.reset();
+        gensonConverter.writeTo(events, List.class, EVENT_LIST, NO_ANNOTATIONS, MediaType.APPLICATION_JSON_TYPE,
+                new MultivaluedHashMap<>(), outputStream);
+        return outputStream.toByteArray();
+    }
+
+
+    @Benchmark
+    public byte[] writeResourceJsonConverter() throws IOException {
+        outputStream.reset();
+        resourceConverter.writeTo(events, List.class, EVENT_LIST, NO_ANNOTATIONS, MediaType.APPLICATION_JSON_TYPE,
+                new MultivaluedHashMap<>(), outputStream);
+        return outputStream.toByteArray();
+    }
+
+
+    @Benchmark
+    public Object readGenson() throws IOException {
+        return gensonConverter.readFrom(LIST, EVENT_LIST, NO_ANNOTATIONS, MediaType.APPLICATION_JSON_TYPE,
+                new MultivaluedHashMap<>(), new ByteArrayInputStream(json));
+    }
+
+
+    @Benchmark
+    public Object readResourceJsonConverter() throws IOException {
+        return resourceConverter.readFrom(LIST, EVENT_LIST, NO_ANNOTATIONS, MediaType.APPLICATION_JSON_TYPE,
+                new MultivaluedHashMap<>(), new ByteArrayInputStream(json));
+    }
+}
@@ -0,0 +1,77 @@
+package de.fhws.fiw.pvs.exam.benchmark;
+
+import de.fhws.fiw.pvs.exam.linkconverter.LinkInjector;
+import de.fhws.fiw.pvs.exam.linkconverter.TemplateLink;
+import de.fhws.fiw.pvs.exam.resources.Event;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.ws.rs.core.Link;
+import javax.ws.rs.core.UriBuilder;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Injecting the two links of an event and rendering their hrefs like ServerLinkConverter writes them. The compiled
+// templates of LinkInjector against the way links were built before: a reflective getter call and a UriBuilder, a
+// URI and a Link.Builder per link
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LinkBenchmark {
+    private final LinkInjector linkInjector = new LinkInjector(BenchmarkData.BASE_URI);
+    private List<Event> events;
+    private Method getCourseId;
+    private Method getHashId;
+
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        events = BenchmarkData.createEvents(100, 5);
+        getCourseId = Event.class.getMethod("getCourseId");
+        getHashId = Event.class.getMethod("getHashId");
+    }
+
+
+    // Per event of a page of 100
+    @Benchmark
+    @OperationsPerInvocation(100)
+    public void templateLinks(Blackhole blackhole) {
+        for (Event event : events) {
+            linkInjector.inject(event);
+            blackhole.consume(((TemplateLink) event.getCourseLink()).getHref());
+            blackhole.consume(((TemplateLink) event.getSelf()).getHref());
+        }
+    }
+
+
+    @Benchmark
+    @OperationsPerInvocation(100)
+    public void uriBuilderLinks(Blackhole blackhole) throws ReflectiveOperationException {
+        for (Event event : events) {
+            blackhole.consume(buildLink("/courses/" + getCourseId.invoke(event), "courseLink")
+                    .getUri().toASCIIString());
+            blackhole.consume(buildLink("/events/" + getHashId.invoke(event), "self")
+                    .getUri().toASCIIString());
+        }
+    }
+
+
+
+    // Additional methods:
+
+    private static Link buildLink(String path, String rel) {
+        return Link.fromUri(UriBuilder.fromUri(BenchmarkData.BASE_URI).path(path).build())
+                .rel(rel)
+                .type("application/json")
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package de.fhws.fiw.pvs.exam.benchmark;
+
+import de.fhws.fiw.pvs.exam.resources.Event;
+import de.fhws.fiw.pvs.exam.xml.JaxbXmlWriter;
+import org.glassfish.jersey.jaxb.internal.XmlCollectionJaxbProvider;
+import org.glassfish.jersey.jaxb.internal.XmlRootElementJaxbProvider;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.openjdk.jmh.annotations.*;
+
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.ext.Providers;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Writing a list of events and a single event as XML with JaxbXmlWriter against Jersey's JAXB providers, which
+// wrote them before. Both are called like Jersey calls them, Jersey's providers without any ContextResolver. The
+// setup fails if the two write a different list
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XmlBenchmark {
+    private static final Type EVENT_LIST = new GenericType<List<Event>>() {}.getType();
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+    @Param({"10", "100", "1000"})
+    private int amountOfEvents;
+
+    private final JaxbXmlWriter xmlWriter = new JaxbXmlWriter();
+    private final XmlCollectionJaxbProvider jerseyListProvider =
+            new XmlCollectionJaxbProvider.App(XMLInputFactory::newInstance, noProviders());
+    private final XmlRootElementJaxbProvider jerseyResourceProvider =
+            new XmlRootElementJaxbProvider.App(SAXParserFactory::newInstance, noProviders());
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private List<Event> events;
+
+
+    @Setup
+    public void setUp() throws IOException {
+        events = BenchmarkData.createEvents(amountOfEvents, 5);
+        jerseyListProvider.setConfiguration(new ResourceConfig());
+        jerseyResourceProvider.setConfiguration(new ResourceConfig());
+        if (!Arrays.equals(writeListJersey(), writeListJaxbXmlWriter())) {
+            throw new IllegalStateException("JaxbXmlWriter and Jersey write a different list");
+        }
+    }
+
+
+    @Benchmark
+    public byte[] writeListJersey() throws IOException {
+        outputStream.reset();
+        jerseyListProvider.writeTo(events, List.class, EVENT_LIST, NO_ANNOTATIONS, MediaType.APPLICATION_XML_TYPE,
+                new MultivaluedHashMap<>(), outputStream);
+        return outputStream.toByteArray();
+    }
+
+
+    @Benchmark
+    public byte[] writeListJaxbXmlWriter() throws IOException {
+        outputStream.reset();
+        xmlWriter.writeTo(events, List.class, EVENT_LIST, NO_ANNOTATIONS, MediaType.APPLICATION_XML_TYPE,
+                new MultivaluedHashMap<>(), outputStream);
+        return outputStream.toByteArray();
+    }
+
+
+    @Benchmark
+    public byte[] writeEventJersey() throws IOException {
+        outputStream.reset();
+        jerseyResourceProvider.writeTo(events.get(0), Event.class, Event.class, NO_ANNOTATIONS,
+                MediaType.APPLICATION_XML_TYPE, new MultivaluedHashMap<>(), outputStream);
+        return outputStream.toByteArray();
+    }
+
+
+    @Benchmark
+    public byte[] writeEventJaxbXmlWriter() throws IOException {
+        outputStream.reset();
+        xmlWriter.writeTo(events.get(0), Event.class, Event.class, NO_ANNOTATIONS, MediaType.APPLICATION_XML_TYPE,
+                new MultivaluedHashMap<>(), outputStream);
+        return outputStream.toByteArray();
+    }
+
+
+
+    // Additional methods:
+
+    // Providers that know no ContextResolver, like in an application that configures none
+    private static Providers noProviders() {
+        return (Providers) Proxy.newProxyInstance(Providers.class.getClassLoader(), new Class<?>[]{Providers.class},
+                (proxy, method, arguments) -> null);
+    }
+}
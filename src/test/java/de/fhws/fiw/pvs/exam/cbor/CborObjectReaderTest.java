@@ -0,0 +1,274 @@
+package de.fhws.fiw.pvs.exam.cbor;
+
+import com.owlike.genson.stream.JsonStreamException;
+import com.owlike.genson.stream.ValueType;
+import de.fhws.fiw.pvs.exam.linkconverter.LinkInjector;
+import de.fhws.fiw.pvs.exam.resources.Course;
+import de.fhws.fiw.pvs.exam.resources.Event;
+import org.junit.jupiter.api.*;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class CborObjectReaderTest {
+    private static final long MAXIMUM_BYTES = 1048576;
+    private final CborConverter converter = new CborConverter(null);
+    private final LinkInjector linkInjector = new LinkInjector(URI.create("http://localhost:8080/api/softskills/"));
+
+
+    // A course goes through CBOR and comes back with the same properties, its links are skipped on the way back
+    @Test
+    public void courseRoundTripTest() throws IOException {
+        Course course = new Course("testCourse", "\u00dcn\u00efc\u00f6d\u00e9 \u2028 and \ud83d\ude00", 50);
+        course.setVersion(3);
+        linkInjector.inject(course);
+
+        Course readCourse = read(write(course, Course.class), Course.class, Course.class);
+
+        assertCourseEquals(course, readCourse);
+    }
+
+
+    @Test
+    public void eventRoundTripTest() throws IOException {
+        Event event = createEvent("2020-07-18--18:00:00", "2020-07-18--20:00:00");
+
+        Event readEvent = read(write(event, Event.class), Event.class, Event.class);
+
+        assertEventEquals(event, readEvent);
+    }
+
+
+    @Test
+    public void listRoundTripTest() throws IOException {
+        List<Event> events = Arrays.asList(createEvent("2020-07-18--18:00:00", "2020-07-18--20:00:00"),
+                createEvent("2020-07-19--18:00:00", "2020-07-19--20:00:00"));
+        Type listType = new GenericType<List<Event>>() {}.getType();
+
+        List<Event> readEvents = read(write(events, listType), List.class, listType);
+
+        assertEquals(events.size(), readEvents.size());
+        for (int i = 0; i < events.size(); i++) {
+            assertEventEquals(events.get(i), readEvents.get(i));
+        }
+    }
+
+
+    // Strings of indefinite length are put together from their chunks
+    @Test
+    public void indefiniteLengthChunksTest() throws IOException {
+        // {"courseName": (_ "test" "Course"), "maximumStudents": 7}
+        ByteArrayOutputStream cbor = new ByteArrayOutputStream();
+        cbor.write(0xBF);
+        writeText(cbor, "courseName");
+        cbor.write(0x7F);
+        writeText(cbor, "test");
+        writeText(cbor, "Course");
+        cbor.write(0xFF);
+        writeText(cbor, "maximumStudents");
+        cbor.write(0x07);
+        cbor.write(0xFF);
+
+        Course course = read(cbor.toByteArray(), Course.class, Course.class);
+
+        assertEquals("testCourse", course.getCourseName());
+        assertEquals(7, course.getMaximumStudents());
+    }
+
+
+    @Test
+    public void chunkOfWrongTypeTest() {
+        // A text string with a byte string chunk in it
+        byte[] cbor = {0x7F, 0x41, 'a', (byte) 0xFF};
+
+        assertThrows(JsonStreamException.class, () -> new CborObjectReader(new ByteArrayInputStream(cbor),
+                MAXIMUM_BYTES));
+    }
+
+
+    @Test
+    public void truncatedInputTest() throws IOException {
+        byte[] cbor = write(createEvent("2020-07-18--18:00:00", "2020-07-18--20:00:00"), Event.class);
+
+        for (int length : new int[]{0, 1, cbor.length / 2, cbor.length - 1}) {
+            byte[] truncated = Arrays.copyOf(cbor, length);
+            assertThrows(BadRequestException.class, () -> read(truncated, Event.class, Event.class),
+                    "Truncated to " + length + " bytes");
+        }
+    }
+
+
+    // A text string that claims to be almost 2 GB long is rejected before any memory is taken for it
+    @Test
+    public void oversizedStringLengthTest() {
+        byte[] cbor = {0x7A, 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xEF};
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(JsonStreamException.class,
+                () -> new CborObjectReader(new ByteArrayInputStream(cbor), MAXIMUM_BYTES)));
+    }
+
+
+    @Test
+    public void oversizedByteStringLengthTest() {
+        byte[] cbor = {0x5A, 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xEF};
+
+        assertThrows(JsonStreamException.class, () -> new CborObjectReader(new ByteArrayInputStream(cbor),
+                MAXIMUM_BYTES));
+    }
+
+
+    // A length that fits the limit, but whose bytes never arrive, only takes as much memory as has arrived
+    @Test
+    public void missingStringBytesTest() {
+        // A text string of 1000000 bytes with only 3 of them sent
+        byte[] cbor = {0x7A, 0x00, 0x0F, 0x42, 0x40, 'a', 'b', 'c'};
+
+        assertThrows(JsonStreamException.class, () -> new CborObjectReader(new ByteArrayInputStream(cbor),
+                MAXIMUM_BYTES));
+    }
+
+
+    @Test
+    public void oversizedArrayLengthTest() {
+        // An array with 2^64 - 1 elements
+        byte[] cbor = {(byte) 0x9B, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, (byte) 0xFF};
+
+        assertThrows(JsonStreamException.class, () -> new CborObjectReader(new ByteArrayInputStream(cbor),
+                MAXIMUM_BYTES));
+    }
+
+
+    @Test
+    public void inputBiggerThanMaximumTest() {
+        // An array of 2000 ones is bigger than 1000 bytes
+        byte[] cbor = new byte[2003];
+        cbor[0] = (byte) 0x99;
+        cbor[1] = 0x07;
+        cbor[2] = (byte) 0xD0;
+        Arrays.fill(cbor, 3, cbor.length, (byte) 0x01);
+
+        assertThrows(JsonStreamException.class, () -> new CborObjectReader(new ByteArrayInputStream(cbor), 1000)
+                .skipValue());
+    }
+
+
+    // An unknown property with deeply nested arrays is skipped without running out of stack
+    @Test
+    public void deepNestingWhileSkippingTest() {
+        ByteArrayOutputStream cbor = new ByteArrayOutputStream();
+        cbor.write(0xA1);
+        writeText(cbor, "unknown");
+        for (int i = 0; i < 100000; i++) {
+            cbor.write(0x81);
+        }
+        cbor.write(0x00);
+
+        assertThrows(BadRequestException.class, () -> read(cbor.toByteArray(), Course.class, Course.class));
+    }
+
+
+    @Test
+    public void deepNestingWhileEnteringTest() {
+        byte[] cbor = new byte[100001];
+        Arrays.fill(cbor, 0, 100000, (byte) 0x81);
+
+        CborObjectReader reader = new CborObjectReader(new ByteArrayInputStream(cbor), MAXIMUM_BYTES);
+        assertThrows(JsonStreamException.class, () -> {
+            while (true) {
+                reader.beginArray();
+                reader.next();
+            }
+        });
+    }
+
+
+    @Test
+    public void manyTagsTest() {
+        // 100000 tags in front of one integer
+        byte[] cbor = new byte[100001];
+        Arrays.fill(cbor, 0, 100000, (byte) 0xC0);
+        cbor[100000] = 0x05;
+
+        CborObjectReader reader = new CborObjectReader(new ByteArrayInputStream(cbor), MAXIMUM_BYTES);
+        assertEquals(ValueType.INTEGER, reader.getValueType());
+        assertEquals(5, reader.valueAsInt());
+    }
+
+
+
+    // Additional methods:
+
+    private Event createEvent(String startTime, String endTime) {
+        Event event = new Event(startTime, endTime);
+        event.setCourseId("5f1a2b3c4d5e6f7a8b9c0d1e");
+        event.setVersion(2);
+        event.setMaximumStudents(50);
+        event.setSignedUpStudents(new HashSet<>(Arrays.asList("k12345", "k67890")));
+        event.setSignedUpCount(2);
+        linkInjector.inject(event);
+        return event;
+    }
+
+
+    private byte[] write(Object resource, Type type) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        converter.writeTo(resource, resource.getClass(), type, new Annotation[0],
+                CborConverter.APPLICATION_CBOR_TYPE, new MultivaluedHashMap<>(), outputStream);
+        return outputStream.toByteArray();
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private <T> T read(byte[] cbor, Class<?> type, Type genericType) throws IOException {
+        return (T) converter.readFrom((Class<Object>) type, genericType, new Annotation[0],
+                CborConverter.APPLICATION_CBOR_TYPE, new MultivaluedHashMap<>(), new ByteArrayInputStream(cbor));
+    }
+
+
+    private static void writeText(ByteArrayOutputStream cbor, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        cbor.write(0x60 | bytes.length);
+        cbor.write(bytes, 0, bytes.length);
+    }
+
+
+    private static void assertCourseEquals(Course expected, Course actual) {
+        assertEquals(expected.getHashId(), actual.getHashId());
+        assertEquals(expected.getVersion(), actual.getVersion());
+        assertEquals(expected.getCourseName(), actual.getCourseName());
+        assertEquals(expected.getCourseDescription(), actual.getCourseDescription());
+        assertEquals(expected.getMaximumStudents(), actual.getMaximumStudents());
+    }
+
+
+    private static void assertEventEquals(Event expected, Event actual) {
+        assertEquals(expected.getHashId(), actual.getHashId());
+        assertEquals(expected.getVersion(), actual.getVersion());
+        assertEquals(expected.getStartTime(), actual.getStartTime());
+        assertEquals(expected.getEndTime(), actual.getEndTime());
+        assertEquals(expected.getCourseId(), actual.getCourseId());
+        assertEquals(expected.getSignedUpStudents(), actual.getSignedUpStudents());
+        assertEquals(expected.getSignedUpCount(), actual.getSignedUpCount());
+        assertEquals(expected.getMaximumStudents(), actual.getMaximumStudents());
+    }
+}
@@ -0,0 +1,128 @@
+package de.fhws.fiw.pvs.exam.database.archive;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import de.fhws.fiw.pvs.exam.database.DAOFactory;
+import de.fhws.fiw.pvs.exam.database.MongoConnection;
+import de.fhws.fiw.pvs.exam.database.ReadOperation;
+import de.fhws.fiw.pvs.exam.database.dao.CourseDAO;
+import de.fhws.fiw.pvs.exam.database.dao.EventDAO;
+import de.fhws.fiw.pvs.exam.resources.Course;
+import de.fhws.fiw.pvs.exam.resources.CourseWithEvents;
+import de.fhws.fiw.pvs.exam.resources.Event;
+import org.junit.jupiter.api.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Needs a running MongoDB, like the service tests need a running server
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class EventArchiverTest {
+    private static final EventDAO eventDatabase = DAOFactory.createEventDAO();
+    private static final CourseDAO courseDatabase = DAOFactory.createCourseDAO();
+    private MongoCollection<Event> events;
+    private MongoCollection<Event> archive;
+    private Course testCourse;
+    private Event pastEvent;
+    private Event changedEvent;
+
+    @BeforeAll
+    public void setUp() {
+        events = MongoConnection.getCollection(DAOFactory.EVENT_COLLECTION, Event.class,
+                ReadOperation.SIGN_UP_CHECK);
+        archive = MongoConnection.getCollection(DAOFactory.EVENT_ARCHIVE_COLLECTION, Event.class,
+                ReadOperation.SIGN_UP_CHECK);
+
+        testCourse = new Course("testCourse", "testDescription", 50);
+        courseDatabase.insertInto(testCourse);
+
+        pastEvent = new Event("2001-07-18--18:00:00", "2001-07-18--20:00:00");
+        pastEvent.setCourseId(testCourse.getHashId());
+        eventDatabase.insertInto(pastEvent);
+
+        changedEvent = new Event("2001-07-19--18:00:00", "2001-07-19--20:00:00");
+        changedEvent.setCourseId(testCourse.getHashId());
+        eventDatabase.insertInto(changedEvent);
+    }
+
+
+    // Archive an event nobody has touched in between
+    @Test
+    @Order(1)
+    public void archivePastEventTest() {
+        List<String> archivedIds = EventArchiver.archive(events, archive, Collections.singletonList(pastEvent),
+                EventArchive.getCutoff());
+
+        assertEquals(Collections.singletonList(pastEvent.getHashId()), archivedIds);
+        assertTrue(eventDatabase.isNotInDatabase(pastEvent.getHashId()));
+        assertTrue(eventDatabase.isArchived(pastEvent.getHashId()));
+        assertNotNull(archive.find(Filters.eq("_id", pastEvent.getHashId())).first());
+    }
+
+
+    // An archived event can still be read by its id
+    @Test
+    @Order(2)
+    public void getArchivedEventByIdTest() {
+        Event event = eventDatabase.getById(pastEvent.getHashId());
+
+        assertNotNull(event);
+        assertEquals(pastEvent.getStartTime(), event.getStartTime());
+        assertNotNull(eventDatabase.getByIdWithSpecificCourse(pastEvent.getHashId(), testCourse.getHashId()));
+        assertEquals(1, eventDatabase.getByIds(Collections.singletonList(pastEvent.getHashId())).size());
+    }
+
+
+    // A window that reaches back before the cutoff lists the archived event, without a window only the current
+    // events are listed
+    @Test
+    @Order(3)
+    public void getCourseWithArchivedEventTest() {
+        CourseWithEvents pastCourse = courseDatabase.getByIdWithEvents(testCourse.getHashId(),
+                "2001-01-01--00:00:00", "2001-12-31--00:00:00");
+        CourseWithEvents currentCourse = courseDatabase.getByIdWithEvents(testCourse.getHashId(), null, null);
+
+        assertNotNull(pastCourse);
+        assertTrue(pastCourse.getEmbeddedEvents().stream()
+                .anyMatch(event -> event.getHashId().equals(pastEvent.getHashId())));
+        assertNotNull(currentCourse);
+        assertTrue(currentCourse.getEmbeddedEvents().stream()
+                .noneMatch(event -> event.getHashId().equals(pastEvent.getHashId())));
+    }
+
+
+    // A sign-up between the copy and the delete must not get lost
+    @Test
+    @Order(4)
+    public void changedEventIsNotArchivedTest() {
+        // The copy is taken before the student signs up
+        Event copy = events.find(Filters.eq("_id", changedEvent.getHashId())).first();
+        assertNotNull(copy);
+        assertTrue(eventDatabase.signUp("student", changedEvent.getHashId()));
+
+        List<String> archivedIds = EventArchiver.archive(events, archive, Collections.singletonList(copy),
+                EventArchive.getCutoff());
+
+        assertTrue(archivedIds.isEmpty());
+        Event event = eventDatabase.getById(changedEvent.getHashId());
+        assertNotNull(event);
+        assertTrue(event.getSignedUpStudents().contains("student"));
+        assertNull(archive.find(Filters.eq("_id", changedEvent.getHashId())).first());
+    }
+
+
+    @AfterAll
+    public void tearDown() {
+        archive.deleteMany(Filters.in("_id", pastEvent.getHashId(), changedEvent.getHashId()));
+        events.deleteMany(Filters.in("_id", pastEvent.getHashId(), changedEvent.getHashId()));
+        courseDatabase.delete(testCourse.getHashId());
+    }
+}
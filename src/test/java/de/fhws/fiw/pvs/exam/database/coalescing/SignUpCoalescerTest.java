@@ -0,0 +1,78 @@
+package de.fhws.fiw.pvs.exam.database.coalescing;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import de.fhws.fiw.pvs.exam.database.DAOFactory;
+import de.fhws.fiw.pvs.exam.database.MongoConnection;
+import de.fhws.fiw.pvs.exam.database.ReadOperation;
+import de.fhws.fiw.pvs.exam.database.dao.CourseDAO;
+import de.fhws.fiw.pvs.exam.database.dao.EventDAO;
+import de.fhws.fiw.pvs.exam.resources.Course;
+import de.fhws.fiw.pvs.exam.resources.Event;
+import org.junit.jupiter.api.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// Needs a running MongoDB, like the service tests need a running server
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class SignUpCoalescerTest {
+    private static final EventDAO eventDatabase = DAOFactory.createEventDAO();
+    private static final CourseDAO courseDatabase = DAOFactory.createCourseDAO();
+    private MongoCollection<Event> events;
+    private Course testCourse;
+    private Event testEvent;
+
+    @BeforeAll
+    public void setUp() {
+        events = MongoConnection.getCollection(DAOFactory.EVENT_COLLECTION, Event.class,
+                ReadOperation.SIGN_UP_CHECK);
+
+        testCourse = new Course("testCourse", "testDescription", 2);
+        courseDatabase.insertInto(testCourse);
+
+        testEvent = new Event("2030-07-18--18:00:00", "2030-07-18--20:00:00");
+        testEvent.setCourseId(testCourse.getHashId());
+        eventDatabase.insertInto(testEvent);
+    }
+
+
+    // The leave of the batch is written, but another student took a seat in between, so the joins don't fit anymore.
+    // The leave is done and only the joins are applied one by one
+    @Test
+    public void leaveMatchesJoinDoesNotTest() {
+        assertTrue(eventDatabase.signUp("k10001", testEvent.getHashId()));
+        // The coalescer read the event before the second student signed up
+        Event staleEvent = events.find(Filters.eq("_id", testEvent.getHashId())).first();
+        assertTrue(eventDatabase.signUp("k10002", testEvent.getHashId()));
+
+        SignUpCoalescer.Command leave = new SignUpCoalescer.Command(false, "k10001", null);
+        SignUpCoalescer.Command firstJoin = new SignUpCoalescer.Command(true, "k10003", null);
+        SignUpCoalescer.Command secondJoin = new SignUpCoalescer.Command(true, "k10004", null);
+        List<SignUpCoalescer.Command> commands = Arrays.asList(leave, firstJoin, secondJoin);
+        SignUpCoalescer.forCollection(events).write(testEvent.getHashId(), staleEvent, commands);
+
+        assertTrue(leave.result.join());
+        assertTrue(firstJoin.result.join());
+        assertFalse(secondJoin.result.join());
+        Event event = events.find(Filters.eq("_id", testEvent.getHashId())).first();
+        assertNotNull(event);
+        assertEquals(new HashSet<>(Arrays.asList("k10002", "k10003")), event.getSignedUpStudents());
+        assertEquals(2, event.getSignedUpCount());
+    }
+
+
+    @AfterAll
+    public void tearDown() {
+        events.deleteOne(Filters.eq("_id", testEvent.getHashId()));
+        courseDatabase.delete(testCourse.getHashId());
+    }
+}
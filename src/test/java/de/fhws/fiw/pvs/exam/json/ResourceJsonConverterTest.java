@@ -0,0 +1,197 @@
+package de.fhws.fiw.pvs.exam.json;
+
+import com.owlike.genson.GenericType;
+import com.owlike.genson.Genson;
+import com.owlike.genson.ext.jaxrs.GensonJaxRSFeature;
+import de.fhws.fiw.pvs.exam.linkconverter.LinkInjector;
+import de.fhws.fiw.pvs.exam.resources.Course;
+import de.fhws.fiw.pvs.exam.resources.Event;
+import org.junit.jupiter.api.*;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+// The hand-written JSON has to be byte for byte the JSON Genson writes
+public class ResourceJsonConverterTest {
+    // Every control character, the characters JSON escapes, the line/paragraph separators and a surrogate pair
+    private static final String SPECIAL_CHARACTERS = controlCharacters()
+            + "\"\\/\u007f\u00e4\u2028\u2029\ud83d\ude00";
+    private static final Type COURSE_LIST = new GenericType<List<Course>>() {}.getType();
+    private static final Type EVENT_LIST = new GenericType<List<Event>>() {}.getType();
+    private final ResourceJsonConverter converter = new ResourceJsonConverter();
+    private final Genson genson = new GensonJaxRSFeature().genson();
+    private final LinkInjector linkInjector = new LinkInjector(URI.create("http://localhost:8080/api/softskills/"));
+
+
+    @Test
+    public void courseLikeGensonTest() throws IOException {
+        Course course = createCourse(SPECIAL_CHARACTERS);
+
+        assertEquals(genson.serialize(course), write(course, Course.class));
+    }
+
+
+    @Test
+    public void eventLikeGensonTest() throws IOException {
+        Event event = createEvent(SPECIAL_CHARACTERS);
+
+        assertEquals(genson.serialize(event), write(event, Event.class));
+    }
+
+
+    // Without links and with null properties
+    @Test
+    public void emptyResourcesLikeGensonTest() throws IOException {
+        Course course = new Course();
+        Event event = new Event();
+
+        assertEquals(genson.serialize(course), write(course, Course.class));
+        assertEquals(genson.serialize(event), write(event, Event.class));
+    }
+
+
+    @Test
+    public void listsLikeGensonTest() throws IOException {
+        List<Course> courses = Arrays.asList(createCourse("first"), null, createCourse(SPECIAL_CHARACTERS));
+        List<Event> events = Arrays.asList(createEvent("first"), createEvent(SPECIAL_CHARACTERS));
+
+        assertEquals(genson.serialize(courses), write(courses, COURSE_LIST));
+        assertEquals(genson.serialize(events), write(events, EVENT_LIST));
+    }
+
+
+    // The writer escapes a string in parts that fit its buffer of 2048 bytes. Moving an escape, a multi-byte
+    // character and a surrogate pair over every position around the end of the buffer must not change the JSON
+    @Test
+    public void stringsAcrossTheBufferBoundaryTest() throws IOException {
+        for (int padding = 1990; padding < 2070; padding++) {
+            char[] filler = new char[padding];
+            Arrays.fill(filler, 'a');
+            String description = new String(filler) + "\ud83d\ude00\u2028\n\u00e4\ud83d\ude00";
+            Course course = createCourse(description);
+
+            assertEquals(genson.serialize(course), write(course, Course.class), "Padding " + padding);
+        }
+    }
+
+
+    @Test
+    public void longStringsLikeGensonTest() throws IOException {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            description.append(SPECIAL_CHARACTERS);
+        }
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            courses.add(createCourse(description.substring(i)));
+        }
+
+        assertEquals(genson.serialize(courses), write(courses, COURSE_LIST));
+    }
+
+
+    // What Genson writes is read back with the same properties
+    @Test
+    public void readGensonJsonTest() throws IOException {
+        Course course = createCourse(SPECIAL_CHARACTERS);
+        Event event = createEvent(SPECIAL_CHARACTERS);
+
+        Course readCourse = read(genson.serialize(course), Course.class, Course.class);
+        Event readEvent = read(genson.serialize(event), Event.class, Event.class);
+        List<Event> readEvents = read(genson.serialize(Arrays.asList(event, event)), List.class, EVENT_LIST);
+
+        assertEquals(course.getCourseDescription(), readCourse.getCourseDescription());
+        assertEquals(course.getCourseName(), readCourse.getCourseName());
+        assertEquals(course.getHashId(), readCourse.getHashId());
+        assertEquals(course.getMaximumStudents(), readCourse.getMaximumStudents());
+        assertEquals(course.getVersion(), readCourse.getVersion());
+        assertEquals(event.getHashId(), readEvent.getHashId());
+        assertEquals(event.getCourseId(), readEvent.getCourseId());
+        assertEquals(event.getStartTime(), readEvent.getStartTime());
+        assertEquals(event.getEndTime(), readEvent.getEndTime());
+        assertEquals(event.getSignedUpStudents(), readEvent.getSignedUpStudents());
+        assertEquals(event.getSignedUpCount(), readEvent.getSignedUpCount());
+        assertEquals(event.getMaximumStudents(), readEvent.getMaximumStudents());
+        assertEquals(event.getVersion(), readEvent.getVersion());
+        assertEquals(2, readEvents.size());
+        assertEquals(event.getSignedUpStudents(), readEvents.get(1).getSignedUpStudents());
+    }
+
+
+    @Test
+    public void malformedJsonTest() {
+        assertThrows(BadRequestException.class, () -> read("{\"courseName\": ", Course.class, Course.class));
+        assertThrows(BadRequestException.class, () -> read("{\"version\": \"one\"}", Course.class, Course.class));
+        assertThrows(BadRequestException.class, () -> read("[{}, ", List.class, EVENT_LIST));
+    }
+
+
+
+    // Additional methods:
+
+    private Course createCourse(String description) {
+        Course course = new Course("testCourse " + description.substring(0, Math.min(10, description.length())),
+                description, 50);
+        course.setVersion(7);
+        linkInjector.inject(course);
+        return course;
+    }
+
+
+    private Event createEvent(String student) {
+        Event event = new Event("2020-07-18--18:00:00", "2020-07-18--20:00:00");
+        event.setCourseId("5f1a2b3c4d5e6f7a8b9c0d1e");
+        event.setVersion(2);
+        event.setMaximumStudents(50);
+        event.setSignedUpStudents(new LinkedHashSet<>(Arrays.asList("k12345", student)));
+        event.setSignedUpCount(2);
+        linkInjector.inject(event);
+        return event;
+    }
+
+
+    private String write(Object entity, Type type) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        assertTrue(converter.isWriteable(entity.getClass(), type, new Annotation[0],
+                MediaType.APPLICATION_JSON_TYPE));
+        converter.writeTo(entity, entity.getClass(), type, new Annotation[0], MediaType.APPLICATION_JSON_TYPE,
+                new MultivaluedHashMap<>(), outputStream);
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private <T> T read(String json, Class<?> type, Type genericType) throws IOException {
+        return (T) converter.readFrom((Class<Object>) type, genericType, new Annotation[0],
+                MediaType.APPLICATION_JSON_TYPE, new MultivaluedHashMap<>(),
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+
+    private static String controlCharacters() {
+        StringBuilder characters = new StringBuilder();
+        for (char c = 0; c < 0x20; c++) {
+            characters.append(c);
+        }
+        return characters.toString();
+    }
+}
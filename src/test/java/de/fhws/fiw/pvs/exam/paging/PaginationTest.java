@@ -0,0 +1,86 @@
+package de.fhws.fiw.pvs.exam.paging;
+
+import org.junit.jupiter.api.*;
+
+import javax.ws.rs.core.Link;
+import javax.ws.rs.core.UriInfo;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/***
+ * By Luca Lanzo
+ */
+
+
+public class PaginationTest {
+    private static final URI SEARCH_PATH = URI.create("http://localhost:8080/api/softskills/courses/search");
+
+
+    // A "{...}" in the search query is a value and not a template parameter
+    @Test
+    public void searchForTemplateTest() {
+        Link[] links = Pagination.createPagination(uriInfoOf(SEARCH_PATH), 10, 10, 30, "q", "{x}", selfLink());
+
+        for (Link link : links) {
+            if (!link.getRel().equals("createNewCourse")) {
+                assertTrue(link.getUri().getRawQuery().startsWith("q=%7Bx%7D&offset="), link.toString());
+                assertEquals("{x}", queryValueOf(link.getUri()));
+            }
+        }
+    }
+
+
+    // A "%" in the search query is encoded, also if it looks like the start of an escape
+    @Test
+    public void searchForPercentTest() {
+        String[][] queriesAndEncodings = {{"100%", "100%25"}, {"100%2B", "100%252B"}};
+
+        for (String[] queryAndEncoding : queriesAndEncodings) {
+            Link[] links = Pagination.createPagination(uriInfoOf(SEARCH_PATH), 10, 0, 30, "q", queryAndEncoding[0],
+                    selfLink());
+            for (Link link : links) {
+                if (!link.getRel().equals("createNewCourse")) {
+                    assertTrue(link.getUri().getRawQuery().startsWith("q=" + queryAndEncoding[1] + "&offset="),
+                            link.toString());
+                    assertEquals(queryAndEncoding[0], queryValueOf(link.getUri()));
+                }
+            }
+        }
+    }
+
+
+    @Test
+    public void withoutQueryTest() {
+        Link[] links = Pagination.createPagination(uriInfoOf(SEARCH_PATH), 10, 0, 5, "q", "", selfLink());
+
+        assertEquals(2, links.length);
+        assertEquals("offset=0&size=10", links[1].getUri().getRawQuery());
+    }
+
+
+
+    // Additional methods:
+
+    private static UriInfo uriInfoOf(URI absolutePath) {
+        return (UriInfo) Proxy.newProxyInstance(UriInfo.class.getClassLoader(), new Class<?>[]{UriInfo.class},
+                (proxy, method, arguments) -> {
+                    if (method.getName().equals("getAbsolutePath")) {
+                        return absolutePath;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+
+    private static Link selfLink() {
+        return Link.fromUri(SEARCH_PATH).rel("createNewCourse").type("application/json").build();
+    }
+
+
+    private static String queryValueOf(URI uri) {
+        String query = uri.getQuery();
+        return query.substring(query.indexOf('=') + 1, query.indexOf("&offset="));
+    }
+}
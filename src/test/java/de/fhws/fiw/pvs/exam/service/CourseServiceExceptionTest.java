@@ -283,6 +283,34 @@ public class CourseServiceExceptionTest {
     }
 
 
+    // PUT with an If-Match of a version the course doesn't have anymore. RESPONSE CODE 412
+    @Test
+    @Order(10)
+    public void updateCourseWithOutdatedETagTest() {
+        try {
+            testCourse = new Course("TestcourseETagTest", "A de.fhws.fiw.pvs.exam.test course for JUnit", 50);
+            courseDatabase.insertInto(testCourse);
+            RequestBody requestBody = RequestBody.create(JSON, builder.serialize(testCourse));
+
+            Request request = new Request.Builder()
+                    .url(BASE_URL + "/" + testCourse.getHashId())
+                    .put(requestBody)
+                    .header("Authorization", adminCreds)
+                    .header("If-Match", "\"" + (testCourse.getVersion() + 1) + "\"")
+                    .build();
+
+            Response response = client.newCall(request).execute();
+
+            courseDatabase.delete(testCourse.getHashId());
+            assertEquals(412, response.code());
+        } catch (NullPointerException e) {
+            fail("No response body has been sent by the server.");
+        } catch (IOException e) {
+            fail("Call to the Server couldn't be made. Is the server not running?");
+        }
+    }
+
+
     @AfterAll
     public void tearDown() {
         Course course = courseDatabase.getById(testCourse.getHashId());
@@ -6,6 +6,7 @@ import de.fhws.fiw.pvs.exam.database.dao.CourseDAO;
 import de.fhws.fiw.pvs.exam.database.dao.EventDAO;
 import okhttp3.*;
 import org.apache.tomcat.util.codec.binary.Base64;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
 import org.junit.jupiter.api.TestInstance.Lifecycle;
@@ -178,9 +179,42 @@ public class CourseServiceTest {
     }
 
 
-    // GET course by name
+    // GET course by id again with its ETag. RESPONSE CODE 304
     @Test
     @Order(5)
+    public void getCourseByIdNotModifiedTest() {
+        try {
+            Request request = new Request.Builder()
+                    .url(BASE_URL + "/" + testCourse.getHashId())
+                    .get()
+                    .header("Authorization", adminCreds)
+                    .build();
+
+            Response response = client.newCall(request).execute();
+            String entityTag = response.header("ETag");
+            assertNotNull(entityTag);
+
+            request = new Request.Builder()
+                    .url(BASE_URL + "/" + testCourse.getHashId())
+                    .get()
+                    .header("Authorization", adminCreds)
+                    .header("If-None-Match", entityTag)
+                    .build();
+
+            response = client.newCall(request).execute();
+
+            assertEquals(304, response.code());
+        } catch (NullPointerException e) {
+            fail("No response body has been sent by the server");
+        } catch (IOException e) {
+            fail("Call to the Server couldn't be made. Is the server not running?");
+        }
+    }
+
+
+    // GET course by name
+    @Test
+    @Order(6)
     public void getCourseByNameTest() {
         try {
             Request request = new Request.Builder()
@@ -204,9 +238,64 @@ public class CourseServiceTest {
     }
 
 
+    // GET courses by a full-text search
+    @Test
+    @Order(7)
+    public void searchCoursesTest() {
+        try {
+            Request request = new Request.Builder()
+                    .url(BASE_URL + "/?q=" + testCourse.getCourseName())
+                    .get()
+                    .header("Authorization", adminCreds)
+                    .build();
+
+            Response response = client.newCall(request).execute();
+
+            if (response.code() != 200) {
+                fail("Wrong response code");
+            } else {
+                String body = Objects.requireNonNull(response.body()).string();
+                assertTrue(body.contains(testCourse.getHashId()) && body.contains("score"));
+            }
+        } catch (NullPointerException e) {
+            fail("No response body has been sent by the server");
+        } catch (IOException e) {
+            fail("Call to the Server couldn't be made. Is the server not running?");
+        }
+    }
+
+
+    // GET several courses by their ids, the ones that don't exist are listed in X-missingIds
+    @Test
+    @Order(8)
+    public void getCoursesByIdsTest() {
+        try {
+            String missingId = ObjectId.get().toString();
+            Request request = new Request.Builder()
+                    .url(BASE_URL + "/?ids=" + testCourse.getHashId() + "," + missingId)
+                    .get()
+                    .header("Authorization", adminCreds)
+                    .build();
+
+            Response response = client.newCall(request).execute();
+
+            if (response.code() != 200) {
+                fail("Wrong response code");
+            } else {
+                String body = Objects.requireNonNull(response.body()).string();
+                assertTrue(body.contains(testCourse.getHashId()) && missingId.equals(response.header("X-missingIds")));
+            }
+        } catch (NullPointerException e) {
+            fail("No response body has been sent by the server");
+        } catch (IOException e) {
+            fail("Call to the Server couldn't be made. Is the server not running?");
+        }
+    }
+
+
     // GET all the events from a specific course
     @Test
-    @Order(6)
+    @Order(9)
     public void getAllEventsFromSpecificCourseTest() {
         try {
             testEvent = new Event("2020-07-18--18:00:00", "2020-07-18--19:00:00");
@@ -236,7 +325,7 @@ public class CourseServiceTest {
 
     // GET a specific event from a specific course
     @Test
-    @Order(7)
+    @Order(10)
     public void getSpecificEventFromSpecificCourseTest() {
         try {
             Request request = new Request.Builder()
@@ -260,9 +349,36 @@ public class CourseServiceTest {
     }
 
 
+    // GET a course with its events embedded
+    @Test
+    @Order(11)
+    public void getCourseWithEmbeddedEventsTest() {
+        try {
+            Request request = new Request.Builder()
+                    .url(BASE_URL + "/" + testCourse.getHashId() + "?embed=events")
+                    .get()
+                    .header("Authorization", adminCreds)
+                    .build();
+
+            Response response = client.newCall(request).execute();
+
+            if (response.code() != 200) {
+                fail("Wrong response code.");
+            } else {
+                String body = Objects.requireNonNull(response.body()).string();
+                assertTrue(body.contains(testCourse.getHashId()) && body.contains(testEvent.getHashId()));
+            }
+        } catch (NullPointerException e) {
+            fail("No response body has been sent by the server");
+        } catch (IOException e) {
+            fail("Call to the Server couldn't be made. Is the server not running?");
+        }
+    }
+
+
     // CourseService: GET all courses cacheControl check
     @Test
-    @Order(8)
+    @Order(12)
     public void getAllCoursesCacheControlTest() {
         try {
             Request request = new Request.Builder()
@@ -288,7 +404,7 @@ public class CourseServiceTest {
 
     // CourseService: GET single cacheControl check
     @Test
-    @Order(9)
+    @Order(13)
     public void getAllSingleCourseCacheControlTest() {
         try {
             Request request = new Request.Builder()
@@ -314,7 +430,7 @@ public class CourseServiceTest {
 
     // CourseService: GET all events cacheControl check
     @Test
-    @Order(10)
+    @Order(14)
     public void getAllEventsCacheControlTest() {
         try {
             Request request = new Request.Builder()
@@ -339,7 +455,7 @@ public class CourseServiceTest {
 
     // CourseService: GET specific event cacheControl check
     @Test
-    @Order(11)
+    @Order(15)
     public void getSpecificEventCacheControlTest() {
         try {
             Request request = new Request.Builder()
@@ -365,7 +481,7 @@ public class CourseServiceTest {
 
     // PUT a course
     @Test
-    @Order(12)
+    @Order(16)
     public void updateCourseTest() {
         try {
             testCourse.setCourseName("TestcoursePutTest");
@@ -403,7 +519,7 @@ public class CourseServiceTest {
 
     // DELETE a course
     @Test
-    @Order(13)
+    @Order(17)
     public void deleteCourseTest() {
         try {
             Request request = new Request.Builder()